@@ -0,0 +1,126 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.benchmarks;
+
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.web.By;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction, equality and hashing of the web {@link By} locators, which views and element
+ * caches do constantly. The factory methods share interned instances; "constructCssUninterned"
+ * builds a new, canonicalized locator every time, for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ByBenchmark {
+    private String css;
+    private String tag;
+    private String url;
+
+    private Locator css1;
+    private Locator css2;
+    private Locator tag1;
+    private Locator tag2;
+    private Locator url1;
+    private Locator url2;
+
+    @Setup
+    public void setUp() {
+        // Built at runtime so that equal strings are distinct instances, as they would be when
+        // locators are built from concatenation.
+        css = new StringBuilder("div.content > table#staff").append(" tr td:nth-child(2)")
+                .toString();
+        tag = new StringBuilder("tab").append("le").toString();
+        url = new StringBuilder("http://example.com/").append("staff?page=1").toString();
+
+        css1 = By.css(css);
+        css2 = By.css(new String(css));
+        tag1 = By.htmlTag(tag);
+        tag2 = By.htmlTag(new String(tag));
+        url1 = By.url(url);
+        url2 = By.url(new String(url));
+    }
+
+    @Benchmark
+    public Locator constructCss() {
+        return By.css(css);
+    }
+
+    @Benchmark
+    public Locator constructCssUninterned() {
+        return new By.ByCss(css);
+    }
+
+    @Benchmark
+    public Locator constructHtmlTag() {
+        return By.htmlTag(tag);
+    }
+
+    @Benchmark
+    public Locator constructUrl() {
+        return By.url(url);
+    }
+
+    @Benchmark
+    public boolean equalsCss() {
+        return css1.equals(css2);
+    }
+
+    @Benchmark
+    public boolean equalsHtmlTag() {
+        return tag1.equals(tag2);
+    }
+
+    @Benchmark
+    public boolean equalsUrl() {
+        return url1.equals(url2);
+    }
+
+    @Benchmark
+    public int hashCodeCss() {
+        return css1.hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeHtmlTag() {
+        return tag1.hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeUrl() {
+        return url1.hashCode();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web.benchmarks;
+
+import com.redhat.darcy.web.Cookie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what building and printing a cookie allocates. Run with the GC profiler to see bytes
+ * allocated per operation, like {@code java -jar target/benchmarks.jar CookieAllocation -prof gc}.
+ *
+ * <p>The "split" and "newFormatter" benchmarks repeat what {@link Cookie} used to do to strip a
+ * port from its domain and to format its expiry, for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CookieAllocationBenchmark {
+    private final String domainWithPort = "tenant.example.com:8443";
+    private final String domain = "tenant.example.com";
+    private final String path = "/app";
+    private final LocalDateTime expiry = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private final Cookie cookie = new Cookie.Builder("JSESSIONID", "0123456789abcdef")
+            .domain(domain)
+            .path(path)
+            .expiresOn(expiry)
+            .build();
+
+    @Benchmark
+    public Cookie build() {
+        return new Cookie.Builder("JSESSIONID", "0123456789abcdef")
+                .domain(domainWithPort)
+                .path(path)
+                .build();
+    }
+
+    @Benchmark
+    public Cookie buildWithoutPort() {
+        return new Cookie.Builder("JSESSIONID", "0123456789abcdef")
+                .domain(domain)
+                .path(path)
+                .build();
+    }
+
+    @Benchmark
+    public Cookie buildInterned() {
+        return new Cookie.Builder("JSESSIONID", "0123456789abcdef")
+                .domain(domainWithPort)
+                .path(path)
+                .internStrings()
+                .build();
+    }
+
+    @Benchmark
+    public String split() {
+        return domainWithPort.split(":")[0];
+    }
+
+    @Benchmark
+    public String print() {
+        return cookie.toString();
+    }
+
+    @Benchmark
+    public String newFormatter() {
+        return DateTimeFormatter.ofPattern("EEE LLL dd HH:mm:ss z yyyy")
+                .withZone(ZoneId.systemDefault())
+                .format(expiry);
+    }
+}
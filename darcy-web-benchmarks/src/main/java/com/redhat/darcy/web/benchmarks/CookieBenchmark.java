@@ -0,0 +1,105 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.benchmarks;
+
+import com.redhat.darcy.web.Cookie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction, equality and hashing of {@link Cookie}s, as done when cookie managers build and
+ * compare sets of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CookieBenchmark {
+    private static final LocalDateTime EXPIRY = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private Cookie cookie;
+    private Cookie equalCookie;
+    private Cookie otherCookie;
+    private Set<Cookie> jar;
+
+    @Setup
+    public void setUp() {
+        cookie = newCookie("session");
+        equalCookie = newCookie("session");
+        otherCookie = newCookie("tracking");
+        jar = new HashSet<>();
+
+        for (int i = 0; i < 50; i++) {
+            jar.add(newCookie("cookie" + i));
+        }
+
+        jar.add(newCookie("session"));
+    }
+
+    @Benchmark
+    public Cookie construct() {
+        return newCookie("session");
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return cookie.equals(equalCookie);
+    }
+
+    @Benchmark
+    public boolean equalsDifferent() {
+        return cookie.equals(otherCookie);
+    }
+
+    @Benchmark
+    public int hashCodeCookie() {
+        return cookie.hashCode();
+    }
+
+    @Benchmark
+    public boolean containedInJar() {
+        return jar.contains(equalCookie);
+    }
+
+    private static Cookie newCookie(String name) {
+        return new Cookie.Builder(name, "0123456789abcdef")
+                .domain("www.example.com:8080")
+                .path("/app")
+                .expiresOn(EXPIRY)
+                .isSecure(true)
+                .isHttpOnly(true)
+                .build();
+    }
+}
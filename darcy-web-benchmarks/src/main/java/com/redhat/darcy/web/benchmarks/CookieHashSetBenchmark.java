@@ -0,0 +1,122 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.benchmarks;
+
+import com.redhat.darcy.web.Cookie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and queries a {@link HashSet} of cookies which mostly share a name, as a multi-tenant
+ * application's cookies would, one session cookie per tenant domain.
+ *
+ * <p>The "nameOnly" hashing runs the same operations with each cookie wrapped in a key that
+ * hashes only the cookie's name, as {@link Cookie#hashCode()} used to, for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CookieHashSetBenchmark {
+    @Param({"10000"})
+    public int size;
+
+    @Param({"cookie", "nameOnly"})
+    public String hashing;
+
+    private List<Object> elements;
+    private Set<Object> set;
+    private Object present;
+    private Object absent;
+
+    @Setup
+    public void setUp() {
+        elements = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            elements.add(key(newCookie("tenant" + i + ".example.com")));
+        }
+
+        set = new HashSet<>(elements);
+        present = key(newCookie("tenant" + (size / 2) + ".example.com"));
+        absent = key(newCookie("missing.example.com"));
+    }
+
+    @Benchmark
+    public Set<Object> build() {
+        return new HashSet<>(elements);
+    }
+
+    @Benchmark
+    public boolean containsPresent() {
+        return set.contains(present);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return set.contains(absent);
+    }
+
+    private Object key(Cookie cookie) {
+        return "nameOnly".equals(hashing) ? new NameOnlyKey(cookie) : cookie;
+    }
+
+    private static Cookie newCookie(String domain) {
+        return new Cookie.Builder("JSESSIONID", "0123456789abcdef")
+                .domain(domain)
+                .path("/")
+                .build();
+    }
+
+    private static final class NameOnlyKey {
+        private final Cookie cookie;
+
+        NameOnlyKey(Cookie cookie) {
+            this.cookie = cookie;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NameOnlyKey && cookie.equals(((NameOnlyKey) o).cookie);
+        }
+
+        @Override
+        public int hashCode() {
+            return cookie.getName().hashCode();
+        }
+    }
+}
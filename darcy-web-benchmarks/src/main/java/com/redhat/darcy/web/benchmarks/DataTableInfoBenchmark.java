@@ -0,0 +1,62 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.benchmarks;
+
+import com.redhat.darcy.web.DataTableInfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the info text which {@link com.redhat.darcy.web.JQueryDataTable} reads to determine
+ * the current page, row count, and total entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DataTableInfoBenchmark {
+    @Param({
+            "Showing 1 to 10 of 57 entries",
+            "Showing 1,001 to 1,010 of 12,345 entries (filtered from 99,999 total entries)",
+            "Showing 0 to 0 of 0 entries"})
+    public String info;
+
+    @Benchmark
+    public DataTableInfo parse() {
+        return DataTableInfo.parse(info);
+    }
+
+    @Benchmark
+    public int parseAndReadTotal() {
+        return DataTableInfo.parse(info).getTotal();
+    }
+}
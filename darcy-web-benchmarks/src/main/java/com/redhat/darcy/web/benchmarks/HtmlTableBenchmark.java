@@ -0,0 +1,116 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.benchmarks;
+
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.web.By;
+import com.redhat.darcy.web.HtmlTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of cell and header locators by {@link HtmlTable}, which column implementations do
+ * once per cell read. The table's structure is fixed rather than detected, so no browser is
+ * involved. The table is located by id, so its locator is combined with each cell's xpath.
+ *
+ * <p>A table remembers the locators it has generated, so repeated calls on one table measure that
+ * cache. The {@code *Uncached} variants use a new table per call, and so measure generating the
+ * locator, along with constructing the table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HtmlTableBenchmark {
+    @Param({"true", "false"})
+    public boolean hasBodyAndHeaderTags;
+
+    private BenchmarkTable table;
+    private int row;
+
+    @Setup
+    public void setUp() {
+        table = new BenchmarkTable(hasBodyAndHeaderTags);
+    }
+
+    @Benchmark
+    public Locator byRowColumn() {
+        row = row % 100 + 1;
+        return table.byRowColumn(row, 3);
+    }
+
+    @Benchmark
+    public Locator byHeader() {
+        return table.byHeader(3);
+    }
+
+    @Benchmark
+    public Locator byRowColumnUncached() {
+        row = row % 100 + 1;
+        return new BenchmarkTable(hasBodyAndHeaderTags).byRowColumn(row, 3);
+    }
+
+    @Benchmark
+    public Locator byHeaderUncached() {
+        return new BenchmarkTable(hasBodyAndHeaderTags).byHeader(3);
+    }
+
+    static class BenchmarkTable extends HtmlTable<BenchmarkTable> {
+        private final boolean hasTags;
+
+        BenchmarkTable(boolean hasTags) {
+            super(By.css("#staff"));
+            this.hasTags = hasTags;
+        }
+
+        @Override
+        protected boolean hasBodyTag() {
+            return hasTags;
+        }
+
+        @Override
+        protected boolean hasHeaderTag() {
+            return hasTags;
+        }
+
+        @Override
+        protected Locator byRowColumn(int rowIndex, int colIndex) {
+            return super.byRowColumn(rowIndex, colIndex);
+        }
+
+        @Override
+        protected Locator byHeader(int colIndex) {
+            return super.byHeader(colIndex);
+        }
+    }
+}
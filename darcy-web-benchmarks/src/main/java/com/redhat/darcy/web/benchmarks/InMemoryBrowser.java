@@ -0,0 +1,184 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.benchmarks;
+
+import static com.redhat.synq.Synq.after;
+import static org.hamcrest.CoreMatchers.notNullValue;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.ui.api.View;
+import com.redhat.darcy.web.Cookie;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.CookieManager;
+import com.redhat.darcy.web.api.WebSelection;
+import com.redhat.synq.Event;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A {@link Browser} with a single window, which keeps its history and cookies in memory and does
+ * no other I/O, so that benchmarks using it measure only darcy-web's own overhead. Pages have no
+ * content: navigating only changes the current URL, screenshots are a single blank pixel, and
+ * nothing can be found in them.
+ */
+public class InMemoryBrowser implements Browser {
+    /** A 1x1 transparent PNG. */
+    private static final byte[] SCREENSHOT = Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR42mNkYAAAAAYAAjCB0C8AAAAASUVORK5CYII=");
+
+    private final List<String> history = new ArrayList<>();
+    private final InMemoryCookieManager cookies = new InMemoryCookieManager();
+    private int position = 0;
+    private boolean closed = false;
+
+    public InMemoryBrowser(String currentUrl) {
+        history.add(currentUrl);
+    }
+
+    @Override
+    public <T extends View> Event<T> open(String url, T destination) {
+        return navigation(() -> {
+            history.subList(position + 1, history.size()).clear();
+            history.add(url);
+            position++;
+        }, destination);
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return history.get(position);
+    }
+
+    @Override
+    public String getTitle() {
+        return getCurrentUrl();
+    }
+
+    @Override
+    public String getSource() {
+        return "<html></html>";
+    }
+
+    @Override
+    public <T extends View> Event<T> back(T destination) {
+        return navigation(() -> position = Math.max(0, position - 1), destination);
+    }
+
+    @Override
+    public <T extends View> Event<T> forward(T destination) {
+        return navigation(() -> position = Math.min(history.size() - 1, position + 1),
+                destination);
+    }
+
+    @Override
+    public <T extends View> Event<T> refresh(T destination) {
+        return navigation(() -> {}, destination);
+    }
+
+    @Override
+    public CookieManager cookies() {
+        return cookies;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public void closeAll() {
+        closed = true;
+    }
+
+    @Override
+    public void takeScreenshot(OutputStream outputStream) {
+        try (OutputStream out = outputStream) {
+            out.write(SCREENSHOT);
+        } catch (IOException e) {
+            throw new DarcyException("Could not write screenshot", e);
+        }
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, since pages have no elements to find, and
+     * this browser supports no locators to find them with.
+     */
+    @Override
+    public WebSelection find() {
+        throw new UnsupportedOperationException("InMemoryBrowser pages have no elements.");
+    }
+
+    @Override
+    public boolean isPresent() {
+        return !closed;
+    }
+
+    /**
+     * Navigates when waited on, and then expects the destination to load with this browser as
+     * its context, like a real browser's transition to a view.
+     */
+    private <T extends View> Event<T> navigation(Runnable navigate, T destination) {
+        return after(navigate::run)
+                .expectCallTo(() -> {
+                    destination.setContext(this);
+                    return destination.isLoaded() ? destination : null;
+                }, notNullValue());
+    }
+
+    /**
+     * Keeps cookies by name, as a browser would for a single domain.
+     */
+    private static class InMemoryCookieManager implements CookieManager {
+        private final Map<String, Cookie> cookies = new LinkedHashMap<>();
+
+        @Override
+        public void add(Cookie cookie) {
+            cookies.put(cookie.getName(), cookie);
+        }
+
+        @Override
+        public void delete(String name) {
+            cookies.remove(name);
+        }
+
+        @Override
+        public void deleteAll() {
+            cookies.clear();
+        }
+
+        @Override
+        public Set<Cookie> getAll() {
+            return new HashSet<>(cookies.values());
+        }
+
+        @Override
+        public Optional<Cookie> get(String name) {
+            return Optional.ofNullable(cookies.get(name));
+        }
+    }
+}
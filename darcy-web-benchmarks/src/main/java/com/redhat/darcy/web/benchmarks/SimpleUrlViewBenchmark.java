@@ -0,0 +1,103 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.benchmarks;
+
+import com.redhat.darcy.web.SimpleUrlView;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of {@link SimpleUrlView}s, whose fields are reflected over once per class, and
+ * the per-navigation work of setting its context and checking whether it is loaded, against an
+ * {@link InMemoryBrowser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SimpleUrlViewBenchmark {
+    private static final String URL = "http://example.com/staff";
+
+    private InMemoryBrowser browser;
+    private SimpleUrlView view;
+
+    @Setup
+    public void setUp() {
+        browser = new InMemoryBrowser(URL);
+        view = new SimpleUrlView(URL);
+        view.setContext(browser);
+    }
+
+    @Benchmark
+    public SimpleUrlView construct() {
+        return new SimpleUrlView(URL);
+    }
+
+    @Benchmark
+    public SimpleUrlView constructSubclass() {
+        return new StaffView();
+    }
+
+    @Benchmark
+    public SimpleUrlView constructAndSetContext() {
+        SimpleUrlView view = new StaffView();
+        view.setContext(browser);
+        return view;
+    }
+
+    @Benchmark
+    public boolean isLoaded() {
+        return view.isLoaded();
+    }
+
+    /**
+     * A typical view, a couple of levels of inheritance below {@link SimpleUrlView}, with some
+     * fields the initializer must examine but will not inject.
+     */
+    static class StaffView extends BaseView {
+        private final String title = "Staff";
+        private int visits;
+
+        StaffView() {
+            super(URL);
+        }
+    }
+
+    static class BaseView extends SimpleUrlView {
+        private final long created = 0;
+        private String owner;
+
+        BaseView(String url) {
+            super(url);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web.benchmarks;
+
+import static org.hamcrest.CoreMatchers.allOf;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.startsWith;
+
+import com.redhat.darcy.web.UrlPattern;
+
+import org.hamcrest.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking a browser's URL as a view's load condition is polled: with a combination of Hamcrest
+ * matchers, and with an equivalent {@link UrlPattern}, both for an unchanged URL (as while
+ * waiting for a page to load) and for a URL which changes on every check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UrlPatternBenchmark {
+    private static final String[] URLS = {
+            "https://acme.example.com/users/42/profile?tab=settings",
+            "https://acme.example.com/users/43/profile?tab=settings"
+    };
+
+    private final Matcher<String> matcher = allOf(startsWith("https://"),
+            containsString(".example.com/users/"), containsString("/profile"),
+            endsWith("tab=settings"));
+    private final UrlPattern pattern =
+            UrlPattern.compile("https://*.example.com/users/{id}/profile?tab=settings");
+
+    private int next;
+
+    @Benchmark
+    public boolean matcherUnchanged() {
+        return matcher.matches(URLS[0]);
+    }
+
+    @Benchmark
+    public boolean patternUnchanged() {
+        return pattern.test(URLS[0]);
+    }
+
+    @Benchmark
+    public boolean matcherChanging() {
+        return matcher.matches(URLS[next++ & 1]);
+    }
+
+    @Benchmark
+    public boolean patternChanging() {
+        return pattern.test(URLS[next++ & 1]);
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.BrowserFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Runs independent browser workflows concurrently across a fixed number of browsers. Each browser
+ * is owned by one worker thread, which starts it from a {@link BrowserFactory} the first time it
+ * has work, and closes it when the scheduler is closed. Workflows are functions of the browser
+ * they are run in, so a browser is never shared between two threads at once.
+ *
+ * <p>Workflows submitted without an affinity key are spread across the workers, and a worker with
+ * nothing left of its own takes work from the back of another worker's queue, so a few long
+ * workflows do not hold up short ones behind them. Workflows submitted with an affinity key are
+ * always run, in submission order, by the same worker, and therefore in the same browser; use this
+ * for work that depends on state left behind by an earlier workflow, like a logged in session.
+ *
+ * <p>At most {@link Builder#maxPending(int) maxPending} workflows may be queued or running at
+ * once. Beyond that, submitting blocks until one finishes, up to
+ * {@link Builder#submitTimeout(Duration) submitTimeout}, and then throws a
+ * {@link DarcyException}. Workflows may themselves submit further workflows, but from inside a
+ * workflow, submitting never blocks: at capacity, it throws immediately instead, since the
+ * workflows it would wait for may be queued behind the one submitting. For the same reason, a
+ * workflow should not block on the result of another workflow.
+ *
+ * <p>If a workflow leaves its browser closed or otherwise no longer present, as when it closes the
+ * browser or the browser crashes, the browser is discarded, and the worker starts a new one from
+ * the factory for its next workflow.
+ *
+ * <pre><code>
+ *     try (BrowserScheduler scheduler = new BrowserScheduler.Builder(browserFactory)
+ *             .browsers(4)
+ *             .build()) {
+ *         List&lt;String&gt; titles = scheduler.invokeAll(urls.stream()
+ *                 .map(url -&gt; (Function&lt;Browser, String&gt;) browser -&gt; {
+ *                     browser.openAndWaitUpTo(new SimpleUrlView(url), Duration.ofSeconds(30));
+ *                     return browser.getTitle();
+ *                 })
+ *                 .collect(Collectors.toList()));
+ *     }
+ * </code></pre>
+ */
+public class BrowserScheduler implements AutoCloseable {
+    private final BrowserFactory factory;
+    private final Worker[] workers;
+    private final Semaphore pending;
+    private final Duration submitTimeout;
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private volatile boolean closed = false;
+
+    private BrowserScheduler(Builder builder) {
+        this.factory = builder.factory;
+        this.pending = new Semaphore(builder.maxPending, true);
+        this.submitTimeout = builder.submitTimeout;
+        this.workers = new Worker[builder.browsers];
+
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i);
+        }
+
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    /**
+     * Queues a workflow to be run in whichever browser is free first.
+     *
+     * @return A future which completes with the result of the workflow, or with whatever it threw.
+     * @throws DarcyException if the scheduler is at capacity and no workflow finished within the
+     * submit timeout, or immediately if called from inside a workflow while at capacity.
+     * @throws IllegalStateException if the scheduler has been closed.
+     */
+    public <T> CompletableFuture<T> submit(Function<? super Browser, ? extends T> workflow) {
+        Worker worker = workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+
+        return enqueue(workflow, worker.shared);
+    }
+
+    /**
+     * Queues a workflow to be run after every workflow previously submitted with an equal
+     * affinity key, in the same browser as them.
+     *
+     * @param affinityKey Workflows with equal keys (by {@link Object#equals(Object)}) share a
+     * browser. Workflows with different keys may share one too.
+     * @return A future which completes with the result of the workflow, or with whatever it threw.
+     * @throws DarcyException if the scheduler is at capacity and no workflow finished within the
+     * submit timeout, or immediately if called from inside a workflow while at capacity.
+     * @throws IllegalStateException if the scheduler has been closed.
+     */
+    public <T> CompletableFuture<T> submit(Object affinityKey,
+            Function<? super Browser, ? extends T> workflow) {
+        Objects.requireNonNull(affinityKey, "affinityKey");
+        Worker worker = workers[Math.floorMod(affinityKey.hashCode(), workers.length)];
+
+        return enqueue(workflow, worker.pinned);
+    }
+
+    /**
+     * Runs every workflow, waits for all of them to finish, and returns their results in the same
+     * order.
+     *
+     * @throws DarcyException if any workflow threw; the first such exception, in workflow order, is
+     * the cause. Every workflow is still allowed to finish first.
+     */
+    public <T> List<T> invokeAll(Collection<? extends Function<? super Browser, ? extends T>> workflows) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(workflows.size());
+
+        for (Function<? super Browser, ? extends T> workflow : workflows) {
+            futures.add(submit(workflow));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DarcyException("Interrupted while waiting for workflows to finish.", e);
+        } catch (ExecutionException e) {
+            // Reported below, in workflow order.
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DarcyException("Interrupted while waiting for workflows to finish.", e);
+            } catch (ExecutionException e) {
+                throw new DarcyException("Workflow failed.", e.getCause());
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * @return The number of workflows queued or running.
+     */
+    public int getPendingCount() {
+        int count = 0;
+
+        for (Worker worker : workers) {
+            count += worker.pinned.size() + worker.shared.size() + (worker.busy ? 1 : 0);
+        }
+
+        return count;
+    }
+
+    /**
+     * Stops accepting workflows, waits for those already submitted to finish, and closes every
+     * browser.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+
+        try {
+            closed = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        boolean interrupted = false;
+
+        for (Worker worker : workers) {
+            while (worker.thread.isAlive()) {
+                try {
+                    worker.thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> enqueue(Function<? super Browser, ? extends T> workflow,
+            Queue<Task<?>> queue) {
+        Objects.requireNonNull(workflow, "workflow");
+        checkOpen();
+
+        acquirePending();
+
+        Task<T> task = new Task<>(workflow);
+
+        // Workers decide to exit under the same lock, so a task queued here is always run.
+        lock.lock();
+
+        try {
+            if (closed) {
+                pending.release();
+                checkOpen();
+            }
+
+            queue.add(task);
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        return task.future;
+    }
+
+    private void acquirePending() {
+        if (isWorkerThread()) {
+            // Waiting here could deadlock, if every worker is waiting for one of the others.
+            if (!pending.tryAcquire()) {
+                throw new DarcyException("Cannot submit a workflow from inside another while at "
+                        + "capacity; " + getPendingCount() + " are pending.");
+            }
+
+            return;
+        }
+
+        try {
+            if (!pending.tryAcquire(submitTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new DarcyException("Timed out after " + submitTimeout + " waiting for "
+                        + "room to submit a workflow; " + getPendingCount() + " are pending.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DarcyException("Interrupted while waiting to submit a workflow.", e);
+        }
+    }
+
+    private boolean isWorkerThread() {
+        Thread current = Thread.currentThread();
+
+        for (Worker worker : workers) {
+            if (worker.thread == current) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Scheduler has been closed.");
+        }
+    }
+
+    private static class Task<T> {
+        final Function<? super Browser, ? extends T> workflow;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(Function<? super Browser, ? extends T> workflow) {
+            this.workflow = workflow;
+        }
+
+        void run(Browser browser) {
+            try {
+                future.complete(workflow.apply(browser));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+
+        void fail(Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    private class Worker implements Runnable {
+        final int index;
+        final Thread thread;
+
+        /** Work only this worker may run. */
+        final Queue<Task<?>> pinned = new ConcurrentLinkedQueue<>();
+
+        /** Work this worker runs from the front, and other workers may steal from the back. */
+        final LinkedBlockingDeque<Task<?>> shared = new LinkedBlockingDeque<>();
+
+        volatile boolean busy = false;
+        Browser browser;
+
+        Worker(int index) {
+            this.index = index;
+            this.thread = new Thread(this, "darcy-browser-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Task<?> task;
+
+                while ((task = awaitTask()) != null) {
+                    busy = true;
+
+                    try {
+                        task.run(browser());
+                        discardBrowserIfGone();
+                    } catch (RuntimeException e) {
+                        // Could not start the browser; try again for the next task.
+                        task.fail(e);
+                    } finally {
+                        busy = false;
+                        pending.release();
+                    }
+                }
+            } finally {
+                if (browser != null) {
+                    try {
+                        browser.closeAll();
+                    } catch (RuntimeException ignored) {
+                        // Closing is best effort; there is nothing left to use it for anyway.
+                    }
+                }
+            }
+        }
+
+        /**
+         * Discards the browser if the workflow closed it, or it is otherwise no longer usable, so
+         * that the next workflow is given a new one instead of failing too.
+         */
+        private void discardBrowserIfGone() {
+            boolean present;
+
+            try {
+                present = browser.isPresent();
+            } catch (RuntimeException e) {
+                present = false;
+            }
+
+            if (!present) {
+                try {
+                    browser.closeAll();
+                } catch (RuntimeException ignored) {
+                    // It is already gone, as far as we are concerned.
+                }
+
+                browser = null;
+            }
+        }
+
+        private Browser browser() {
+            if (browser == null) {
+                browser = factory.newBrowser();
+            }
+
+            return browser;
+        }
+
+        /**
+         * @return The next task to run, or null if the scheduler is closed and there is no work
+         * left that this worker could run.
+         */
+        private Task<?> awaitTask() {
+            while (true) {
+                Task<?> task = nextTask();
+
+                if (task != null) {
+                    return task;
+                }
+
+                lock.lock();
+
+                try {
+                    task = nextTask();
+
+                    if (task != null) {
+                        return task;
+                    }
+
+                    if (closed) {
+                        return null;
+                    }
+
+                    workAvailable.await();
+                } catch (InterruptedException e) {
+                    // Only close() ends a worker, so that submitted work is never dropped.
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private Task<?> nextTask() {
+            Task<?> task = pinned.poll();
+
+            if (task == null) {
+                task = shared.pollFirst();
+            }
+
+            for (int i = 1; task == null && i < workers.length; i++) {
+                task = workers[(index + i) % workers.length].shared.pollLast();
+            }
+
+            return task;
+        }
+    }
+
+    public static class Builder {
+        private final BrowserFactory factory;
+        private int browsers = Runtime.getRuntime().availableProcessors();
+        private int maxPending = Integer.MAX_VALUE;
+        private Duration submitTimeout = Duration.ofMinutes(5);
+
+        /**
+         * @param factory Starts each worker's browser. A {@link PooledBrowserFactory} may be used
+         * to share browsers between schedulers over time.
+         */
+        public Builder(BrowserFactory factory) {
+            this.factory = Objects.requireNonNull(factory, "factory");
+        }
+
+        /**
+         * The number of browsers, and so the number of workflows, to run at once. Defaults to the
+         * number of available processors.
+         */
+        public Builder browsers(int browsers) {
+            if (browsers < 1) {
+                throw new IllegalArgumentException("Must have at least 1 browser, was " + browsers);
+            }
+
+            this.browsers = browsers;
+            return this;
+        }
+
+        /**
+         * The most workflows that may be queued or running at once before submitting blocks.
+         * Defaults to unbounded.
+         */
+        public Builder maxPending(int maxPending) {
+            if (maxPending < 1) {
+                throw new IllegalArgumentException("maxPending must be at least 1, was "
+                        + maxPending);
+            }
+
+            this.maxPending = maxPending;
+            return this;
+        }
+
+        /**
+         * How long submitting may block while the scheduler is at capacity. Defaults to five
+         * minutes.
+         */
+        public Builder submitTimeout(Duration submitTimeout) {
+            this.submitTimeout = Objects.requireNonNull(submitTimeout, "submitTimeout");
+            return this;
+        }
+
+        public BrowserScheduler build() {
+            return new BrowserScheduler(this);
+        }
+    }
+}
@@ -23,6 +23,8 @@ import com.redhat.darcy.ui.LocatorNotSupportedException;
 import com.redhat.darcy.ui.api.Context;
 import com.redhat.darcy.ui.api.Locator;
 import com.redhat.darcy.ui.api.elements.Findable;
+import com.redhat.darcy.web.instrumentation.CallKind;
+import com.redhat.darcy.web.instrumentation.Instrumentation;
 import com.redhat.darcy.web.internal.FindsByClassName;
 import com.redhat.darcy.web.internal.FindsByCss;
 import com.redhat.darcy.web.internal.FindsByHtmlTag;
@@ -31,23 +33,57 @@ import com.redhat.darcy.web.internal.FindsByUrl;
 import org.hamcrest.Matcher;
 import org.hamcrest.Matchers;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Adds some web-specific {@link Locator}s to the default {@link com.redhat.darcy.ui.By} options.
+ *
+ * <p>CSS, tag, and class name locators are canonicalized, so that selectors which differ only in
+ * whitespace, or HTML tags which differ only in case, are equal. Other tags, like SVG's
+ * {@code clipPath}, are case sensitive in XML documents and to some drivers, and are only
+ * trimmed. The factory methods here also share
+ * one instance of each such locator, so asking for the same locator again does not allocate.
  */
 public abstract class By extends com.redhat.darcy.ui.By {
+    private static final int MAX_INTERNED = 4096;
+
+    private static final Set<String> HTML_TAG_NAMES = new HashSet<>(Arrays.asList(
+            "a", "abbr", "acronym", "address", "applet", "area", "article", "aside", "audio", "b",
+            "base", "basefont", "bdi", "bdo", "big", "blockquote", "body", "br", "button", "canvas",
+            "caption", "center", "cite", "code", "col", "colgroup", "data", "datalist", "dd", "del",
+            "details", "dfn", "dialog", "dir", "div", "dl", "dt", "em", "embed", "fieldset",
+            "figcaption", "figure", "font", "footer", "form", "frame", "frameset", "h1", "h2", "h3",
+            "h4", "h5", "h6", "head", "header", "hgroup", "hr", "html", "i", "iframe", "img",
+            "input", "ins", "kbd", "label", "legend", "li", "link", "main", "map", "mark",
+            "marquee", "menu", "meta", "meter", "nav", "nobr", "noframes", "noscript", "object",
+            "ol", "optgroup", "option", "output", "p", "param", "picture", "pre", "progress", "q",
+            "rp", "rt", "ruby", "s", "samp", "script", "search", "section", "select", "slot",
+            "small", "source", "span", "strike", "strong", "style", "sub", "summary", "sup",
+            "table", "tbody", "td", "template", "textarea", "tfoot", "th", "thead", "time",
+            "title", "tr", "track", "tt", "u", "ul", "var", "video", "wbr"));
+
+    private static final Interner<ByCss> CSS =
+            new Interner<>(By::canonicalCss, ByCss::new, MAX_INTERNED);
+    private static final Interner<ByHtmlTag> HTML_TAGS =
+            new Interner<>(By::canonicalTag, ByHtmlTag::new, MAX_INTERNED);
+    private static final Interner<ByClassName> CLASS_NAMES =
+            new Interner<>(String::trim, ByClassName::new, MAX_INTERNED);
+
     public static Locator css(String css) {
-        return new ByCss(css);
+        return CSS.intern(Objects.requireNonNull(css, "css"));
     }
     
     public static Locator htmlTag(String tag) {
-        return new ByHtmlTag(tag);
+        return HTML_TAGS.intern(Objects.requireNonNull(tag, "tag"));
     }
 
     public static Locator className(String className) {
-        return new ByClassName(className);
+        return CLASS_NAMES.intern(Objects.requireNonNull(className, "className"));
     }
 
     public static Locator value(String value) {
@@ -66,21 +102,188 @@ public abstract class By extends com.redhat.darcy.ui.By {
         return new ByUrl(url);
     }
 
+    /**
+     * @param template A URL template, as described by {@link UrlPattern}.
+     */
+    public static ByUrl urlPattern(String template) {
+        return new ByUrl(UrlPattern.compile(template));
+    }
+
+    /**
+     * Finds elements by a series of locators, each within the element found by the one before,
+     * using as few lookups as possible.
+     *
+     * @see LocatorChain
+     */
+    public static Locator chained(Locator first, Locator... rest) {
+        LocatorChain chain = LocatorChain.of(first);
+
+        for (Locator locator : rest) {
+            chain.then(locator);
+        }
+
+        return chain.compile();
+    }
+
+    /**
+     * @return A CSS selector which finds the same elements as the locator, or null if the locator
+     * is not one of darcy-web's CSS, tag, or class name locators, or has no such selector.
+     */
+    static String toCss(Locator locator) {
+        if (locator instanceof ByCss) {
+            return ((ByCss) locator).css;
+        }
+
+        if (locator instanceof ByHtmlTag) {
+            return escapeCss(((ByHtmlTag) locator).tag);
+        }
+
+        if (locator instanceof ByClassName) {
+            String className = ((ByClassName) locator).className;
+
+            // A compound class name is not a single class, and has no equivalent selector.
+            return className.isEmpty() || className.chars().anyMatch(Character::isWhitespace)
+                    ? null
+                    : "." + escapeCss(className);
+        }
+
+        return null;
+    }
+
+    /**
+     * Collapses whitespace, and spaces combinators and selector lists evenly, outside of strings,
+     * attribute selectors, and parentheses; so {@code " div>p ,a "} becomes {@code "div > p, a"}.
+     */
+    static String canonicalCss(String css) {
+        StringBuilder canonical = new StringBuilder(css.length());
+        char quote = 0;
+        int depth = 0;
+        boolean space = false;
+
+        for (int i = 0; i < css.length(); i++) {
+            char c = css.charAt(i);
+
+            if (quote != 0) {
+                canonical.append(c);
+
+                if (c == '\\' && i + 1 < css.length()) {
+                    canonical.append(css.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+
+                continue;
+            }
+
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+
+            if (depth == 0 && (c == '>' || c == '+' || c == '~' || c == ',')) {
+                trimEnd(canonical);
+
+                if (c != ',' && canonical.length() > 0) {
+                    canonical.append(' ');
+                }
+
+                canonical.append(c).append(' ');
+                space = false;
+                continue;
+            }
+
+            if (space && canonical.length() > 0
+                    && canonical.charAt(canonical.length() - 1) != ' ') {
+                canonical.append(' ');
+            }
+
+            space = false;
+            canonical.append(c);
+
+            if (c == '\\' && i + 1 < css.length()) {
+                canonical.append(css.charAt(++i));
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '[' || c == '(') {
+                depth++;
+            } else if ((c == ']' || c == ')') && depth > 0) {
+                depth--;
+            }
+        }
+
+        trimEnd(canonical);
+
+        return canonical.toString();
+    }
+
+    /**
+     * HTML tag names are not case sensitive, so known ones are lowercased. Any other tag, like
+     * those of SVG or of XML embedded in XHTML, may be, so is left as it is.
+     */
+    static String canonicalTag(String tag) {
+        String trimmed = tag.trim();
+        String lowerCase = trimmed.toLowerCase(Locale.ENGLISH);
+
+        return HTML_TAG_NAMES.contains(lowerCase) ? lowerCase : trimmed;
+    }
+
+    private static void trimEnd(StringBuilder builder) {
+        while (builder.length() > 0 && builder.charAt(builder.length() - 1) == ' ') {
+            builder.setLength(builder.length() - 1);
+        }
+    }
+
+    /**
+     * Escapes an identifier for use in a CSS selector, like {@code CSS.escape} in browsers.
+     */
+    private static String escapeCss(String identifier) {
+        StringBuilder escaped = new StringBuilder(identifier.length());
+
+        for (int i = 0; i < identifier.length(); i++) {
+            char c = identifier.charAt(i);
+
+            if (Character.isDigit(c) && (i == 0
+                    || (i == 1 && identifier.charAt(0) == '-'))) {
+                escaped.append('\\').append(Integer.toHexString(c)).append(' ');
+            } else if (Character.isLetterOrDigit(c) || c == '-' || c == '_' || c >= 0x80) {
+                escaped.append(c);
+            } else {
+                escaped.append('\\').append(c);
+            }
+        }
+
+        return escaped.toString();
+    }
+
     public static class ByCss implements Locator {
         private final String css;
+        private final int hash;
         
         public ByCss(String css) {
-            this.css = css;
+            this.css = canonicalCss(Objects.requireNonNull(css, "css"));
+            this.hash = this.css.hashCode();
         }
 
         @Override
         public <T extends Findable> List<T> findAll(Class<T> type, Context context) {
-            return ((FindsByCss) context).findAllByCss(type, css);
+            long start = Instrumentation.start();
+
+            try {
+                return ((FindsByCss) context).findAllByCss(type, css);
+            } finally {
+                Instrumentation.stop(CallKind.LOCATOR, "ByCss.findAll", start);
+            }
         }
 
         @Override
         public <T extends Findable> T find(Class<T> type, Context context) {
-            return ((FindsByCss) context).findByCss(type, css);
+            long start = Instrumentation.start();
+
+            try {
+                return ((FindsByCss) context).findByCss(type, css);
+            } finally {
+                Instrumentation.stop(CallKind.LOCATOR, "ByCss.find", start);
+            }
         }
 
         @Override
@@ -94,13 +297,13 @@ public abstract class By extends com.redhat.darcy.ui.By {
 
             ByCss byCss = (ByCss) o;
 
-            return css.equals(byCss.css);
+            return hash == byCss.hash && css.equals(byCss.css);
 
         }
 
         @Override
         public int hashCode() {
-            return css.hashCode();
+            return hash;
         }
 
         @Override
@@ -113,19 +316,33 @@ public abstract class By extends com.redhat.darcy.ui.By {
     
     public static class ByHtmlTag implements Locator {
         private final String tag;
+        private final int hash;
         
         public ByHtmlTag(String tag) {
-            this.tag = Objects.requireNonNull(tag, "tag");
+            this.tag = canonicalTag(Objects.requireNonNull(tag, "tag"));
+            this.hash = this.tag.hashCode();
         }
 
         @Override
         public <T extends Findable> List<T> findAll(Class<T> type, Context context) {
-            return ((FindsByHtmlTag) context).findAllByHtmlTag(type, tag);
+            long start = Instrumentation.start();
+
+            try {
+                return ((FindsByHtmlTag) context).findAllByHtmlTag(type, tag);
+            } finally {
+                Instrumentation.stop(CallKind.LOCATOR, "ByHtmlTag.findAll", start);
+            }
         }
 
         @Override
         public <T extends Findable> T find(Class<T> type, Context context) {
-            return ((FindsByHtmlTag) context).findByHtmlTag(type, tag);
+            long start = Instrumentation.start();
+
+            try {
+                return ((FindsByHtmlTag) context).findByHtmlTag(type, tag);
+            } finally {
+                Instrumentation.stop(CallKind.LOCATOR, "ByHtmlTag.find", start);
+            }
         }
 
         @Override
@@ -139,31 +356,52 @@ public abstract class By extends com.redhat.darcy.ui.By {
 
             ByHtmlTag byHtmlTag = (ByHtmlTag) o;
 
-            return tag.equals(byHtmlTag.tag);
+            return hash == byHtmlTag.hash && tag.equals(byHtmlTag.tag);
 
         }
 
         @Override
         public int hashCode() {
-            return tag.hashCode();
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "ByHtmlTag{" +
+                    "tag='" + tag + '\'' +
+                    '}';
         }
     }
 
     private static class ByClassName implements Locator {
         private final String className;
+        private final int hash;
 
         public ByClassName(String className) {
-            this.className = Objects.requireNonNull(className, "className");
+            this.className = Objects.requireNonNull(className, "className").trim();
+            this.hash = this.className.hashCode();
         }
 
         @Override
         public <T extends Findable> List<T> findAll(Class<T> type, Context context) {
-            return ((FindsByClassName) context).findAllByClassName(type, className);
+            long start = Instrumentation.start();
+
+            try {
+                return ((FindsByClassName) context).findAllByClassName(type, className);
+            } finally {
+                Instrumentation.stop(CallKind.LOCATOR, "ByClassName.findAll", start);
+            }
         }
 
         @Override
         public <T extends Findable> T find(Class<T> type, Context context) {
-            return ((FindsByClassName) context).findByClassName(type, className);
+            long start = Instrumentation.start();
+
+            try {
+                return ((FindsByClassName) context).findByClassName(type, className);
+            } finally {
+                Instrumentation.stop(CallKind.LOCATOR, "ByClassName.find", start);
+            }
         }
 
         @Override
@@ -177,13 +415,13 @@ public abstract class By extends com.redhat.darcy.ui.By {
 
             ByClassName that = (ByClassName) o;
 
-            return className.equals(that.className);
+            return hash == that.hash && className.equals(that.className);
 
         }
 
         @Override
         public int hashCode() {
-            return className.hashCode();
+            return hash;
         }
 
         @Override
@@ -203,19 +441,27 @@ public abstract class By extends com.redhat.darcy.ui.By {
 
         @Override
         public <T extends Findable> List<T> findAll(Class<T> type, Context context) {
+            long start = Instrumentation.start();
+
             try {
                 return ((FindsByUrl) context).findAllByUrl(type, urlMatcher);
             } catch (ClassCastException e) {
                 throw new LocatorNotSupportedException(this);
+            } finally {
+                Instrumentation.stop(CallKind.LOCATOR, "ByUrl.findAll", start);
             }
         }
 
         @Override
         public <T extends Findable> T find(Class<T> type, Context context) {
+            long start = Instrumentation.start();
+
             try {
                 return ((FindsByUrl) context).findByUrl(type, urlMatcher);
             } catch (ClassCastException e) {
                 throw new LocatorNotSupportedException(this);
+            } finally {
+                Instrumentation.stop(CallKind.LOCATOR, "ByUrl.find", start);
             }
         }
 
@@ -228,7 +474,7 @@ public abstract class By extends com.redhat.darcy.ui.By {
                 return false;
             }
             ByUrl byUrl = (ByUrl) o;
-            // Known issue: most matchers do not properly implement equals
+            // Known issue: most matchers do not properly implement equals; UrlPattern does
             return Objects.equals(urlMatcher, byUrl.urlMatcher);
         }
 
@@ -0,0 +1,286 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.web.api.CookieManager;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link CookieManager} which keeps a local copy of another manager's cookies, so that reading
+ * them does not require a round trip to the browser every time. Changes made through this manager
+ * are written through to the browser and applied to the copy.
+ *
+ * <p>The browser may change its cookies on its own, however: whenever a page it loads sets one,
+ * or a script does. Call {@link #invalidate()} (or {@link #sync()}) after anything which might
+ * have done so. {@link CookieCachingBrowser} does this on every navigation made through it, but
+ * cannot tell when clicking something navigates. To bound how stale the copy can get, it may also
+ * be given a maximum age, after which it is read again.
+ *
+ * <p>Besides the usual lookups, {@link #cookiesFor(String)} answers which cookies a browser would
+ * send to a URL, from the copy.
+ */
+public class CachingCookieManager implements CookieManager {
+    private final CookieManager delegate;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    /**
+     * By name, domain, and path, in the order the browser returned them. Null when not loaded.
+     */
+    private Map<Key, Cookie> cookies;
+    private CookieTrie trie;
+    private Instant loadedAt;
+
+    /**
+     * Caches cookies until they are invalidated.
+     */
+    public CachingCookieManager(CookieManager delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * @param maxAge How long the copy may be used before the cookies are read again. Null to use
+     * it until invalidated.
+     */
+    public CachingCookieManager(CookieManager delegate, Duration maxAge) {
+        this(delegate, maxAge, Clock.systemDefaultZone());
+    }
+
+    CachingCookieManager(CookieManager delegate, Duration maxAge, Clock clock) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void add(Cookie cookie) {
+        delegate.add(cookie);
+
+        if (cookies != null) {
+            put(cookie);
+        }
+    }
+
+    @Override
+    public synchronized void addAll(Collection<Cookie> cookies) {
+        delegate.addAll(cookies);
+
+        if (this.cookies != null) {
+            cookies.forEach(this::put);
+        }
+    }
+
+    @Override
+    public synchronized void delete(String name) {
+        delegate.delete(name);
+
+        if (cookies != null && cookies.keySet().removeIf(key -> Objects.equals(key.name, name))) {
+            reindex();
+        }
+    }
+
+    @Override
+    public synchronized void deleteAll(Collection<String> names) {
+        delegate.deleteAll(names);
+
+        if (cookies != null && cookies.keySet().removeIf(key -> names.contains(key.name))) {
+            reindex();
+        }
+    }
+
+    @Override
+    public synchronized void deleteAll() {
+        delegate.deleteAll();
+
+        cookies = new LinkedHashMap<>();
+        trie = new CookieTrie();
+        loadedAt = clock.instant();
+    }
+
+    @Override
+    public synchronized Set<Cookie> getAll() {
+        return new HashSet<>(live());
+    }
+
+    @Override
+    public synchronized Set<Cookie> getAll(Predicate<Cookie> predicate) {
+        return live().stream()
+                .filter(predicate)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return The first unexpired cookie with the name, in the order the browser returned them, if
+     * there are any. There may be more than one, with different domains or paths.
+     */
+    @Override
+    public synchronized Optional<Cookie> get(String name) {
+        load();
+
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        return cookies.values().stream()
+                .filter(c -> Objects.equals(c.getName(), name) && !isExpired(c, now))
+                .findFirst();
+    }
+
+    /**
+     * @return The unexpired cookies a browser would send with a request to the URL: those whose
+     * domain is the URL's host, or, if the domain has a leading dot, a parent of it (see
+     * {@link CookieTrie}), whose path is a prefix of the URL's path, and
+     * which, if secure, are only sent over https; longest path first.
+     * @throws IllegalArgumentException if the URL cannot be parsed or has no host.
+     */
+    public synchronized List<Cookie> cookiesFor(String url) {
+        URI uri = URI.create(url);
+
+        if (uri.getHost() == null) {
+            throw new IllegalArgumentException("URL has no host: " + url);
+        }
+
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty()
+                ? "/"
+                : uri.getRawPath();
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        load();
+
+        return trie.match(uri.getHost(), path, secure).stream()
+                .filter(c -> !isExpired(c, now))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Discards the local copy, so that the next read goes to the browser.
+     */
+    public synchronized void invalidate() {
+        cookies = null;
+        trie = null;
+        loadedAt = null;
+    }
+
+    /**
+     * Reads the cookies from the browser now, replacing the local copy.
+     */
+    public synchronized void sync() {
+        invalidate();
+        load();
+    }
+
+    private Collection<Cookie> live() {
+        load();
+
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        return cookies.values().stream()
+                .filter(c -> !isExpired(c, now))
+                .collect(Collectors.toList());
+    }
+
+    private void load() {
+        if (cookies != null && maxAge != null
+                && loadedAt.plus(maxAge).isBefore(clock.instant())) {
+            invalidate();
+        }
+
+        if (cookies == null) {
+            cookies = new LinkedHashMap<>();
+
+            for (Cookie cookie : delegate.getAll()) {
+                cookies.put(new Key(cookie), cookie);
+            }
+
+            reindex();
+            loadedAt = clock.instant();
+        }
+    }
+
+    private void put(Cookie cookie) {
+        Cookie replaced = cookies.put(new Key(cookie), cookie);
+
+        if (replaced == null) {
+            trie.add(cookie);
+        } else {
+            reindex();
+        }
+    }
+
+    private void reindex() {
+        trie = new CookieTrie();
+        cookies.values().forEach(trie::add);
+    }
+
+    private static boolean isExpired(Cookie cookie, LocalDateTime now) {
+        return cookie.getExpiry() != null && !cookie.getExpiry().isAfter(now);
+    }
+
+    /**
+     * Identifies a cookie the way a browser does: cookies with the same name, but different
+     * domains or paths, are different cookies.
+     */
+    private static final class Key {
+        final String name;
+        final String domain;
+        final String path;
+
+        Key(Cookie cookie) {
+            this.name = cookie.getName();
+            this.domain = cookie.getDomain();
+            this.path = cookie.getPath();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Key key = (Key) o;
+
+            return Objects.equals(name, key.name)
+                    && Objects.equals(domain, key.domain)
+                    && Objects.equals(path, key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, domain, path);
+        }
+    }
+}
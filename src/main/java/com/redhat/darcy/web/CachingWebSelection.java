@@ -0,0 +1,82 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.api.Context;
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.ui.api.elements.Element;
+import com.redhat.darcy.ui.api.elements.Findable;
+import com.redhat.darcy.web.api.Alert;
+import com.redhat.darcy.web.api.WebSelection;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link WebSelection} which finds single elements through an {@link ElementHandleCache}, so
+ * looking up the same element again returns the reference found the first time. Lists of
+ * elements, whose length may change at any time, and other contexts are always looked up through
+ * the underlying selection.
+ */
+public class CachingWebSelection implements WebSelection {
+    private final WebSelection delegate;
+    private final Object parent;
+    private final ElementHandleCache cache;
+
+    /**
+     * @param parent The context the delegate selects from, which scopes what it finds in the
+     * cache.
+     */
+    public CachingWebSelection(WebSelection delegate, Object parent, ElementHandleCache cache) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.parent = Objects.requireNonNull(parent, "parent");
+        this.cache = Objects.requireNonNull(cache, "cache");
+    }
+
+    @Override
+    public <T extends Element> T elementOfType(Class<T> type, Locator locator) {
+        return cache.get(parent, type, locator, () -> delegate.elementOfType(type, locator));
+    }
+
+    @Override
+    public <T extends Element> List<T> elementsOfType(Class<T> type, Locator locator) {
+        return delegate.elementsOfType(type, locator);
+    }
+
+    @Override
+    public <T extends Context & Findable> T contextOfType(Class<T> type, Locator locator) {
+        return delegate.contextOfType(type, locator);
+    }
+
+    @Override
+    public <T extends Context & Findable> List<T> contextsOfType(Class<T> type, Locator locator) {
+        return delegate.contextsOfType(type, locator);
+    }
+
+    @Override
+    public LocatorBatch batch() {
+        return delegate.batch();
+    }
+
+    @Override
+    public Alert alert() {
+        return delegate.alert();
+    }
+}
@@ -22,8 +22,13 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.Objects;
 
 public class Cookie {
+    /** Zoneless, so that the default zone is applied when formatting, as it may change. */
+    private static final DateTimeFormatter EXPIRY_FORMAT =
+            DateTimeFormatter.ofPattern("EEE LLL dd HH:mm:ss z yyyy");
+
     private final String name;
     private final String value;
     private final String path;
@@ -32,6 +37,11 @@ public class Cookie {
     private final boolean isSecure;
     private final boolean isHttpOnly;
 
+    /**
+     * Computed once, since cookies are immutable and are mostly compared in sets.
+     */
+    private final int hash;
+
     /**
      * Creates an insecure non-httpOnly cookie with no domain specified.
      *
@@ -99,6 +109,7 @@ public class Cookie {
         this.isSecure = isSecure;
         this.isHttpOnly = isHttpOnly;
         this.expiry = expiry == null ? null : expiry.truncatedTo(ChronoUnit.SECONDS);
+        this.hash = computeHash();
     }
 
     /**
@@ -151,7 +162,13 @@ public class Cookie {
     }
 
     private static String stripPort(String domain) {
-        return (domain == null) ? null : domain.split(":")[0];
+        if (domain == null) {
+            return null;
+        }
+
+        int port = domain.indexOf(':');
+
+        return port == -1 ? domain : domain.substring(0, port);
     }
 
     public void validate() {
@@ -172,11 +189,10 @@ public class Cookie {
 
     @Override
     public String toString() {
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("EEE LLL dd HH:mm:ss z yyyy")
-                .withZone(ZoneId.systemDefault());
+        DateTimeFormatter expiryFormat = EXPIRY_FORMAT.withZone(ZoneId.systemDefault());
 
         return name + "=" + value + (expiry == null ? "" : ", which expires on " +
-                dtf.format(expiry)) + ("".equals(path) ? "" : "; path=" + path) +
+                expiryFormat.format(expiry)) + ("".equals(path) ? "" : "; path=" + path) +
                 (domain == null ? "" : "; domain=" + domain) + (isSecure ? ";secure;" : "");
     }
 
@@ -216,9 +232,24 @@ public class Cookie {
         return true;
     }
 
+    /**
+     * Consistent with {@link #equals(Object)}: hashes every field it compares, so that sets of
+     * cookies which share a name, such as one per domain, are spread across buckets.
+     */
     @Override
     public int hashCode() {
-        return name.hashCode();
+        return hash;
+    }
+
+    private int computeHash() {
+        int result = Objects.hashCode(name);
+        result = 31 * result + Objects.hashCode(value);
+        result = 31 * result + Objects.hashCode(domain);
+        result = 31 * result + Objects.hashCode(path);
+        result = 31 * result + Objects.hashCode(expiry);
+        result = 31 * result + (isSecure ? 1 : 0);
+        result = 31 * result + (isHttpOnly ? 1 : 0);
+        return result;
     }
 
     public static class Builder {
@@ -230,6 +261,7 @@ public class Cookie {
         private LocalDateTime expiry;
         private boolean secure;
         private boolean httpOnly;
+        private boolean intern;
 
         public Builder(String name, String value) {
             this.name = name;
@@ -261,8 +293,27 @@ public class Cookie {
             return this;
         }
 
+        /**
+         * Interns the cookie's name, domain and path, so that the many cookies built for the same
+         * site share one copy of each rather than each holding their own. Worthwhile when keeping
+         * large numbers of cookies, like those of many sessions, in memory at once.
+         */
+        public Builder internStrings() {
+            this.intern = true;
+            return this;
+        }
+
         public Cookie build() {
+            if (intern) {
+                return new Cookie(intern(name), value, intern(domain), intern(path), expiry, secure,
+                        httpOnly);
+            }
+
             return new Cookie(name, value, domain, path, expiry, secure, httpOnly);
         }
+
+        private static String intern(String string) {
+            return string == null ? null : string.intern();
+        }
     }
 }
@@ -0,0 +1,60 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.CookieManager;
+
+import java.time.Duration;
+
+/**
+ * A {@link Browser} whose {@link #cookies()} are a {@link CachingCookieManager}, which is
+ * invalidated whenever this browser is asked to navigate. After navigating by interacting with a
+ * page, call {@link CachingCookieManager#invalidate()}, or give the cache a maximum age.
+ */
+public class CookieCachingBrowser extends NavigationListeningBrowser {
+    private final CachingCookieManager cookies;
+
+    public CookieCachingBrowser(Browser delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * @param maxAge How long cookies may be read from the cache before they are read from the
+     * browser again, or null to read them from the cache until the next navigation.
+     */
+    public CookieCachingBrowser(Browser delegate, Duration maxAge) {
+        super(delegate);
+        this.cookies = new CachingCookieManager(delegate.cookies(), maxAge);
+    }
+
+    @Override
+    public CookieManager cookies() {
+        return cookies;
+    }
+
+    public CachingCookieManager cachedCookies() {
+        return cookies;
+    }
+
+    @Override
+    protected void onNavigate() {
+        cookies.invalidate();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Indexes cookies by domain, in a trie keyed on domain labels from right to left, so that the
+ * cookies for a host are found by walking its labels once ("com", then "example", then "www")
+ * rather than by comparing the host against every cookie. Cookies at each node are kept longest
+ * path first, the order in which a browser sends them.
+ *
+ * <p>A domain with a leading dot, like {@code .example.com}, matches that host and every host
+ * within it. A domain without one, like {@code example.com}, is host-only, as browsers report
+ * cookies set without a Domain attribute, and matches only that exact host. Both are kept at the
+ * same node, so host-only cookies are only collected from the node for the whole host.
+ *
+ * <p>Cookies without a domain were set for whichever host the browser was on at the time, which
+ * is not known here, so they are treated as applying to every host.
+ */
+class CookieTrie {
+    private static final Comparator<Cookie> LONGEST_PATH_FIRST =
+            Comparator.comparingInt((Cookie c) -> c.getPath().length()).reversed();
+
+    private final Node root = new Node();
+
+    void add(Cookie cookie) {
+        Node node = root;
+        String[] labels = labelsOf(cookie.getDomain());
+
+        for (int i = labels.length - 1; i >= 0; i--) {
+            node = node.children.computeIfAbsent(labels[i], l -> new Node());
+        }
+
+        node.cookies.add(cookie);
+        node.cookies.sort(LONGEST_PATH_FIRST);
+    }
+
+    /**
+     * @return The cookies whose domain and path match the host and path, and which may be sent
+     * over the given connection, longest path first.
+     */
+    List<Cookie> match(String host, String path, boolean secure) {
+        List<Cookie> matches = new ArrayList<>();
+        String[] labels = labelsOf(host);
+        Node node = root;
+
+        collect(root, path, secure, labels.length == 0, matches);
+
+        for (int i = labels.length - 1; i >= 0 && node != null; i--) {
+            node = node.children.get(labels[i]);
+
+            if (node != null) {
+                collect(node, path, secure, i == 0, matches);
+            }
+        }
+
+        matches.sort(LONGEST_PATH_FIRST);
+
+        return matches;
+    }
+
+    /**
+     * @param exactHost Whether the node is for the whole host, rather than a parent domain of it,
+     * so that host-only cookies match too.
+     */
+    private static void collect(Node node, String path, boolean secure, boolean exactHost,
+            List<Cookie> matches) {
+        for (Cookie cookie : node.cookies) {
+            if ((exactHost || !isHostOnly(cookie))
+                    && (secure || !cookie.isSecure())
+                    && pathMatches(cookie.getPath(), path)) {
+                matches.add(cookie);
+            }
+        }
+    }
+
+    private static boolean isHostOnly(Cookie cookie) {
+        String domain = cookie.getDomain();
+
+        return domain != null && !domain.isEmpty() && !domain.startsWith(".");
+    }
+
+    /**
+     * As in RFC 6265, section 5.1.4: the cookie path is a prefix of the request path, ending at a
+     * path segment boundary.
+     */
+    static boolean pathMatches(String cookiePath, String requestPath) {
+        if (!requestPath.startsWith(cookiePath)) {
+            return false;
+        }
+
+        return requestPath.length() == cookiePath.length()
+                || cookiePath.endsWith("/")
+                || requestPath.charAt(cookiePath.length()) == '/';
+    }
+
+    private static String[] labelsOf(String domain) {
+        if (domain == null || domain.isEmpty()) {
+            return new String[0];
+        }
+
+        String normalized = domain.toLowerCase(Locale.ROOT);
+
+        if (normalized.startsWith(".")) {
+            normalized = normalized.substring(1);
+        }
+
+        return normalized.split("\\.");
+    }
+
+    private static class Node {
+        final Map<String, Node> children = new HashMap<>();
+        final List<Cookie> cookies = new ArrayList<>(1);
+    }
+}
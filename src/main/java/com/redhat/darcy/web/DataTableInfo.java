@@ -0,0 +1,158 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.DarcyException;
+
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The parsed contents of a <a href="http://www.datatables.net">jQuery DataTable's</a> information
+ * summary, like, "Showing 11 to 20 of 57 entries." Parsed from a single read of the summary's text,
+ * so that related values (the first and last entries showing, and the total number of entries) are
+ * consistent with one another and do not each cost a separate read.
+ *
+ * <p>An instance describes the table only as it was when the text was read. Read a new one after
+ * the table changes pages, is sorted, or is filtered.
+ *
+ * @see JQueryDataTable#getInfo()
+ */
+public final class DataTableInfo {
+    private static final Pattern SHOWING = Pattern.compile(".*?([\\d,]+).*?([\\d,]+)");
+    private static final Pattern SHOW_TOTAL = Pattern.compile(".*?[\\d,]+.*?[\\d,]+ of ([\\d,]+)");
+
+    private final String text;
+    private final int start;
+    private final int end;
+    private final int total;
+
+    private DataTableInfo(String text, int start, int end, int total) {
+        this.text = text;
+        this.start = start;
+        this.end = end;
+        this.total = total;
+    }
+
+    /**
+     * @param text The text of the DataTable's information summary.
+     * @throws DarcyException if the first and last entries showing cannot be determined from the
+     * text.
+     */
+    public static DataTableInfo parse(String text) {
+        Objects.requireNonNull(text, "text");
+
+        Matcher showing = SHOWING.matcher(text);
+
+        if (!showing.find()) {
+            throw new DarcyException("Could not determine indexes of entries currently visible in "
+                    + "JQuery DataTable. Info was, " + text);
+        }
+
+        Matcher total = SHOW_TOTAL.matcher(text);
+
+        return new DataTableInfo(text,
+                parseNumber(showing.group(1)),
+                parseNumber(showing.group(2)),
+                total.find() ? parseNumber(total.group(1)) : -1);
+    }
+
+    /**
+     * @return The index of the first entry currently visible, starting from 1.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return The index of the last entry currently visible.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return The total number of entries displayable in the table, across all pages.
+     * @throws DarcyException if the summary did not include the total.
+     */
+    public int getTotal() {
+        if (total == -1) {
+            throw new DarcyException("Could not determine the total number of entries displayable "
+                    + "in JQuery DataTable. Info was, " + text);
+        }
+
+        return total;
+    }
+
+    /**
+     * @return Whether or not the summary included the total number of entries.
+     */
+    public boolean hasTotal() {
+        return total != -1;
+    }
+
+    /**
+     * @return The number of entries currently visible, as determined by the first and last entry
+     * indexes.
+     */
+    public int getShowingCount() {
+        return end - start + 1;
+    }
+
+    /**
+     * @return The text the information was parsed from.
+     */
+    public String getText() {
+        return text;
+    }
+
+    private static int parseNumber(String number) {
+        return Integer.parseInt(number.replace(",", ""));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        DataTableInfo that = (DataTableInfo) o;
+
+        return start == that.start && end == that.end && total == that.total;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end, total);
+    }
+
+    @Override
+    public String toString() {
+        return "DataTableInfo{" +
+                "start=" + start +
+                ", end=" + end +
+                ", total=" + (total == -1 ? "unknown" : total) +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.WebSelection;
+
+/**
+ * A {@link Browser} which remembers the elements found through {@link #find()} in an
+ * {@link ElementHandleCache}, which is cleared whenever this browser is asked to navigate. After
+ * navigating by interacting with a page, call {@link ElementHandleCache#invalidate()}. References
+ * which are found to be stale evict themselves.
+ */
+public class ElementCachingBrowser extends NavigationListeningBrowser {
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final ElementHandleCache cache;
+
+    public ElementCachingBrowser(Browser delegate) {
+        this(delegate, DEFAULT_MAX_SIZE);
+    }
+
+    public ElementCachingBrowser(Browser delegate, int maxSize) {
+        super(delegate);
+        this.cache = new ElementHandleCache(maxSize);
+    }
+
+    @Override
+    public WebSelection find() {
+        return new CachingWebSelection(super.find(), delegate(), cache);
+    }
+
+    public ElementHandleCache getElementCache() {
+        return cache;
+    }
+
+    @Override
+    protected void onNavigate() {
+        cache.invalidate();
+    }
+}
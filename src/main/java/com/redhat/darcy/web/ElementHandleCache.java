@@ -0,0 +1,259 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.ui.api.elements.Element;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of element references, keyed by the context they were found in, their type, and
+ * the locator used to find them, so that an element used over and over is only located once. The
+ * least recently used reference is evicted once the cache is full.
+ *
+ * <p>Only elements looked up by an interface type, as all of darcy's element types are, are
+ * cached. The reference handed out is a proxy which implements every public interface the element
+ * found does, so it can still be used as, for example, the context of a nested lookup. It evicts
+ * itself from the cache if any method on it throws, or if {@link Element#isPresent()} returns
+ * false, so that the element is located again the next time it is looked up. A proxy is only equal
+ * to itself and to other proxies of the same element, never to the element it wraps, so that
+ * equality stays symmetric. Otherwise, what is cached is only valid as long
+ * as the page does not change; see {@link ElementCachingBrowser}, which clears its cache whenever
+ * it navigates.
+ *
+ * <p>An ElementHandleCache is thread safe.
+ */
+public class ElementHandleCache {
+    private final Map<Key, Object> handles;
+    private final int maxSize;
+
+    private long hits;
+    private long misses;
+
+    public ElementHandleCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1, but was " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+        this.handles = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                return size() > ElementHandleCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param parent The context the element is found within, like a browser or frame.
+     * @param lookup Finds the element, if it is not already cached.
+     * @return The cached reference to the element, or the result of the lookup if the type is not
+     * an interface.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Element> T get(Object parent, Class<T> type, Locator locator,
+            Supplier<T> lookup) {
+        if (!type.isInterface()) {
+            return lookup.get();
+        }
+
+        Key key = new Key(parent, type, locator);
+
+        synchronized (this) {
+            Object handle = handles.get(key);
+
+            if (handle != null) {
+                hits++;
+                return (T) handle;
+            }
+
+            misses++;
+        }
+
+        // Look up outside of the lock, since finding an element may be slow.
+        T element = lookup.get();
+
+        if (element == null) {
+            return null;
+        }
+
+        T handle = watch(key, type, element);
+
+        synchronized (this) {
+            Object raced = handles.putIfAbsent(key, handle);
+
+            return raced == null ? handle : (T) raced;
+        }
+    }
+
+    /**
+     * Evicts every cached reference, like when the page changes.
+     */
+    public synchronized void invalidate() {
+        handles.clear();
+    }
+
+    /**
+     * Evicts every cached reference found within the given context.
+     */
+    public synchronized void invalidate(Object parent) {
+        handles.keySet().removeIf(key -> key.parent.equals(parent));
+    }
+
+    public synchronized int size() {
+        return handles.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    private synchronized void evict(Key key, Object handle) {
+        handles.remove(key, handle);
+    }
+
+    private <T> T watch(Key key, Class<T> type, T element) {
+        ClassLoader loader = element.getClass().getClassLoader();
+
+        return type.cast(Proxy.newProxyInstance(loader != null ? loader : type.getClassLoader(),
+                interfacesOf(element.getClass(), type), new Watcher(key, element)));
+    }
+
+    /**
+     * @return The requested type followed by every public interface the element's class implements,
+     * so that the proxy can stand in for the element wherever the element could be used.
+     */
+    private static Class<?>[] interfacesOf(Class<?> elementClass, Class<?> type) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        interfaces.add(type);
+
+        for (Class<?> c = elementClass; c != null; c = c.getSuperclass()) {
+            addPublicInterfaces(c.getInterfaces(), interfaces);
+        }
+
+        return interfaces.toArray(new Class<?>[interfaces.size()]);
+    }
+
+    private static void addPublicInterfaces(Class<?>[] candidates, Set<Class<?>> interfaces) {
+        for (Class<?> candidate : candidates) {
+            if (Modifier.isPublic(candidate.getModifiers()) && interfaces.add(candidate)) {
+                addPublicInterfaces(candidate.getInterfaces(), interfaces);
+            }
+        }
+    }
+
+    private class Watcher implements InvocationHandler {
+        final Key key;
+        final Object element;
+
+        Watcher(Key key, Object element) {
+            this.key = key;
+            this.element = element;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("equals") && args != null && args.length == 1) {
+                return proxy == args[0] || element.equals(unwrap(args[0]));
+            }
+
+            try {
+                Object result = method.invoke(element, args);
+
+                if (method.getName().equals("isPresent") && Boolean.FALSE.equals(result)) {
+                    evict(key, proxy);
+                }
+
+                return result;
+            } catch (InvocationTargetException e) {
+                evict(key, proxy);
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * @return The element wrapped by another handle from this cache, or null for anything
+         * else, which a handle is never equal to.
+         */
+        private Object unwrap(Object other) {
+            if (other == null || !Proxy.isProxyClass(other.getClass())) {
+                return null;
+            }
+
+            InvocationHandler handler = Proxy.getInvocationHandler(other);
+
+            return handler instanceof Watcher ? ((Watcher) handler).element : null;
+        }
+    }
+
+    private static final class Key {
+        final Object parent;
+        final Class<?> type;
+        final Locator locator;
+        final int hash;
+
+        Key(Object parent, Class<?> type, Locator locator) {
+            this.parent = Objects.requireNonNull(parent, "parent");
+            this.type = type;
+            this.locator = Objects.requireNonNull(locator, "locator");
+            this.hash = Objects.hash(parent, type, locator);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Key key = (Key) o;
+
+            return parent.equals(key.parent)
+                    && type.equals(key.type)
+                    && locator.equals(key.locator);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.api.View;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.CookieManager;
+import com.redhat.darcy.web.api.ViewUrl;
+import com.redhat.darcy.web.api.WebSelection;
+import com.redhat.synq.Event;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+
+/**
+ * A {@link Browser} which forwards every call to another {@link Browser}, including calls to the
+ * default methods {@link #open(ViewUrl)}, both {@code openAndWaitUpTo} overloads, and
+ * {@link #takeScreenshot(Path)}, so that any implementation-specific overrides of those are
+ * preserved. Extend this to decorate a browser with some additional behavior, overriding only the
+ * methods whose behavior you need to change.
+ *
+ * <p>Default methods which hand this browser to some helper&mdash;
+ * {@link #takeScreenshot(Path, com.redhat.darcy.web.ScreenshotWriter)},
+ * {@link #takeScreenshot(Path, com.redhat.darcy.web.ScreenshotStore)}, and the {@code *Async}
+ * navigation methods&mdash;are deliberately <em>not</em> forwarded. They run against this
+ * browser instead, so that they go through its overrides of the methods they are built on, like
+ * {@link #open(String, View)} and {@link #takeScreenshot(OutputStream)}.
+ */
+public abstract class ForwardingBrowser implements Browser {
+    private final Browser delegate;
+
+    protected ForwardingBrowser(Browser delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+    }
+
+    /**
+     * @return The browser to forward calls to. Every forwarded call goes through this method, so
+     * overriding it can be used to, for example, guard against use after some point.
+     */
+    protected Browser delegate() {
+        return delegate;
+    }
+
+    @Override
+    public <T extends View> Event<T> open(ViewUrl<T> viewUrl) {
+        return delegate().open(viewUrl);
+    }
+
+    @Override
+    public <T extends View> Event<T> open(String url, T destination) {
+        return delegate().open(url, destination);
+    }
+
+    @Override
+    public <T extends View> T openAndWaitUpTo(ViewUrl<T> viewUrl, Duration duration) {
+        return delegate().openAndWaitUpTo(viewUrl, duration);
+    }
+
+    @Override
+    public <T extends View> T openAndWaitUpTo(ViewUrl<T> viewUrl, Long amount, ChronoUnit unit) {
+        return delegate().openAndWaitUpTo(viewUrl, amount, unit);
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return delegate().getCurrentUrl();
+    }
+
+    @Override
+    public String getTitle() {
+        return delegate().getTitle();
+    }
+
+    @Override
+    public String getSource() {
+        return delegate().getSource();
+    }
+
+    @Override
+    public <T extends View> Event<T> back(T destination) {
+        return delegate().back(destination);
+    }
+
+    @Override
+    public <T extends View> Event<T> forward(T destination) {
+        return delegate().forward(destination);
+    }
+
+    @Override
+    public <T extends View> Event<T> refresh(T destination) {
+        return delegate().refresh(destination);
+    }
+
+    @Override
+    public CookieManager cookies() {
+        return delegate().cookies();
+    }
+
+    @Override
+    public void close() {
+        delegate().close();
+    }
+
+    @Override
+    public void closeAll() {
+        delegate().closeAll();
+    }
+
+    @Override
+    public void takeScreenshot(OutputStream outputStream) {
+        delegate().takeScreenshot(outputStream);
+    }
+
+    @Override
+    public void takeScreenshot(Path path) {
+        delegate().takeScreenshot(path);
+    }
+
+    @Override
+    public WebSelection find() {
+        return delegate().find();
+    }
+
+    @Override
+    public boolean isPresent() {
+        return delegate().isPresent();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "delegate=" + delegate +
+                '}';
+    }
+}
@@ -19,15 +19,19 @@
 
 package com.redhat.darcy.web;
 
-import static com.redhat.darcy.web.HtmlElements.htmlElement;
-
 import com.redhat.darcy.ui.AbstractViewElement;
 import com.redhat.darcy.ui.api.Locator;
 import com.redhat.darcy.ui.api.elements.Table;
 import com.redhat.darcy.web.api.WebContext;
 import com.redhat.darcy.web.api.elements.HtmlElement;
+import com.redhat.darcy.web.api.elements.HtmlText;
+import com.redhat.darcy.web.internal.ReadsTables;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An extendable base {@link com.redhat.darcy.ui.api.ViewElement} describing simple, semantic HTML
@@ -42,6 +46,10 @@ import java.util.List;
  * {@link #byInner(com.redhat.darcy.ui.api.Locator, com.redhat.darcy.ui.api.Locator...)} , and can
  * therefore locate specific cells.
  *
+ * <p>When many cells need to be read, as when checking the contents of a large table, prefer
+ * {@link #snapshot(String...)}, which reads the whole table at once rather than locating each cell
+ * individually.
+ *
  * <p>Example usage:
  *
  * <pre><code>
@@ -75,11 +83,21 @@ import java.util.List;
  */
 public abstract class HtmlTable<T extends Table<T>> extends AbstractViewElement<HtmlElement> implements Table<T>,
         HtmlElement {
-    private final HtmlElement bodyTag = htmlElement(byInner(By.htmlTag("tbody")));
-    private final HtmlElement headerTag = htmlElement(byInner(By.htmlTag("thead")));
+    private final Locator parentLocator;
+    private final Map<String, Locator> innerXpathLocators = new HashMap<>();
 
-    public HtmlTable(Locator parent) { super(HtmlElement.class, parent); }
-    public HtmlTable(HtmlElement parent) { super(parent); }
+    private Boolean hasBodyTag;
+    private Boolean hasHeaderTag;
+
+    public HtmlTable(Locator parent) {
+        super(HtmlElement.class, parent);
+        this.parentLocator = parent;
+    }
+
+    public HtmlTable(HtmlElement parent) {
+        super(parent);
+        this.parentLocator = null;
+    }
 
     @Override
     public WebContext getContext() {
@@ -110,11 +128,11 @@ public abstract class HtmlTable<T extends Table<T>> extends AbstractViewElement<
      */
     @Override
     public int getRowCount() {
-        String xpath = bodyTag.isPresent()
+        String xpath = hasBodyTag()
             ? "./tbody/tr"
             : "./tr";
 
-        return getContext().find().elements(byInner(By.xpath(xpath))).size();
+        return getContext().find().elements(byInnerXpath(xpath)).size();
     }
 
     @Override
@@ -147,6 +165,80 @@ public abstract class HtmlTable<T extends Table<T>> extends AbstractViewElement<
         return parent.getAttribute(attribute);
     }
 
+    /**
+     * Reads the whole table&mdash;its headers, the text of every cell, and optionally the given
+     * attributes of every cell&mdash;into an immutable {@link TableSnapshot} that can be queried
+     * locally. Rows and cells are read according to the same conventions as
+     * {@link #getRowCount()}, {@link #byHeader(int)}, and {@link #byRowColumn(int, int)}, so
+     * indexes in the snapshot line up with the indexes those methods accept.
+     *
+     * <p>If the context supports it ({@link com.redhat.darcy.web.internal.ReadsTables}), the table
+     * is read in a single operation. Otherwise, cells are read one row at a time, which is slower
+     * but still avoids constructing a locator for every cell.
+     *
+     * <p>The snapshot will not reflect changes made to the table after it is taken.
+     *
+     * @param attributes Names of attributes to read from every cell, in addition to its text.
+     */
+    public TableSnapshot snapshot(String... attributes) {
+        List<String> attributeList = Arrays.asList(attributes);
+        WebContext context = getContext();
+
+        if (context instanceof ReadsTables) {
+            return ((ReadsTables) context).readTable(parent, attributeList);
+        }
+
+        return readSnapshotByRow(attributeList);
+    }
+
+    /**
+     * Whether or not this table has {@code<tbody>} and {@code<thead>} tags is detected once, the
+     * first time it is needed, and remembered so that locating cells does not cost an additional
+     * existence check every time. Call this method if the table may since have been re-rendered
+     * with a different structure, so that it is detected again.
+     */
+    public void invalidateStructure() {
+        hasBodyTag = null;
+        hasHeaderTag = null;
+    }
+
+    /**
+     * @return Whether or not this table has a {@code<tbody>} tag, as detected once per
+     * {@link #invalidateStructure() structure}.
+     */
+    protected boolean hasBodyTag() {
+        if (hasBodyTag == null) {
+            hasBodyTag = detect("tbody");
+        }
+
+        return hasBodyTag != null && hasBodyTag;
+    }
+
+    /**
+     * @return Whether or not this table has a {@code<thead>} tag, as detected once per
+     * {@link #invalidateStructure() structure}.
+     */
+    protected boolean hasHeaderTag() {
+        if (hasHeaderTag == null) {
+            hasHeaderTag = detect("thead");
+        }
+
+        return hasHeaderTag != null && hasHeaderTag;
+    }
+
+    /**
+     * @return True if the tag is present, false if it is not but the table is, or null if neither
+     * are present, in which case the table may simply not have rendered yet and nothing should be
+     * remembered.
+     */
+    private Boolean detect(String tag) {
+        if (getContext().find().htmlElement(byInner(By.htmlTag(tag))).isPresent()) {
+            return true;
+        }
+
+        return parent.isPresent() ? false : null;
+    }
+
     /**
      * Conveniently allows column implementations to lookup headers without duplicating the effort
      * to come up with xpath for each column's header. Simply use this method with that column's
@@ -167,11 +259,11 @@ public abstract class HtmlTable<T extends Table<T>> extends AbstractViewElement<
             throw new IllegalArgumentException("Column index must be greater than 0.");
         }
 
-        String xpath = headerTag.isPresent()
+        String xpath = hasHeaderTag()
                 ? "./thead/tr[1]/th[" + colIndex + "]"
                 : "./tr[1]/th[" + colIndex + "]";
 
-        return byInner(By.xpath(xpath));
+        return byInnerXpath(xpath);
     }
 
     /**
@@ -199,10 +291,86 @@ public abstract class HtmlTable<T extends Table<T>> extends AbstractViewElement<
             throw new IllegalArgumentException("Column index must be greater than 0.");
         }
 
-        String xpath = bodyTag.isPresent()
+        String xpath = hasBodyTag()
                 ? "./tbody/tr[" + rowIndex + "]/td[" + colIndex + "]"
                 : "./tr[" + rowIndex + "]/td[" + colIndex + "]";
 
+        return byInnerXpath(xpath);
+    }
+
+    /**
+     * Locates elements within the table by an xpath relative to it. If the table was constructed
+     * with a CSS id selector, like {@code By.css("#staff")}, it is combined with the xpath into one
+     * selector, so that elements are found in one lookup instead of first finding the table.
+     * Otherwise, this is the same as {@code byInner(By.xpath(xpath))}, which looks only within the
+     * first element the table's locator finds; a combined selector would look within every one.
+     * Locators are remembered per xpath, so each is only built once.
+     *
+     * @see LocatorChain
+     */
+    protected Locator byInnerXpath(String xpath) {
+        return innerXpathLocators.computeIfAbsent(xpath, this::compileInnerXpath);
+    }
+
+    private Locator compileInnerXpath(String xpath) {
+        if (findsOneElement(parentLocator)) {
+            Locator compiled = LocatorChain.of(parentLocator).thenXpath(xpath).compile();
+
+            if (!(compiled instanceof LocatorChain.ByChain)) {
+                return compiled;
+            }
+        }
+
         return byInner(By.xpath(xpath));
     }
+
+    /**
+     * @return Whether the locator is a CSS selector for a single id, with no combinators or
+     * selector lists, and so finds at most one element in a valid document.
+     */
+    private static boolean findsOneElement(Locator locator) {
+        String css = locator == null ? null : By.toCss(locator);
+
+        return css != null && css.trim().matches("#[^\\s>+~,]+");
+    }
+
+    private TableSnapshot readSnapshotByRow(List<String> attributes) {
+        String headerXpath = hasHeaderTag()
+                ? "./thead/tr[1]/th"
+                : "./tr[1]/th";
+        String rowXpath = hasBodyTag()
+                ? "./tbody/tr"
+                : "./tr";
+
+        TableSnapshot.Builder snapshot = new TableSnapshot.Builder(attributes);
+        List<String> headers = new ArrayList<>();
+
+        for (HtmlText header : getContext().find().htmlTexts(byInnerXpath(headerXpath))) {
+            headers.add(header.getText());
+        }
+
+        snapshot.headers(headers);
+
+        int rowCount = getContext().find().elements(byInnerXpath(rowXpath)).size();
+
+        for (int rowIndex = 1; rowIndex <= rowCount; rowIndex++) {
+            List<HtmlText> cells = getContext().find()
+                    .htmlTexts(byInnerXpath(rowXpath + "[" + rowIndex + "]/td"));
+            List<String> texts = new ArrayList<>(cells.size());
+            Map<String, List<String>> values = new HashMap<>();
+
+            for (HtmlText cell : cells) {
+                texts.add(cell.getText());
+
+                for (String attribute : attributes) {
+                    values.computeIfAbsent(attribute, a -> new ArrayList<>(cells.size()))
+                            .add(cell.getAttribute(attribute));
+                }
+            }
+
+            snapshot.row(texts, values);
+        }
+
+        return snapshot.build();
+    }
 }
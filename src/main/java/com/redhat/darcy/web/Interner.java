@@ -0,0 +1,82 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Shares one instance of a value among everything which asks for it by an equivalent key. Keys
+ * are canonicalized before an instance is made, and each key as given is remembered too, so asking
+ * again with the same spelling costs one lookup. Once full, new instances are still made, but not
+ * kept, so that keys built from changing data cannot grow the pool without bound.
+ */
+final class Interner<T> {
+    private final Map<String, T> instances = new ConcurrentHashMap<>();
+    private final UnaryOperator<String> canonicalize;
+    private final Function<String, T> create;
+    private final int maxSize;
+
+    /**
+     * @param create Makes an instance from a canonical key.
+     */
+    Interner(UnaryOperator<String> canonicalize, Function<String, T> create, int maxSize) {
+        this.canonicalize = canonicalize;
+        this.create = create;
+        this.maxSize = maxSize;
+    }
+
+    T intern(String key) {
+        T instance = instances.get(key);
+
+        if (instance != null) {
+            return instance;
+        }
+
+        String canonical = canonicalize.apply(key);
+        instance = instances.get(canonical);
+
+        if (instance == null) {
+            instance = create.apply(canonical);
+
+            if (instances.size() >= maxSize) {
+                return instance;
+            }
+
+            T raced = instances.putIfAbsent(canonical, instance);
+
+            if (raced != null) {
+                instance = raced;
+            }
+        }
+
+        if (!key.equals(canonical) && instances.size() < maxSize) {
+            instances.putIfAbsent(key, instance);
+        }
+
+        return instance;
+    }
+
+    int size() {
+        return instances.size();
+    }
+}
@@ -20,24 +20,31 @@
 package com.redhat.darcy.web;
 
 import static com.redhat.darcy.ui.Elements.label;
-import static com.redhat.darcy.ui.matchers.DarcyMatchers.loaded;
-import static com.redhat.synq.Synq.after;
-import static org.hamcrest.Matchers.equalTo;
 
 import com.redhat.darcy.ui.AbstractViewElement;
-import com.redhat.darcy.ui.DarcyException;
 import com.redhat.darcy.ui.annotations.Require;
 import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.ui.api.elements.Clickable;
 import com.redhat.darcy.ui.api.elements.Element;
 import com.redhat.darcy.ui.api.elements.Label;
 import com.redhat.darcy.ui.api.elements.PaginatedSortableTable;
+import com.redhat.darcy.web.api.WaitPolicy;
 import com.redhat.darcy.web.api.WebContext;
 import com.redhat.darcy.web.api.elements.HtmlElement;
 import com.redhat.darcy.web.api.elements.HtmlLink;
-
-import java.time.temporal.ChronoUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.redhat.darcy.web.api.elements.HtmlText;
+import com.redhat.darcy.web.api.elements.HtmlTextInput;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Like, {@link com.redhat.darcy.web.HtmlTable}, except for rich
@@ -59,10 +66,6 @@ import java.util.regex.Pattern;
  */
 public abstract class JQueryDataTable<T extends JQueryDataTable<T>> extends AbstractViewElement<HtmlElement>
         implements PaginatedSortableTable<T> {
-    private static final Pattern SHOW_START = Pattern.compile(".*?([\\d,]+).*?[\\d,]+");
-    private static final Pattern SHOW_END = Pattern.compile(".*?[\\d,]+.*?([\\d,]+)");
-    private static final Pattern SHOW_TOTAL = Pattern.compile(".*?[\\d,]+.*?[\\d,]+ of ([\\d,]+)");
-
     @Require
     private InnerTable innerTable = new InnerTable(byInner(By.htmlTag("table")));
     private Label info = label(byInner(By.css(".dataTables_info")));
@@ -70,11 +73,19 @@ public abstract class JQueryDataTable<T extends JQueryDataTable<T>> extends Abst
     private HtmlLink navPrevious;
     private HtmlLink navNext;
     private HtmlLink navFirst;
+    private HtmlLink navLast;
+    private HtmlTextInput pageInput;
 
     private Label isEmpty = label(byInner(By.css(".dataTables_empty")));
+    private HtmlElement lengthMenu;
 
     private String tableId;
 
+    /** The number of entries last seen on a page other than the last, or 0 if none has been. */
+    private int knownPageLength = 0;
+
+    private WaitPolicy waitPolicy = new SynqWaitPolicy(Duration.ofMinutes(2));
+
     /**
      * @param parent Locator for the wrapper div around the table element.
      */
@@ -102,7 +113,7 @@ public abstract class JQueryDataTable<T extends JQueryDataTable<T>> extends Abst
             return 0;
         }
 
-        return getShowingEnd() - getShowingStart() + 1;
+        return getInfo().getShowingCount();
     }
 
     @Override
@@ -110,34 +121,115 @@ public abstract class JQueryDataTable<T extends JQueryDataTable<T>> extends Abst
         return isEmpty.isDisplayed();
     }
 
+    /**
+     * Configures how this table waits for page changes to complete. By default, the table polls
+     * for up to 2 minutes, with synq's default polling interval. Tables that are known to be fast
+     * or slow, or that are navigated often, may benefit from a {@link PollingWaitPolicy} with a
+     * tailored timeout, backoff, or adaptive polling.
+     */
+    @SuppressWarnings("unchecked")
+    public T withWaitPolicy(WaitPolicy waitPolicy) {
+        this.waitPolicy = Objects.requireNonNull(waitPolicy, "waitPolicy");
+        return (T) this;
+    }
+
+    public WaitPolicy getWaitPolicy() {
+        return waitPolicy;
+    }
+
+    /**
+     * Lazily streams every row of the table, across all of its pages, starting from the first
+     * page. Each page is read in bulk with {@link #snapshot(String...)}, and only one page is held
+     * in memory at a time.
+     *
+     * <p>As soon as a page has been read, the table is asked to load the next one, so that the
+     * browser can load it while the caller processes the rows already read. The caller should
+     * therefore not interact with the table or its page while consuming the stream. The stream
+     * respects short-circuiting operations like {@code findFirst()} and {@code limit(long)}, in
+     * which case no further pages are read; note, however, that the table may be left on the page
+     * after the one containing the last row consumed.
+     *
+     * @param attributes Names of attributes to read from every cell, in addition to its text.
+     * @return An ordered stream of rows. The index of each row is its index within its page.
+     */
+    public Stream<TableSnapshot.Row> rows(String... attributes) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new RowIterator(attributes),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Reads the rows currently displayed&mdash;that is, the current page&mdash;into a
+     * {@link TableSnapshot}, as with {@link HtmlTable#snapshot(String...)}.
+     *
+     * @param attributes Names of attributes to read from every cell, in addition to its text.
+     */
+    public TableSnapshot snapshot(String... attributes) {
+        return innerTable.snapshot(attributes);
+    }
+
+    /**
+     * Navigates directly to the given page, using the fewest page changes the table's pagination
+     * controls allow, and waiting for each page change to complete.
+     *
+     * <ul>
+     *     <li>The first and last pages are reached with the "first" and "last" buttons, if they
+     *     are displayed.</li>
+     *     <li>If a page number input is displayed (as rendered by the "input" pagination
+     *     plug-in), the page number is entered there.</li>
+     *     <li>Otherwise, numbered page buttons are used, repeatedly clicking the displayed button
+     *     nearest the target page.</li>
+     *     <li>Only if none of those controls are present does this step one page at a time with
+     *     {@link #nextPage()} and {@link #previousPage()}.</li>
+     * </ul>
+     */
     @SuppressWarnings("unchecked")
     @Override
     public T toPage(int page) {
-        if (page > getMaxPages()) {
-            throw new IndexOutOfBoundsException("There are only " + getMaxPages() + " pages; tried "
+        int maxPages = getMaxPages();
+
+        if (page < 1 || page > maxPages) {
+            throw new IndexOutOfBoundsException("There are only " + maxPages + " pages; tried "
                     + "to navigate to page " + page + ".");
         }
 
+        int currentPage = getCurrentPage();
+
+        if (page == currentPage) {
+            return (T) this;
+        }
+
         if (page == 1 && navFirst().isDisplayed()) {
-            return (T) after(navFirst()::click)
-                    .expectCallTo(this::getCurrentPage, equalTo(1))
-                    .describedAs("the datatable to be at the first page")
-                    .andThenExpect(this, loaded())
-                    .waitUpTo(2, ChronoUnit.MINUTES); // TODO make configurable
+            return jumpTo(navFirst(), 1, "the datatable to be at the first page");
         }
 
-        while (page > getCurrentPage()) {
+        if (page == maxPages && navLast().isDisplayed()) {
+            return jumpTo(navLast(), page, "the datatable to be at the last page");
+        }
+
+        HtmlTextInput pageInput = pageInput();
+
+        if (pageInput.isDisplayed()) {
+            return awaitPage(() -> {
+                pageInput.clear();
+                pageInput.sendKeys(Integer.toString(page));
+            }, page, "the datatable to be at page " + page);
+        }
+
+        currentPage = jumpByPageButtons(page, currentPage);
+
+        while (page > currentPage) {
             nextPage();
+            currentPage++;
         }
 
-        while (page < getCurrentPage()) {
+        while (page < currentPage) {
             previousPage();
+            currentPage--;
         }
 
         return (T) this;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public T previousPage() {
         if (!hasPreviousPage()) {
@@ -145,14 +237,10 @@ public abstract class JQueryDataTable<T extends JQueryDataTable<T>> extends Abst
                     + "page is " + getCurrentPage());
         }
 
-        return (T) after(navPrevious()::click)
-                .expectCallTo(this::getCurrentPage, equalTo(getCurrentPage() - 1))
-                .describedAs("the datatable's current page to be decremented by 1")
-                .andThenExpect(this, loaded())
-                .waitUpTo(2, ChronoUnit.MINUTES); // TODO make configurable
+        return awaitPage(navPrevious()::click, getCurrentPage() - 1,
+                "the datatable's current page to be decremented by 1");
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public T nextPage() {
         if (!hasNextPage()) {
@@ -160,21 +248,18 @@ public abstract class JQueryDataTable<T extends JQueryDataTable<T>> extends Abst
                     + " is " + getCurrentPage());
         }
 
-        return (T) after(navNext()::click)
-                .expectCallTo(this::getCurrentPage, equalTo(getCurrentPage() + 1))
-                .describedAs("the datatable's current page to be incremented by 1")
-                .andThenExpect(this, loaded())
-                .waitUpTo(2, ChronoUnit.MINUTES); // TODO make configurable
+        return awaitPage(navNext()::click, getCurrentPage() + 1,
+                "the datatable's current page to be incremented by 1");
     }
 
     @Override
     public boolean hasNextPage() {
-        return navNext().getClasses().contains("ui-state-disabled");
+        return !isDisabled(navNext());
     }
 
     @Override
     public boolean hasPreviousPage() {
-        return navPrevious().getClasses().contains("ui-state-disabled");
+        return !isDisabled(navPrevious());
     }
 
     @Override
@@ -183,41 +268,89 @@ public abstract class JQueryDataTable<T extends JQueryDataTable<T>> extends Abst
             return 1;
         }
 
-        return getShowingEnd() / getRowCount();
+        DataTableInfo info = getInfo();
+
+        return (info.getStart() - 1) / getPageLength(info) + 1;
     }
 
     @Override
-    public int getTotalEntries() {
-        Matcher matcher = SHOW_TOTAL.matcher(info.getText());
-
-        if (!matcher.find()) {
-            throw new DarcyException("Could not determine the total number of entries displayable "
-                    + "in JQuery DataTable. Info was, " + info.getText());
+    public int getMaxPages() {
+        if (isEmpty()) {
+            return 1;
         }
 
-        return Integer.parseInt(matcher.group(1).replaceAll(",", ""));
+        DataTableInfo info = getInfo();
+        int pageLength = getPageLength(info);
+
+        return (info.getTotal() + pageLength - 1) / pageLength;
+    }
+
+    @Override
+    public int getTotalEntries() {
+        return getInfo().getTotal();
     }
 
     public int getShowingStart() {
-        Matcher matcher = SHOW_START.matcher(info.getText());
+        return getInfo().getStart();
+    }
 
-        if (!matcher.find()) {
-            throw new DarcyException("Could not determine index of first entry currently visible in"
-                    + "JQuery DataTable. Info was, " + info.getText());
-        }
+    public int getShowingEnd() {
+        return getInfo().getEnd();
+    }
 
-        return Integer.parseInt(matcher.group(1).replaceAll(",", ""));
+    /**
+     * Reads and parses the table's information summary, like, "Showing 11 to 20 of 57 entries."
+     * The text is read once per call, and never cached, so the result always reflects the table as
+     * it currently is. When more than one of the values it contains are needed at once, prefer
+     * calling this once over calling {@link #getShowingStart()}, {@link #getShowingEnd()}, and
+     * {@link #getTotalEntries()} individually, each of which reads the summary again.
+     */
+    public DataTableInfo getInfo() {
+        return DataTableInfo.parse(info.getText());
     }
 
-    public int getShowingEnd() {
-        Matcher matcher = SHOW_END.matcher(info.getText());
+    /**
+     * Determines how many entries are shown per page. Unless the table is on its last page, this is
+     * the number of entries currently showing. The last page may be short, so there, the length is
+     * read from the table's length menu if it is displayed. Failing that, the length last seen on
+     * another page is used, if the last page could follow pages of that length. Failing that, the
+     * length is taken to be the smallest one by which the entries before the last page divide
+     * evenly into full pages; for example, if a last page shows entries 51 to 57, the length is
+     * assumed to be 10.
+     *
+     * @param info The table's current information summary, as returned by {@link #getInfo()}.
+     */
+    protected int getPageLength(DataTableInfo info) {
+        boolean onLastPage = info.hasTotal() && info.getEnd() == info.getTotal();
+
+        if (!onLastPage) {
+            knownPageLength = info.getShowingCount();
+            return knownPageLength;
+        }
+
+        HtmlElement lengthMenu = lengthMenu();
+
+        if (lengthMenu.isDisplayed()) {
+            String length = lengthMenu.getAttribute("value");
+
+            if (length != null && length.matches("\\d+") && !"0".equals(length)) {
+                return Integer.parseInt(length);
+            }
+        }
 
-        if (!matcher.find()) {
-            throw new DarcyException("Could not determine index of last entry currently visible in "
-                    + "JQuery DataTable. Info was, " + info.getText());
+        int preceding = info.getStart() - 1;
+
+        if (knownPageLength >= info.getShowingCount() && preceding % knownPageLength == 0) {
+            return knownPageLength;
+        }
+
+        for (int length = info.getShowingCount(); length <= preceding; length++) {
+            if (preceding % length == 0) {
+                return length;
+            }
         }
 
-        return Integer.parseInt(matcher.group(1).replaceAll(",", ""));
+        return info.getShowingCount();
     }
 
     protected Locator byHeader(int colIndex) {
@@ -239,11 +372,7 @@ public abstract class JQueryDataTable<T extends JQueryDataTable<T>> extends Abst
      * ${table's_id}_${suffix}.
      */
     protected Locator byIdSuffix(String suffix) {
-        if (tableId == null) {
-            tableId = innerTable.getAttribute("id");
-        }
-
-        return byInner(By.id(tableId + "_" + suffix));
+        return byInner(By.id(getTableId() + "_" + suffix));
     }
 
     protected HtmlLink navNext() {
@@ -270,6 +399,184 @@ public abstract class JQueryDataTable<T extends JQueryDataTable<T>> extends Abst
         return navFirst;
     }
 
+    protected HtmlLink navLast() {
+        if (navLast == null) {
+            navLast = getContext().find().htmlLink(byIdSuffix("last"));
+        }
+
+        return navLast;
+    }
+
+    /**
+     * The menu for choosing how many entries are shown per page, if the table displays one.
+     */
+    protected HtmlElement lengthMenu() {
+        if (lengthMenu == null) {
+            lengthMenu = getContext().find().htmlElement(
+                    byInner(By.css(".dataTables_length select")));
+        }
+
+        return lengthMenu;
+    }
+
+    /**
+     * The page number input rendered inside of the pagination controls by the "input" pagination
+     * plug-in, if it is used.
+     */
+    protected HtmlTextInput pageInput() {
+        if (pageInput == null) {
+            pageInput = getContext().find().htmlTextInput(byPagination(By.htmlTag("input")));
+        }
+
+        return pageInput;
+    }
+
+    /**
+     * The numbered page buttons currently displayed by the "full_numbers" or "simple_numbers"
+     * pagination types. Usually only a window of pages around the current page is displayed.
+     */
+    protected List<HtmlText> pageButtons() {
+        return getContext().find().htmlTexts(byPagination(By.css("span > a")));
+    }
+
+    /**
+     * Repeatedly clicks whichever displayed numbered page button is nearest to {@code page}, until
+     * either {@code page} is reached, or no displayed button gets any nearer.
+     *
+     * @return The page the table is on afterwards.
+     */
+    private int jumpByPageButtons(int page, int currentPage) {
+        while (currentPage != page) {
+            HtmlText nearest = null;
+            int nearestPage = currentPage;
+
+            for (HtmlText button : pageButtons()) {
+                String text = button.getText().trim().replace(",", "");
+
+                if (!text.matches("\\d+")) {
+                    continue;
+                }
+
+                int buttonPage = Integer.parseInt(text);
+
+                if (Math.abs(page - buttonPage) < Math.abs(page - nearestPage)) {
+                    nearest = button;
+                    nearestPage = buttonPage;
+                }
+            }
+
+            if (nearest == null) {
+                break;
+            }
+
+            jumpTo(nearest, nearestPage, "the datatable to be at page " + nearestPage);
+            currentPage = nearestPage;
+        }
+
+        return currentPage;
+    }
+
+    private T jumpTo(Clickable control, int page, String description) {
+        return awaitPage(control::click, page, description);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T awaitPage(Runnable action, int page, String description) {
+        waitPolicy.await(action, () -> getCurrentPage() == page && isLoaded(), description);
+
+        return (T) this;
+    }
+
+    private Locator byPagination(Locator control) {
+        return byInner(By.id(getTableId() + "_paginate"), control);
+    }
+
+    private String getTableId() {
+        if (tableId == null) {
+            tableId = innerTable.getAttribute("id");
+        }
+
+        return tableId;
+    }
+
+    /**
+     * DataTables marks disabled pagination buttons with a different class depending on its version
+     * and styling.
+     */
+    private static boolean isDisabled(HtmlElement button) {
+        List<String> classes = button.getClasses();
+
+        return classes.contains("ui-state-disabled")
+                || classes.contains("paginate_button_disabled")
+                || classes.contains("disabled");
+    }
+
+    /**
+     * Reads one page at a time, requesting the next page from the browser as soon as the current
+     * one has been read, but only waiting for it to load once its rows are actually needed.
+     */
+    private class RowIterator implements Iterator<TableSnapshot.Row> {
+        private final String[] attributes;
+
+        private Iterator<TableSnapshot.Row> rows = Collections.emptyIterator();
+        private boolean started = false;
+        private int requestedPage = 0;
+
+        RowIterator(String[] attributes) {
+            this.attributes = attributes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!rows.hasNext()) {
+                if (!readNextPage()) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public TableSnapshot.Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return rows.next();
+        }
+
+        private boolean readNextPage() {
+            int page;
+
+            if (!started) {
+                started = true;
+
+                if (isEmpty()) {
+                    return false;
+                }
+
+                toPage(1);
+                page = 1;
+            } else if (requestedPage != 0) {
+                page = requestedPage;
+                awaitPage(() -> {}, page, "the datatable to be at page " + page);
+            } else {
+                return false;
+            }
+
+            rows = snapshot(attributes).getRows().iterator();
+            requestedPage = 0;
+
+            if (hasNextPage()) {
+                navNext().click();
+                requestedPage = page + 1;
+            }
+
+            return true;
+        }
+    }
+
     private class InnerTable extends HtmlTable<InnerTable> {
         public InnerTable(Locator parent) {
             super(parent);
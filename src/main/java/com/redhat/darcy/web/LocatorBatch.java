@@ -0,0 +1,238 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.api.Context;
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.ui.api.elements.Element;
+import com.redhat.darcy.web.api.WebSelection;
+import com.redhat.darcy.web.api.elements.HtmlElement;
+import com.redhat.darcy.web.instrumentation.CallKind;
+import com.redhat.darcy.web.instrumentation.Instrumentation;
+import com.redhat.darcy.web.internal.FindsInBatch;
+import com.redhat.darcy.web.internal.FindsInBatch.CssQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Collects many element lookups to be resolved together, so that a page with dozens of fields
+ * costs one round trip to the browser rather than one per field:
+ *
+ * <pre>
+ *     LocatorBatch batch = browser.find().batch();
+ *     Supplier&lt;HtmlTextInput&gt; name = batch.element(HtmlTextInput.class, By.css("#name"));
+ *     Supplier&lt;HtmlTextInput&gt; address =
+ *             batch.element(HtmlTextInput.class, By.css("#address input"));
+ *     Supplier&lt;List&lt;HtmlCheckbox&gt;&gt; options =
+ *             batch.elements(HtmlCheckbox.class, By.className("option"));
+ *
+ *     batch.resolve();
+ *     name.get().sendKeys("Jane");
+ * </pre>
+ *
+ * <p>Lookups may also be added fluently with {@link #add(Class, Locator)} and
+ * {@link #addAll(Class, Locator)}, and read from the list {@link #resolve()} returns by the order
+ * they were added in.
+ *
+ * <p>Lookups by {@link By#css(String)}, {@link By#htmlTag(String)} and
+ * {@link By#className(String)} are resolved in a single operation if the context implements
+ * {@link FindsInBatch}. Other lookups, or all of them if the context cannot find in batch, are
+ * resolved one at a time through the {@link WebSelection} the batch came from, exactly as they
+ * would have been without batching. A single element which the batch does not find is also
+ * looked up that way, so it behaves as any reference to an element which is not present does.
+ *
+ * <p>A batch is not thread safe, and may be resolved more than once, like to read a page again
+ * after it changes.
+ */
+public class LocatorBatch {
+    private final WebSelection selection;
+    private final Context context;
+    private final List<Query<?>> queries = new ArrayList<>();
+
+    /** The results of the last {@link #resolve()}, or null if it has not been resolved. */
+    private List<Object> results;
+
+    /**
+     * A batch which resolves each lookup through the selection, one at a time.
+     */
+    public LocatorBatch(WebSelection selection) {
+        this(selection, null);
+    }
+
+    /**
+     * @param context The context to resolve lookups in together, if it implements
+     * {@link FindsInBatch}. May be null.
+     */
+    public LocatorBatch(WebSelection selection, Context context) {
+        this.selection = Objects.requireNonNull(selection, "selection");
+        this.context = context;
+    }
+
+    /**
+     * Adds a lookup for an {@link HtmlElement}.
+     */
+    public LocatorBatch add(Locator locator) {
+        return add(HtmlElement.class, locator);
+    }
+
+    /**
+     * Adds a lookup for a single element, which will be resolved as if by
+     * {@link WebSelection#elementOfType(Class, Locator)}.
+     */
+    public <T extends Element> LocatorBatch add(Class<T> type, Locator locator) {
+        queries.add(new Query<>(type, locator, false));
+        return this;
+    }
+
+    /**
+     * Adds a lookup for every matching element, which will be resolved as a list, as if by
+     * {@link WebSelection#elementsOfType(Class, Locator)}.
+     */
+    public <T extends Element> LocatorBatch addAll(Class<T> type, Locator locator) {
+        queries.add(new Query<>(type, locator, true));
+        return this;
+    }
+
+    /**
+     * Adds a lookup for a single element, like {@link #add(Class, Locator)}.
+     *
+     * @return The element found for this lookup by the most recent {@link #resolve()}. Throws
+     * {@link IllegalStateException} if called before the batch has been resolved.
+     */
+    public <T extends Element> Supplier<T> element(Class<T> type, Locator locator) {
+        int index = queries.size();
+        add(type, locator);
+
+        return () -> type.cast(result(index));
+    }
+
+    /**
+     * Adds a lookup for every matching element, like {@link #addAll(Class, Locator)}.
+     *
+     * @return The elements found for this lookup by the most recent {@link #resolve()}. Throws
+     * {@link IllegalStateException} if called before the batch has been resolved.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Element> Supplier<List<T>> elements(Class<T> type, Locator locator) {
+        int index = queries.size();
+        addAll(type, locator);
+
+        return () -> (List<T>) result(index);
+    }
+
+    public int size() {
+        return queries.size();
+    }
+
+    /**
+     * @return One result for each lookup, in the order they were added: the element, for lookups
+     * added by {@link #add(Class, Locator)} or {@link #element(Class, Locator)}, of the type it was
+     * added with; or a list of elements of that type, for those added by
+     * {@link #addAll(Class, Locator)} or {@link #elements(Class, Locator)}.
+     */
+    public List<Object> resolve() {
+        long start = Instrumentation.start();
+
+        try {
+            Object[] results = new Object[queries.size()];
+            boolean[] resolved = new boolean[queries.size()];
+
+            if (context instanceof FindsInBatch) {
+                resolveInBatch((FindsInBatch) context, results, resolved);
+            }
+
+            for (int i = 0; i < results.length; i++) {
+                if (!resolved[i]) {
+                    results[i] = queries.get(i).resolve(selection);
+                }
+            }
+
+            this.results = Collections.unmodifiableList(Arrays.asList(results));
+            return this.results;
+        } finally {
+            Instrumentation.stop(CallKind.SELECTION, "LocatorBatch.resolve", start);
+        }
+    }
+
+    private Object result(int index) {
+        if (results == null) {
+            throw new IllegalStateException("Batch has not been resolved yet.");
+        }
+
+        return results.get(index);
+    }
+
+    private void resolveInBatch(FindsInBatch context, Object[] results, boolean[] resolved) {
+        List<CssQuery<?>> cssQueries = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+
+        for (int i = 0; i < queries.size(); i++) {
+            Query<?> query = queries.get(i);
+            String css = By.toCss(query.locator);
+
+            if (css != null) {
+                cssQueries.add(new CssQuery<>(query.type, css));
+                indexes.add(i);
+            }
+        }
+
+        if (cssQueries.isEmpty()) {
+            return;
+        }
+
+        List<List<?>> found = context.findAllInBatch(cssQueries);
+
+        for (int q = 0; q < cssQueries.size(); q++) {
+            int i = indexes.get(q);
+            List<?> elements = found.get(q);
+
+            if (queries.get(i).all) {
+                results[i] = Collections.unmodifiableList(new ArrayList<>(elements));
+                resolved[i] = true;
+            } else if (!elements.isEmpty()) {
+                results[i] = elements.get(0);
+                resolved[i] = true;
+            }
+        }
+    }
+
+    private static final class Query<T extends Element> {
+        final Class<T> type;
+        final Locator locator;
+        final boolean all;
+
+        Query(Class<T> type, Locator locator, boolean all) {
+            this.type = Objects.requireNonNull(type, "type");
+            this.locator = Objects.requireNonNull(locator, "locator");
+            this.all = all;
+        }
+
+        Object resolve(WebSelection selection) {
+            return all
+                    ? selection.elementsOfType(type, locator)
+                    : selection.elementOfType(type, locator);
+        }
+    }
+}
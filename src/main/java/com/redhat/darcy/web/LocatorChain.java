@@ -0,0 +1,268 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.api.Context;
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.ui.api.elements.Element;
+import com.redhat.darcy.ui.api.elements.Findable;
+import com.redhat.darcy.web.api.elements.HtmlElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A series of locators, each of which finds elements within the element found by the one before
+ * it, compiled into as few lookups as possible. For example,
+ *
+ * <pre>
+ *     LocatorChain.of(By.css("#staff")).thenXpath("./tbody/tr[2]/td[3]").compile()
+ * </pre>
+ *
+ * <p>is compiled to a single CSS selector, {@code #staff > tbody > tr:nth-of-type(2) >
+ * td:nth-of-type(3)}, and so is found in one lookup rather than two. Steps by
+ * {@link By#css(String)}, {@link By#htmlTag(String)}, {@link By#className(String)}, and simple
+ * XPath (element names, child and descendant steps, positions, and attribute tests) are combined
+ * this way. Steps which cannot be, like darcy-ui's locators, divide the chain into parts which are
+ * found one after another, each within the first element found by the part before it, as
+ * {@link By#nested(Element, Locator, Locator...)} does. Consecutive relative XPath steps are
+ * combined into one XPath.
+ *
+ * <p>A combined step finds elements within every element the steps before it match, not only the
+ * first. This makes no difference when those steps match a single element, as locators for a
+ * table or a form usually do.
+ */
+public final class LocatorChain {
+    private final List<Object> steps = new ArrayList<>();
+
+    private LocatorChain() {}
+
+    public static LocatorChain of(Locator first) {
+        return new LocatorChain().then(first);
+    }
+
+    public static LocatorChain ofXpath(String first) {
+        return new LocatorChain().thenXpath(first);
+    }
+
+    /**
+     * Adds a step. If the locator is itself a compiled chain, its steps are added instead, so that
+     * they may be combined with these.
+     */
+    public LocatorChain then(Locator locator) {
+        Objects.requireNonNull(locator, "locator");
+
+        if (locator instanceof ByChain) {
+            steps.addAll(((ByChain) locator).steps);
+        } else {
+            steps.add(locator);
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds a step by XPath, evaluated relative to the element found by the step before, like
+     * {@code ./tbody/tr[1]}.
+     */
+    public LocatorChain thenXpath(String xpath) {
+        steps.add(new Xpath(Objects.requireNonNull(xpath, "xpath")));
+        return this;
+    }
+
+    /**
+     * @return Whether the chain compiles to a single lookup.
+     */
+    public boolean isSingleQuery() {
+        return parts().size() == 1;
+    }
+
+    /**
+     * @return A locator for the last step, which finds elements with as few lookups as possible.
+     */
+    public Locator compile() {
+        List<Locator> parts = parts();
+
+        return parts.size() == 1 ? parts.get(0) : new ByChain(parts);
+    }
+
+    private List<Locator> parts() {
+        if (steps.isEmpty()) {
+            throw new IllegalStateException("A locator chain must have at least one step.");
+        }
+
+        List<Locator> parts = new ArrayList<>();
+        StringBuilder css = null;
+        String xpath = null;
+
+        for (Object step : steps) {
+            boolean first = parts.isEmpty() && css == null && xpath == null;
+            String fragment = toCss(step, first);
+
+            if (fragment != null && (css != null || !startsWithCombinator(fragment))) {
+                if (xpath != null) {
+                    parts.add(By.xpath(xpath));
+                    xpath = null;
+                }
+
+                css = css == null
+                        ? new StringBuilder(fragment)
+                        : css.append(' ').append(fragment);
+                continue;
+            }
+
+            if (css != null) {
+                parts.add(By.css(css.toString()));
+                css = null;
+            }
+
+            if (step instanceof Xpath) {
+                String next = ((Xpath) step).xpath;
+
+                if (xpath != null && canAppend(xpath, next)) {
+                    xpath = xpath + next.substring(1);
+                } else {
+                    if (xpath != null) {
+                        parts.add(By.xpath(xpath));
+                    }
+
+                    xpath = next;
+                }
+
+                continue;
+            }
+
+            if (xpath != null) {
+                parts.add(By.xpath(xpath));
+                xpath = null;
+            }
+
+            parts.add((Locator) step);
+        }
+
+        if (css != null) {
+            parts.add(By.css(css.toString()));
+        }
+
+        if (xpath != null) {
+            parts.add(By.xpath(xpath));
+        }
+
+        return parts;
+    }
+
+    /**
+     * @return The step as a CSS selector which can be combined with those around it, or null if
+     * there is none.
+     */
+    private static String toCss(Object step, boolean first) {
+        if (step instanceof Xpath) {
+            return SimpleXpath.toCss(((Xpath) step).xpath, first);
+        }
+
+        String css = By.toCss((Locator) step);
+
+        // A selector list, or one relative to siblings, cannot be combined with another.
+        if (css == null || css.indexOf(',') != -1) {
+            return null;
+        }
+
+        String trimmed = css.trim();
+
+        return trimmed.startsWith("+") || trimmed.startsWith("~") ? null : trimmed;
+    }
+
+    private static boolean startsWithCombinator(String css) {
+        return css.startsWith(">");
+    }
+
+    private static boolean canAppend(String xpath, String next) {
+        return xpath.indexOf('|') == -1 && next.indexOf('|') == -1
+                && (next.startsWith("./") || next.startsWith(".//"));
+    }
+
+    private static final class Xpath {
+        final String xpath;
+
+        Xpath(String xpath) {
+            this.xpath = xpath;
+        }
+    }
+
+    /**
+     * Finds each part of a chain within the first element found by the part before it.
+     */
+    static final class ByChain implements Locator {
+        private final List<Locator> steps;
+
+        ByChain(List<Locator> steps) {
+            this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+        }
+
+        @Override
+        public <T extends Findable> List<T> findAll(Class<T> type, Context context) {
+            return last(context).findAll(type, context);
+        }
+
+        @Override
+        public <T extends Findable> T find(Class<T> type, Context context) {
+            return last(context).find(type, context);
+        }
+
+        /**
+         * @return The last step, nested within the element found by the steps before it.
+         */
+        private Locator last(Context context) {
+            Locator current = steps.get(0);
+
+            for (Locator step : steps.subList(1, steps.size())) {
+                current = By.nested(current.find(HtmlElement.class, context), step);
+            }
+
+            return current;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            return steps.equals(((ByChain) o).steps);
+        }
+
+        @Override
+        public int hashCode() {
+            return steps.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "ByChain{" +
+                    "steps=" + steps +
+                    '}';
+        }
+    }
+}
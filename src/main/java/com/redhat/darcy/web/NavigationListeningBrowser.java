@@ -0,0 +1,98 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.api.View;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.ViewUrl;
+import com.redhat.synq.Event;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A {@link ForwardingBrowser} which calls {@link #onNavigate()} whenever it is asked to navigate,
+ * so that subclasses can drop whatever they remember about the current page. Blocking navigations
+ * call it again once they return, since the page may have been read while it was loading.
+ * Navigation caused by interacting with a page, like clicking a link or submitting a form, cannot
+ * be seen from here, so subclasses should offer some other way to forget the page after those.
+ */
+public abstract class NavigationListeningBrowser extends ForwardingBrowser {
+    protected NavigationListeningBrowser(Browser delegate) {
+        super(delegate);
+    }
+
+    /**
+     * Called before every navigation made through this browser.
+     */
+    protected abstract void onNavigate();
+
+    @Override
+    public <T extends View> Event<T> open(ViewUrl<T> viewUrl) {
+        onNavigate();
+        return super.open(viewUrl);
+    }
+
+    @Override
+    public <T extends View> T openAndWaitUpTo(ViewUrl<T> viewUrl, Duration duration) {
+        onNavigate();
+
+        try {
+            return super.openAndWaitUpTo(viewUrl, duration);
+        } finally {
+            onNavigate();
+        }
+    }
+
+    @Override
+    public <T extends View> T openAndWaitUpTo(ViewUrl<T> viewUrl, Long amount, ChronoUnit unit) {
+        onNavigate();
+
+        try {
+            return super.openAndWaitUpTo(viewUrl, amount, unit);
+        } finally {
+            onNavigate();
+        }
+    }
+
+    @Override
+    public <T extends View> Event<T> open(String url, T destination) {
+        onNavigate();
+        return super.open(url, destination);
+    }
+
+    @Override
+    public <T extends View> Event<T> back(T destination) {
+        onNavigate();
+        return super.back(destination);
+    }
+
+    @Override
+    public <T extends View> Event<T> forward(T destination) {
+        onNavigate();
+        return super.forward(destination);
+    }
+
+    @Override
+    public <T extends View> Event<T> refresh(T destination) {
+        onNavigate();
+        return super.refresh(destination);
+    }
+}
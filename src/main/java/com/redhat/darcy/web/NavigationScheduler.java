@@ -0,0 +1,327 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.ui.api.View;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.synq.Event;
+import com.redhat.synq.TimeoutException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completes browser navigations in the background, so that one thread can drive many browsers at
+ * once without blocking on each navigation in turn. See {@link Browser#openAsync(
+ * com.redhat.darcy.web.api.ViewUrl, Duration, NavigationScheduler)} and its siblings.
+ *
+ * <p>A navigation's {@link Event} is first waited on for no time at all, which performs the
+ * navigation itself and checks once whether the destination has loaded. If it has not, only the
+ * destination's {@link View#isLoaded()} is checked again, at a fixed interval, on a timer, until it
+ * is loaded or the timeout passes. The event is never waited on again, since that would perform
+ * the navigation again, so anything else it expects, like {@link Event#failIf(Event)} clauses, is
+ * only checked that first time. A thread is therefore only held while the browser is actually
+ * being driven, never while waiting between checks, and a few threads can keep hundreds of
+ * navigations in flight. Because WebDriver itself is synchronous, the navigation action and each
+ * check still hold a thread for as long as the browser takes to answer; size the pool for the
+ * number of calls expected to be outstanding at once, not for the number of browsers.
+ *
+ * <pre><code>
+ *     List&lt;CompletableFuture&lt;StaffView&gt;&gt; views = browsers.stream()
+ *             .map(browser -&gt; browser.openAsync(staffUrl, Duration.ofSeconds(30),
+ *                     NavigationScheduler.shared()))
+ *             .collect(Collectors.toList());
+ * </code></pre>
+ *
+ * <p>Instances are thread safe.
+ */
+public class NavigationScheduler implements AutoCloseable {
+    private final ScheduledThreadPoolExecutor executor;
+    private final Duration pollInterval;
+    private final Set<Navigation<?>> inFlight = ConcurrentHashMap.newKeySet();
+
+    private NavigationScheduler(Builder builder) {
+        this.pollInterval = builder.pollInterval;
+        this.executor = new ScheduledThreadPoolExecutor(builder.threads,
+                new NavigationThreadFactory());
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @return A scheduler shared by the whole JVM, with default settings, which is started the
+     * first time it is used. Its threads are daemons, and it cannot be closed.
+     */
+    public static NavigationScheduler shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Performs the navigation in the background, and waits for the destination to load without
+     * holding a thread in between checks.
+     *
+     * @param browser The browser being navigated. If the destination has not had its context set
+     * by the time the navigation has been performed, it is set to this browser, so that it can
+     * check whether it is loaded.
+     * @param navigation An event, like one returned by {@link Browser#open(String, View)}, that
+     * navigates the browser and expects the destination to load. It is waited on once, for no time
+     * at all; after that, only the destination's {@link View#isLoaded()} is polled, so any
+     * {@link Event#failIf(Event)} clauses or other expectations added to the event are not checked
+     * again.
+     * @param timeout How long to wait for the destination to load, counted from now.
+     * @return A future which completes with the destination once it is loaded, or exceptionally
+     * with whatever the navigation threw, or with a {@link DarcyException} if the destination did
+     * not load in time. Cancelling the future stops any further checks.
+     * @throws IllegalStateException if the scheduler has been closed.
+     */
+    public <T extends View> CompletableFuture<T> navigate(Browser browser, Event<T> navigation,
+            T destination, Duration timeout) {
+        Navigation<T> task = new Navigation<>(
+                Objects.requireNonNull(browser, "browser"),
+                Objects.requireNonNull(navigation, "navigation"),
+                Objects.requireNonNull(destination, "destination"),
+                Objects.requireNonNull(timeout, "timeout"));
+
+        inFlight.add(task);
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(task);
+            throw new IllegalStateException("Navigation scheduler has been closed.");
+        }
+
+        return task.future;
+    }
+
+    /**
+     * @return The number of navigations that have been started and not yet completed.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Stops the scheduler's threads. Navigations still in flight are completed exceptionally with
+     * a {@link DarcyException}; the browsers themselves are left as they are. Has no effect on the
+     * {@link #shared() shared} scheduler.
+     */
+    @Override
+    public void close() {
+        if (this == Shared.INSTANCE) {
+            return;
+        }
+
+        executor.shutdownNow();
+
+        for (Navigation<?> navigation : inFlight) {
+            navigation.fail(new DarcyException("Navigation scheduler was closed before "
+                    + navigation.destination + " loaded."));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NavigationScheduler{" +
+                "threads=" + executor.getCorePoolSize() +
+                ", pollInterval=" + pollInterval +
+                ", inFlight=" + inFlight.size() +
+                '}';
+    }
+
+    private static class Shared {
+        static final NavigationScheduler INSTANCE = new Builder().build();
+    }
+
+    /**
+     * One navigation, which runs first to perform the navigation, and then once per check until
+     * the destination is loaded.
+     */
+    private class Navigation<T extends View> implements Runnable {
+        final Browser browser;
+        final Event<T> event;
+        final T destination;
+        final Duration timeout;
+        final long deadline;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        boolean started = false;
+        RuntimeException lastFailure;
+
+        Navigation(Browser browser, Event<T> event, T destination, Duration timeout) {
+            this.browser = browser;
+            this.event = event;
+            this.destination = destination;
+            this.timeout = timeout;
+            this.deadline = System.nanoTime() + timeout.toNanos();
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                // Cancelled.
+                inFlight.remove(this);
+                return;
+            }
+
+            try {
+                if (!started) {
+                    started = true;
+
+                    if (start()) {
+                        return;
+                    }
+                } else if (check()) {
+                    return;
+                }
+
+                long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+                    DarcyException timedOut = new DarcyException("Timed out after " + timeout
+                            + " waiting for " + destination + " to load.");
+
+                    if (lastFailure != null) {
+                        timedOut.addSuppressed(lastFailure);
+                    }
+
+                    fail(timedOut);
+                    return;
+                }
+
+                executor.schedule(this, Math.min(remaining, pollInterval.toNanos()),
+                        TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                fail(new DarcyException("Navigation scheduler was closed before " + destination
+                        + " loaded.", e));
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }
+
+        /**
+         * Completes the future only once the navigation is no longer counted as in flight, so
+         * that anything waiting on the future sees an accurate count.
+         */
+        void succeed(T view) {
+            inFlight.remove(this);
+            future.complete(view);
+        }
+
+        void fail(Throwable failure) {
+            inFlight.remove(this);
+            future.completeExceptionally(failure);
+        }
+
+        /**
+         * @return Whether the navigation is complete.
+         */
+        private boolean start() {
+            try {
+                succeed(event.waitUpTo(Duration.ZERO));
+                return true;
+            } catch (TimeoutException e) {
+                // Navigated, but not loaded yet; poll from here on.
+                if (destination.getContext() == null) {
+                    destination.setContext(browser);
+                }
+
+                return false;
+            }
+        }
+
+        /**
+         * @return Whether the destination is loaded.
+         */
+        private boolean check() {
+            try {
+                if (destination.isLoaded()) {
+                    succeed(destination);
+                    return true;
+                }
+            } catch (RuntimeException e) {
+                // Pages commonly fail checks while they are still loading; try again later.
+                lastFailure = e;
+            }
+
+            return false;
+        }
+    }
+
+    private static class NavigationThreadFactory implements ThreadFactory {
+        private static final AtomicInteger threads = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "darcy-navigation-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static class Builder {
+        private int threads = 2;
+        private Duration pollInterval = Duration.ofMillis(100);
+
+        /**
+         * The number of threads to perform navigations and check for loaded views with. Defaults
+         * to 2.
+         */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Must have at least 1 thread, was " + threads);
+            }
+
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * How long to wait between checks of whether a destination has loaded. Defaults to 100
+         * milliseconds.
+         */
+        public Builder pollInterval(Duration pollInterval) {
+            Objects.requireNonNull(pollInterval, "pollInterval");
+
+            if (pollInterval.isNegative() || pollInterval.isZero()) {
+                throw new IllegalArgumentException("Poll interval must be positive, was "
+                        + pollInterval);
+            }
+
+            this.pollInterval = pollInterval;
+            return this;
+        }
+
+        public NavigationScheduler build() {
+            return new NavigationScheduler(this);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.web.api.WaitPolicy;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A {@link WaitPolicy} that polls its condition with an interval that starts small and grows
+ * exponentially, up to some maximum, and that gives up after a timeout by throwing a
+ * {@link DarcyException}. Fast actions are therefore noticed quickly, without slow actions costing
+ * an excessive number of checks.
+ *
+ * <p>Optionally, the policy can be made:
+ *
+ * <ul>
+ *     <li><em>adaptive</em>, so that it remembers how long its condition has taken to be met in
+ *     the past, and doesn't start checking until shortly before it is next expected to be met.
+ *     Use one adaptive instance per kind of action (per table, for instance) so that its estimate
+ *     is meaningful.</li>
+ *     <li><em>event-driven</em>, by supplying a signal that completes when the condition has
+ *     likely been met (for example, when a DataTable fires its "draw" event). The condition is
+ *     checked as soon as the signal completes, and polling continues as a fallback in case the
+ *     signal is missed or is premature.</li>
+ * </ul>
+ *
+ * <p>Instances are thread safe.
+ */
+public class PollingWaitPolicy implements WaitPolicy {
+    private final Duration timeout;
+    private final Duration initialInterval;
+    private final Duration maxInterval;
+    private final double backoff;
+    private final boolean adaptive;
+    private final Supplier<? extends CompletionStage<?>> signal;
+
+    /** Estimated nanoseconds until the condition is met after the action, or 0 if unknown. */
+    private final AtomicLong expectedLatency = new AtomicLong();
+
+    private PollingWaitPolicy(Builder builder) {
+        this.timeout = builder.timeout;
+        this.initialInterval = builder.initialInterval;
+        this.maxInterval = builder.maxInterval;
+        this.backoff = builder.backoff;
+        this.adaptive = builder.adaptive;
+        this.signal = builder.signal;
+    }
+
+    @Override
+    public void await(Runnable action, BooleanSupplier condition, String description) {
+        CompletableFuture<?> wakeUp = signal == null ? null : signal.get().toCompletableFuture();
+
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        long pause = adaptive ? expectedLatency.get() * 3 / 4 : 0;
+        long interval = initialInterval.toNanos();
+
+        action.run();
+
+        while (true) {
+            if (pause > 0) {
+                wakeUp = pause(Math.min(pause, deadline - System.nanoTime()), wakeUp);
+            }
+
+            if (condition.getAsBoolean()) {
+                if (adaptive) {
+                    recordLatency(System.nanoTime() - start);
+                }
+
+                return;
+            }
+
+            if (System.nanoTime() - deadline >= 0) {
+                throw new DarcyException("Timed out after " + timeout + " waiting for "
+                        + description);
+            }
+
+            pause = interval;
+            interval = Math.min((long) (interval * backoff), maxInterval.toNanos());
+        }
+    }
+
+    /**
+     * @return How long the condition is currently expected to take to be met after the action is
+     * performed, if this policy is adaptive and has observed at least one wait. Otherwise,
+     * {@link Duration#ZERO}.
+     */
+    public Duration getExpectedLatency() {
+        return Duration.ofNanos(expectedLatency.get());
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sleeps for the given number of nanoseconds, or until the signal completes.
+     *
+     * @return The signal, if it should continue to be waited on, or null if it has completed.
+     */
+    private static CompletableFuture<?> pause(long nanos, CompletableFuture<?> wakeUp) {
+        if (nanos <= 0) {
+            return wakeUp;
+        }
+
+        try {
+            if (wakeUp == null) {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+                return null;
+            }
+
+            wakeUp.get(nanos, TimeUnit.NANOSECONDS);
+            return null;
+        } catch (TimeoutException e) {
+            return wakeUp;
+        } catch (ExecutionException e) {
+            // A failed signal is only a missed optimization; keep polling.
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DarcyException("Interrupted while waiting", e);
+        }
+    }
+
+    /**
+     * Keeps an exponentially weighted moving average of observed latencies, so that the estimate
+     * follows gradual changes without being thrown off by a single outlier.
+     */
+    private void recordLatency(long nanos) {
+        expectedLatency.updateAndGet(estimate -> estimate == 0
+                ? nanos
+                : (estimate * 3 + nanos) / 4);
+    }
+
+    @Override
+    public String toString() {
+        return "PollingWaitPolicy{" +
+                "timeout=" + timeout +
+                ", initialInterval=" + initialInterval +
+                ", maxInterval=" + maxInterval +
+                ", backoff=" + backoff +
+                ", adaptive=" + adaptive +
+                ", eventDriven=" + (signal != null) +
+                '}';
+    }
+
+    public static class Builder {
+        private Duration timeout = Duration.ofMinutes(2);
+        private Duration initialInterval = Duration.ofMillis(50);
+        private Duration maxInterval = Duration.ofSeconds(1);
+        private double backoff = 2;
+        private boolean adaptive = false;
+        private Supplier<? extends CompletionStage<?>> signal;
+
+        /**
+         * How long to wait for the condition before giving up. Defaults to 2 minutes.
+         */
+        public Builder timeout(Duration timeout) {
+            this.timeout = requirePositive(timeout, "timeout");
+            return this;
+        }
+
+        /**
+         * Polls at a fixed interval.
+         */
+        public Builder pollingEvery(Duration interval) {
+            return backoff(interval, interval, 1);
+        }
+
+        /**
+         * Polls first after {@code initialInterval}, and then multiplies the interval by
+         * {@code multiplier} after every check, up to {@code maxInterval}. Defaults to 50
+         * milliseconds, doubling up to 1 second.
+         */
+        public Builder backoff(Duration initialInterval, Duration maxInterval, double multiplier) {
+            this.initialInterval = requirePositive(initialInterval, "initialInterval");
+            this.maxInterval = requirePositive(maxInterval, "maxInterval");
+
+            if (maxInterval.compareTo(initialInterval) < 0) {
+                throw new IllegalArgumentException("maxInterval must not be less than "
+                        + "initialInterval");
+            }
+
+            if (multiplier < 1) {
+                throw new IllegalArgumentException("multiplier must be at least 1; was "
+                        + multiplier);
+            }
+
+            this.backoff = multiplier;
+            return this;
+        }
+
+        /**
+         * Delays the first check until shortly before the condition is expected to be met, based
+         * on how long it has taken in previous waits using the same policy instance.
+         */
+        public Builder adaptive() {
+            this.adaptive = true;
+            return this;
+        }
+
+        /**
+         * Checks the condition as soon as a signal completes, rather than only when polling.
+         *
+         * @param signal Called once per wait, just <em>before</em> the action is performed, so that
+         * whatever event the returned stage listens for cannot be missed.
+         */
+        public Builder wakeOn(Supplier<? extends CompletionStage<?>> signal) {
+            this.signal = Objects.requireNonNull(signal, "signal");
+            return this;
+        }
+
+        public PollingWaitPolicy build() {
+            return new PollingWaitPolicy(this);
+        }
+
+        private static Duration requirePositive(Duration duration, String name) {
+            Objects.requireNonNull(duration, name);
+
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException(name + " must be positive; was " + duration);
+            }
+
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,672 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.BrowserFactory;
+
+import org.hamcrest.Matchers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A {@link BrowserFactory} which keeps a bounded pool of browsers from some other factory, so that
+ * the cost of starting a browser is paid once per pooled instance rather than once per call to
+ * {@link #newBrowser()}.
+ *
+ * <p>Browsers returned by {@link #newBrowser()} are leased from the pool. Calling
+ * {@link Browser#close()} or {@link Browser#closeAll()} on one returns it to the pool instead of
+ * closing it; any further use of that same reference throws an {@link IllegalStateException}. On
+ * its way back into the pool, a browser is reset (by default, extra windows are closed, cookies
+ * are deleted, and it is navigated to about:blank), and before it is leased again it is validated.
+ * Browsers that fail either step are closed and replaced. Browsers left idle longer than the
+ * configured idle time are closed, lazily, the next time the pool is used, or on
+ * {@link #evictIdle()}.
+ *
+ * <p>At most {@link Builder#maxSize(int) maxSize} browsers exist at once, idle or leased. When all
+ * are leased, {@link #newBrowser()} blocks up to {@link Builder#maxWait(Duration) maxWait} for one
+ * to be returned before throwing a {@link DarcyException}.
+ *
+ * <pre><code>
+ *     PooledBrowserFactory pool = new PooledBrowserFactory.Builder(new FirefoxBrowserFactory())
+ *             .maxSize(4)
+ *             .prewarm(2)
+ *             .build();
+ * </code></pre>
+ */
+public class PooledBrowserFactory implements BrowserFactory, AutoCloseable {
+    private static final String BLANK_URL = "about:blank";
+
+    private final BrowserFactory factory;
+    private final int maxSize;
+    private final Duration maxIdleTime;
+    private final Duration maxWait;
+    private final Predicate<Browser> validator;
+    private final Consumer<Browser> reset;
+    private final Clock clock;
+
+    /**
+     * Bounds the number of leased browsers plus those being prewarmed. A new browser is only
+     * started while holding a permit and while no browser is idle, so together with
+     * {@link #size} this keeps at most maxSize browsers in existence.
+     */
+    private final Semaphore leases;
+
+    /** Most recently returned first, so the warmest browsers are reused. Guarded by this. */
+    private final Deque<IdleBrowser> idle = new ArrayDeque<>();
+
+    /**
+     * Idle plus leased browsers, including those being started. A browser is counted from when it
+     * is started until it is destroyed. Guarded by this.
+     */
+    private int size = 0;
+    private boolean closed = false;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong leased = new AtomicLong();
+    private final AtomicLong returned = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong failedValidations = new AtomicLong();
+    private final AtomicLong failedResets = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private PooledBrowserFactory(Builder builder) {
+        this.factory = builder.factory;
+        this.maxSize = builder.maxSize;
+        this.maxIdleTime = builder.maxIdleTime;
+        this.maxWait = builder.maxWait;
+        this.validator = builder.validator;
+        this.reset = builder.reset;
+        this.clock = builder.clock;
+        this.leases = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Leases a browser from the pool, reusing an idle one if possible, or otherwise starting a new
+     * one if the pool is not yet full. If it is full, waits for a browser to be returned.
+     *
+     * @throws DarcyException if no browser was returned to a full pool within the maximum wait.
+     * @throws IllegalStateException if the pool has been closed.
+     */
+    @Override
+    public Browser newBrowser() {
+        checkOpen();
+
+        try {
+            if (!leases.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                timeouts.incrementAndGet();
+                throw new DarcyException("Timed out after " + maxWait + " waiting for one of "
+                        + maxSize + " pooled browsers to be returned.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DarcyException("Interrupted while waiting for a pooled browser.", e);
+        }
+
+        try {
+            while (true) {
+                Browser browser = pollIdle();
+
+                if (browser == null) {
+                    browser = create();
+
+                    if (browser != null) {
+                        return lease(browser);
+                    }
+
+                    // One was returned in the meantime.
+                    continue;
+                }
+
+                if (isValid(browser)) {
+                    return lease(browser);
+                }
+
+                failedValidations.incrementAndGet();
+                unreserve();
+                destroy(browser);
+            }
+        } catch (RuntimeException e) {
+            leases.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts browsers until there are at least {@code count} idle, or until the pool is full,
+     * whichever comes first. Browsers are started on the calling thread. Each browser being
+     * started takes a lease until it is idle, so a browser leased at the same time waits for it
+     * rather than starting another.
+     *
+     * @return The number of browsers started.
+     */
+    public int prewarm(int count) {
+        int started = 0;
+
+        while (leases.tryAcquire()) {
+            try {
+                if (!reserveForPrewarm(count)) {
+                    break;
+                }
+
+                Browser browser;
+
+                try {
+                    browser = factory.newBrowser();
+                } catch (RuntimeException e) {
+                    unreserve();
+                    throw e;
+                }
+
+                created.incrementAndGet();
+                started++;
+
+                synchronized (this) {
+                    if (closed) {
+                        unreserve();
+                        destroy(browser);
+                        break;
+                    }
+
+                    idle.push(new IdleBrowser(browser, clock.instant()));
+                }
+            } finally {
+                leases.release();
+            }
+        }
+
+        return started;
+    }
+
+    /**
+     * Closes any browsers which have been idle for longer than the maximum idle time. This happens
+     * lazily as the pool is used, so calling this is only necessary to free browsers from a pool
+     * that is otherwise not being used.
+     *
+     * @return The number of browsers closed.
+     */
+    public int evictIdle() {
+        List<Browser> expired = new ArrayList<>();
+        Instant oldest = clock.instant().minus(maxIdleTime);
+
+        synchronized (this) {
+            Iterator<IdleBrowser> iterator = idle.descendingIterator();
+
+            while (iterator.hasNext()) {
+                IdleBrowser next = iterator.next();
+
+                if (!next.since.isBefore(oldest)) {
+                    break;
+                }
+
+                iterator.remove();
+                size--;
+                expired.add(next.browser);
+            }
+        }
+
+        evicted.addAndGet(expired.size());
+        expired.forEach(this::destroy);
+
+        return expired.size();
+    }
+
+    /**
+     * @return A point-in-time copy of this pool's counters.
+     */
+    public Metrics getMetrics() {
+        int idleCount;
+        int totalCount;
+
+        synchronized (this) {
+            idleCount = idle.size();
+            totalCount = size;
+        }
+
+        return new Metrics(maxSize, totalCount - idleCount, idleCount, created.get(),
+                destroyed.get(), leased.get(), returned.get(), evicted.get(),
+                failedValidations.get(), failedResets.get(), timeouts.get());
+    }
+
+    /**
+     * Closes every idle browser and stops leasing new ones. Browsers that are still leased are
+     * closed when they are returned.
+     */
+    @Override
+    public void close() {
+        List<IdleBrowser> toClose;
+
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            size -= idle.size();
+            idle.clear();
+        }
+
+        toClose.forEach(i -> destroy(i.browser));
+    }
+
+    private Browser pollIdle() {
+        evictIdle();
+
+        synchronized (this) {
+            IdleBrowser next = idle.poll();
+
+            return next == null ? null : next.browser;
+        }
+    }
+
+    /**
+     * Starts a new browser, unless one has become idle since the pool was last polled.
+     *
+     * @return The new browser, or null if there is an idle one to lease instead.
+     */
+    private Browser create() {
+        synchronized (this) {
+            checkOpen();
+
+            if (!idle.isEmpty()) {
+                return null;
+            }
+
+            size++;
+        }
+
+        try {
+            Browser browser = factory.newBrowser();
+            created.incrementAndGet();
+            return browser;
+        } catch (RuntimeException e) {
+            unreserve();
+            throw e;
+        }
+    }
+
+    private Browser lease(Browser browser) {
+        leased.incrementAndGet();
+        return new PooledBrowser(browser);
+    }
+
+    private void release(Browser browser) {
+        returned.incrementAndGet();
+
+        try {
+            reset.accept(browser);
+        } catch (RuntimeException e) {
+            failedResets.incrementAndGet();
+            discard(browser);
+            return;
+        }
+
+        synchronized (this) {
+            if (!closed) {
+                idle.push(new IdleBrowser(browser, clock.instant()));
+                leases.release();
+                return;
+            }
+        }
+
+        discard(browser);
+    }
+
+    private void discard(Browser browser) {
+        unreserve();
+        leases.release();
+        destroy(browser);
+    }
+
+    private synchronized boolean reserveForPrewarm(int count) {
+        if (closed || idle.size() >= count || size >= maxSize) {
+            return false;
+        }
+
+        size++;
+        return true;
+    }
+
+    private synchronized void unreserve() {
+        size--;
+    }
+
+    private synchronized void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Browser pool has been closed.");
+        }
+    }
+
+    private boolean isValid(Browser browser) {
+        try {
+            return validator.test(browser);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void destroy(Browser browser) {
+        destroyed.incrementAndGet();
+
+        try {
+            browser.closeAll();
+        } catch (RuntimeException ignored) {
+            // Most likely already dead, which is why it is being destroyed.
+        }
+    }
+
+    /**
+     * The default reset: closes every window but the given browser's own, deletes all cookies, and
+     * navigates to about:blank. Closing other windows relies on the browser implementation's
+     * {@code equals} recognizing a reference to its own window; if it does not, the browser's own
+     * window will be closed too, and it will fail validation and be replaced.
+     */
+    public static void resetToBlank(Browser browser, Duration timeout) {
+        List<Browser> windows = browser.find()
+                .contextsOfType(Browser.class, By.url(Matchers.anything()));
+
+        if (windows.size() > 1) {
+            windows.stream()
+                    .filter(w -> !browser.equals(w))
+                    .forEach(Browser::close);
+        }
+
+        browser.cookies().deleteAll();
+        browser.open(BLANK_URL, new SimpleUrlView(BLANK_URL)).waitUpTo(timeout);
+    }
+
+    /**
+     * The default validation: the browser is valid if it can report its current URL.
+     */
+    public static boolean isResponsive(Browser browser) {
+        browser.getCurrentUrl();
+        return true;
+    }
+
+    private static class IdleBrowser {
+        final Browser browser;
+        final Instant since;
+
+        IdleBrowser(Browser browser, Instant since) {
+            this.browser = browser;
+            this.since = since;
+        }
+    }
+
+    private class PooledBrowser extends ForwardingBrowser {
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        PooledBrowser(Browser browser) {
+            super(browser);
+        }
+
+        @Override
+        protected Browser delegate() {
+            if (released.get()) {
+                throw new IllegalStateException("This browser has been returned to its pool. "
+                        + "Lease another with PooledBrowserFactory.newBrowser().");
+            }
+
+            return super.delegate();
+        }
+
+        /**
+         * Returns this browser to the pool instead of closing it.
+         */
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(super.delegate());
+            }
+        }
+
+        /**
+         * Returns this browser to the pool instead of closing it.
+         */
+        @Override
+        public void closeAll() {
+            close();
+        }
+    }
+
+    /**
+     * An immutable copy of a pool's counters at some point in time. Counts of events, like
+     * {@link #getCreated()}, are totals since the pool was built.
+     */
+    public static final class Metrics {
+        private final int maxSize;
+        private final int active;
+        private final int idle;
+        private final long created;
+        private final long destroyed;
+        private final long leased;
+        private final long returned;
+        private final long evicted;
+        private final long failedValidations;
+        private final long failedResets;
+        private final long timeouts;
+
+        Metrics(int maxSize, int active, int idle, long created, long destroyed, long leased,
+                long returned, long evicted, long failedValidations, long failedResets,
+                long timeouts) {
+            this.maxSize = maxSize;
+            this.active = active;
+            this.idle = idle;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.leased = leased;
+            this.returned = returned;
+            this.evicted = evicted;
+            this.failedValidations = failedValidations;
+            this.failedResets = failedResets;
+            this.timeouts = timeouts;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        /**
+         * @return The number of browsers currently leased, or being started to be leased.
+         */
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getDestroyed() {
+            return destroyed;
+        }
+
+        public long getLeased() {
+            return leased;
+        }
+
+        public long getReturned() {
+            return returned;
+        }
+
+        /**
+         * @return The number of browsers closed for being idle too long.
+         */
+        public long getEvicted() {
+            return evicted;
+        }
+
+        public long getFailedValidations() {
+            return failedValidations;
+        }
+
+        public long getFailedResets() {
+            return failedResets;
+        }
+
+        /**
+         * @return The number of calls to {@link PooledBrowserFactory#newBrowser()} which gave up
+         * waiting for a browser.
+         */
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * @return The fraction of leases which reused an existing browser rather than starting one.
+         */
+        public double getReuseRatio() {
+            return leased == 0 ? 0 : Math.max(0, leased - created) / (double) leased;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" +
+                    "maxSize=" + maxSize +
+                    ", active=" + active +
+                    ", idle=" + idle +
+                    ", created=" + created +
+                    ", destroyed=" + destroyed +
+                    ", leased=" + leased +
+                    ", returned=" + returned +
+                    ", evicted=" + evicted +
+                    ", failedValidations=" + failedValidations +
+                    ", failedResets=" + failedResets +
+                    ", timeouts=" + timeouts +
+                    '}';
+        }
+    }
+
+    public static class Builder {
+        private final BrowserFactory factory;
+        private int maxSize = Runtime.getRuntime().availableProcessors();
+        private int prewarm = 0;
+        private Duration maxIdleTime = Duration.ofMinutes(10);
+        private Duration maxWait = Duration.ofMinutes(5);
+        private Duration resetTimeout = Duration.ofSeconds(30);
+        private Predicate<Browser> validator = PooledBrowserFactory::isResponsive;
+        private Consumer<Browser> reset;
+        private Clock clock = Clock.systemUTC();
+
+        /**
+         * @param factory Starts the browsers that will be pooled.
+         */
+        public Builder(BrowserFactory factory) {
+            this.factory = Objects.requireNonNull(factory, "factory");
+        }
+
+        /**
+         * The most browsers that may exist at once, leased or idle. Defaults to the number of
+         * available processors.
+         */
+        public Builder maxSize(int maxSize) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("maxSize must be at least 1, was " + maxSize);
+            }
+
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * The number of browsers to start when the pool is built. Defaults to none.
+         */
+        public Builder prewarm(int count) {
+            this.prewarm = count;
+            return this;
+        }
+
+        /**
+         * How long a browser may be left idle before it is closed. Defaults to ten minutes.
+         */
+        public Builder maxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = Objects.requireNonNull(maxIdleTime, "maxIdleTime");
+            return this;
+        }
+
+        /**
+         * How long {@link PooledBrowserFactory#newBrowser()} may wait for a browser to be returned
+         * to a full pool. Defaults to five minutes.
+         */
+        public Builder maxWait(Duration maxWait) {
+            this.maxWait = Objects.requireNonNull(maxWait, "maxWait");
+            return this;
+        }
+
+        /**
+         * Tests whether an idle browser may be leased again. Browsers which fail, or throw, are
+         * closed. Defaults to {@link PooledBrowserFactory#isResponsive(Browser)}.
+         */
+        public Builder validateWith(Predicate<Browser> validator) {
+            this.validator = Objects.requireNonNull(validator, "validator");
+            return this;
+        }
+
+        /**
+         * Cleans up a browser as it is returned. Browsers for which this throws are closed.
+         * Defaults to {@link PooledBrowserFactory#resetToBlank(Browser, Duration)}.
+         */
+        public Builder resetWith(Consumer<Browser> reset) {
+            this.reset = Objects.requireNonNull(reset, "reset");
+            return this;
+        }
+
+        /**
+         * How long the default reset waits for about:blank to load.
+         */
+        public Builder resetTimeout(Duration resetTimeout) {
+            this.resetTimeout = Objects.requireNonNull(resetTimeout, "resetTimeout");
+            return this;
+        }
+
+        Builder clock(Clock clock) {
+            this.clock = Objects.requireNonNull(clock, "clock");
+            return this;
+        }
+
+        public PooledBrowserFactory build() {
+            if (reset == null) {
+                Duration timeout = resetTimeout;
+                reset = b -> resetToBlank(b, timeout);
+            }
+
+            PooledBrowserFactory pool = new PooledBrowserFactory(this);
+            pool.prewarm(Math.min(prewarm, maxSize));
+
+            return pool;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.DarcyException;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Decoding and encoding for the built in {@link ScreenshotTransform}s.
+ */
+final class ScreenshotImages {
+    private ScreenshotImages() {}
+
+    static BufferedImage read(byte[] screenshot) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(screenshot));
+
+            if (image == null) {
+                throw new DarcyException("Screenshot is not in a format that can be transformed.");
+            }
+
+            return image;
+        } catch (IOException e) {
+            throw new DarcyException("Could not read screenshot", e);
+        }
+    }
+
+    static byte[] write(BufferedImage image, String format, Float quality) {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+
+        if (!writers.hasNext()) {
+            throw new DarcyException("No image writer available for " + format);
+        }
+
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+
+            if (quality != null) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new DarcyException("Could not write screenshot as " + format, e);
+        } finally {
+            writer.dispose();
+        }
+
+        return bytes.toByteArray();
+    }
+}
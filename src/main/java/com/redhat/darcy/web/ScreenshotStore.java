@@ -0,0 +1,223 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.web.api.Browser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores each distinct screenshot once, named by the SHA-256 hash of its bytes, and makes every
+ * path a screenshot is requested at a hard link to that single copy. Identical screenshots, like
+ * the same error page captured by many failing tests, then cost one file's worth of disk, and only
+ * the first of them is written at all.
+ *
+ * <p>The store's directory holds the screenshots under "objects/", split into subdirectories by
+ * the first two characters of their hash, as git does. Objects are named by their hash alone,
+ * without the extension of any requested path, so identical screenshots requested as
+ * {@code a.png}, {@code b.PNG}, or {@code c} are stored once. Where a hard link cannot be made, for
+ * example because the requested path is on a different file system, a line of the form
+ * "&lt;hash&gt; &lt;requested path&gt;" is appended to the "manifest" file in the store's
+ * directory instead, and nothing is written at the requested path.
+ *
+ * <p>Because requested paths are links to shared files, writing over one in place, as opening
+ * it for writing with {@link Files#newOutputStream(Path, java.nio.file.OpenOption...)} does,
+ * modifies every screenshot with the same content, and the stored copy itself. Delete the path
+ * before writing a new file there. {@link Browser#takeScreenshot(Path)} and
+ * {@link ScreenshotWriter} both do.
+ */
+public class ScreenshotStore {
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path objects;
+    private final Path manifest;
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong manifested = new AtomicLong();
+
+    /**
+     * @param directory Where to keep screenshots. Created if it does not exist. Ideally on the
+     * same file system as the paths screenshots will be requested at, so they can be linked.
+     */
+    public ScreenshotStore(Path directory) {
+        this.objects = directory.resolve("objects");
+        this.manifest = directory.resolve("manifest");
+    }
+
+    /**
+     * Takes a screenshot from the browser, hashing it as it is read, and stores it.
+     *
+     * @see #store(byte[], Path)
+     */
+    public Path store(Browser browser, Path path) {
+        MessageDigest digest = newDigest();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        browser.takeScreenshot(new DigestOutputStream(bytes, digest));
+
+        return store(bytes.toByteArray(), hex(digest.digest()), path);
+    }
+
+    /**
+     * Stores the screenshot, unless an identical one is already stored, and links the requested
+     * path to it. Any nonexistent parent directories of the path are created, and any existing
+     * file at the path is replaced.
+     *
+     * @return The requested path if it could be linked, otherwise the path of the stored
+     * screenshot, which is also recorded against the requested path in the manifest.
+     */
+    public Path store(byte[] screenshot, Path path) {
+        MessageDigest digest = newDigest();
+
+        return store(screenshot, hex(digest.digest(screenshot)), path);
+    }
+
+    /**
+     * @return The number of distinct screenshots written to the store.
+     */
+    public long getStoredCount() {
+        return stored.get();
+    }
+
+    /**
+     * @return The number of screenshots which were not written because an identical one already
+     * was.
+     */
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    /**
+     * @return The number of requested paths which could not be linked, and were recorded in the
+     * manifest instead.
+     */
+    public long getManifestedCount() {
+        return manifested.get();
+    }
+
+    private Path store(byte[] screenshot, String hash, Path path) {
+        try {
+            Path object = writeObject(screenshot, hash);
+
+            if (link(object, path)) {
+                return path;
+            }
+
+            appendToManifest(hash, path);
+            return object;
+        } catch (IOException e) {
+            throw new DarcyException("Could not store screenshot for " + path, e);
+        }
+    }
+
+    private Path writeObject(byte[] screenshot, String hash) throws IOException {
+        Path directory = objects.resolve(hash.substring(0, 2));
+        Path object = directory.resolve(hash.substring(2));
+
+        if (Files.exists(object)) {
+            deduplicated.incrementAndGet();
+            return object;
+        }
+
+        Files.createDirectories(directory);
+
+        // Written aside and moved into place, so a concurrent store of the same screenshot never
+        // links to a partially written file.
+        Path temp = Files.createTempFile(directory, hash.substring(2, 8), ".tmp");
+
+        try {
+            Files.write(temp, screenshot);
+
+            try {
+                Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, object);
+            }
+
+            stored.incrementAndGet();
+        } catch (FileAlreadyExistsException e) {
+            deduplicated.incrementAndGet();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        return object;
+    }
+
+    private boolean link(Path object, Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        Files.deleteIfExists(path);
+
+        try {
+            Files.createLink(path, object);
+            return true;
+        } catch (UnsupportedOperationException | IOException e) {
+            return false;
+        }
+    }
+
+    private synchronized void appendToManifest(String hash, Path path) throws IOException {
+        Files.createDirectories(manifest.getParent());
+
+        try (Writer writer = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(hash + " " + path.toAbsolutePath() + "\n");
+        }
+
+        manifested.incrementAndGet();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new DarcyException("Every Java platform is required to support "
+                    + HASH_ALGORITHM, e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+
+        return new String(chars);
+    }
+}
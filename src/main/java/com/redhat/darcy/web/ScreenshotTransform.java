@@ -0,0 +1,102 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+/**
+ * Changes the bytes of a screenshot before {@link ScreenshotWriter} writes them, for example to
+ * make them smaller. Transforms run on the writer's background threads, not the thread which took
+ * the screenshot.
+ */
+@FunctionalInterface
+public interface ScreenshotTransform {
+    byte[] apply(byte[] screenshot);
+
+    default ScreenshotTransform andThen(ScreenshotTransform next) {
+        Objects.requireNonNull(next, "next");
+        return screenshot -> next.apply(apply(screenshot));
+    }
+
+    static ScreenshotTransform identity() {
+        return screenshot -> screenshot;
+    }
+
+    /**
+     * Scales screenshots by some factor, keeping them in PNG format.
+     *
+     * @param scale Between 0 (exclusive) and 1 to shrink screenshots.
+     */
+    static ScreenshotTransform downscale(double scale) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Scale must be greater than 0, was " + scale);
+        }
+
+        return screenshot -> {
+            BufferedImage image = ScreenshotImages.read(screenshot);
+            int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            return ScreenshotImages.write(scaled, "png", null);
+        };
+    }
+
+    /**
+     * Re-encodes screenshots as JPEGs, which are usually far smaller than the PNGs browsers take,
+     * at the cost of some clarity. Remember to give screenshot paths a ".jpg" extension.
+     *
+     * @param quality Between 0 and 1, where 1 is the best quality and largest file.
+     */
+    static ScreenshotTransform toJpeg(float quality) {
+        if (quality < 0 || quality > 1) {
+            throw new IllegalArgumentException("Quality must be between 0 and 1, was " + quality);
+        }
+
+        return screenshot -> {
+            BufferedImage image = ScreenshotImages.read(screenshot);
+
+            // JPEG has no alpha channel, so draw onto an opaque image first.
+            BufferedImage opaque = new BufferedImage(image.getWidth(), image.getHeight(),
+                    BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = opaque.createGraphics();
+
+            try {
+                graphics.drawImage(image, 0, 0, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            return ScreenshotImages.write(opaque, "jpeg", quality);
+        };
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.web.api.Browser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Takes screenshots on the calling thread, so that they show the browser as it was at the time,
+ * but transforms and writes them to disk on a small pool of background threads, so that the
+ * calling thread can carry on as soon as the browser has produced the image.
+ *
+ * <p>The number of screenshots waiting to be written is bounded. When the queue is full, the
+ * calling thread writes its own screenshot, which slows it down to the speed of the disk rather
+ * than letting screenshots pile up in memory.
+ *
+ * <pre><code>
+ *     ScreenshotWriter screenshots = new ScreenshotWriter.Builder()
+ *             .transform(ScreenshotTransform.downscale(0.5))
+ *             .build();
+ *
+ *     browser.takeScreenshot(Paths.get("failures", testName + ".png"), screenshots);
+ *     // ... and at the end of the run:
+ *     screenshots.close();
+ * </code></pre>
+ */
+public class ScreenshotWriter implements AutoCloseable {
+    private static final int INITIAL_BUFFER_SIZE = 256 * 1024;
+
+    private final ThreadPoolExecutor executor;
+    private final ScreenshotTransform transform;
+    private final ScreenshotStore store;
+
+    private ScreenshotWriter(Builder builder) {
+        this.transform = builder.transform;
+        this.store = builder.store;
+        this.executor = new ThreadPoolExecutor(builder.threads, builder.threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(builder.queueCapacity),
+                new WriterThreadFactory(),
+                new WriteInCallerWhenFull());
+    }
+
+    /**
+     * Takes a screenshot from the browser immediately, and queues it to be transformed and written
+     * to the path. Any nonexistent parent directories are created, and any existing file is
+     * replaced.
+     *
+     * @return A future which completes with the path once the screenshot is written, or
+     * exceptionally with a {@link DarcyException} if it could not be. If writing through a
+     * {@link ScreenshotStore}, the path is as returned by {@link ScreenshotStore#store(byte[],
+     * Path)}.
+     * @throws DarcyException if the screenshot could not be taken.
+     */
+    public CompletableFuture<Path> write(Browser browser, Path path) {
+        ByteArrayOutputStream screenshot = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        browser.takeScreenshot(screenshot);
+
+        return write(screenshot.toByteArray(), path);
+    }
+
+    /**
+     * Queues an already taken screenshot to be transformed and written to the path.
+     *
+     * @see #write(Browser, Path)
+     */
+    public CompletableFuture<Path> write(byte[] screenshot, Path path) {
+        Objects.requireNonNull(screenshot, "screenshot");
+        Objects.requireNonNull(path, "path");
+
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("Screenshot writer has been closed.");
+        }
+
+        CompletableFuture<Path> written = new CompletableFuture<>();
+
+        try {
+            executor.execute(() -> {
+                try {
+                    byte[] transformed = transform.apply(screenshot);
+
+                    written.complete(store == null
+                            ? writeNow(transformed, path)
+                            : store.store(transformed, path));
+                } catch (Throwable t) {
+                    written.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed since the check above; fail rather than leave the future incomplete.
+            written.completeExceptionally(new DarcyException("Screenshot writer was closed before "
+                    + "screenshot could be written to " + path, e));
+        }
+
+        return written;
+    }
+
+    /**
+     * @return The number of screenshots waiting to be written.
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting screenshots and waits up to the given duration for those already queued to
+     * be written.
+     *
+     * @return Whether every queued screenshot was written in time.
+     */
+    public boolean close(Duration timeout) {
+        executor.shutdown();
+
+        try {
+            return executor.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Stops accepting screenshots and waits for those already queued to be written.
+     */
+    @Override
+    public void close() {
+        close(Duration.ofNanos(Long.MAX_VALUE));
+    }
+
+    private static Path writeNow(byte[] screenshot, Path path) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+
+            // Replaced rather than truncated, in case the path is linked to a stored screenshot.
+            if (Files.isRegularFile(path)) {
+                Files.delete(path);
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(screenshot);
+
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+
+            return path;
+        } catch (IOException e) {
+            throw new DarcyException("Could not write screenshot to " + path, e);
+        }
+    }
+
+    /**
+     * Writes the screenshot on the calling thread when the queue is full, like
+     * {@link ThreadPoolExecutor.CallerRunsPolicy}, but rejects it outright once the writer is
+     * closed, instead of silently discarding it.
+     */
+    private static class WriteInCallerWhenFull implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable write, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Screenshot writer has been closed.");
+            }
+
+            write.run();
+        }
+    }
+
+    private static class WriterThreadFactory implements ThreadFactory {
+        private static final AtomicInteger writers = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable,
+                    "darcy-screenshot-writer-" + writers.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static class Builder {
+        private int threads = 1;
+        private int queueCapacity = 64;
+        private ScreenshotTransform transform = ScreenshotTransform.identity();
+        private ScreenshotStore store;
+
+        /**
+         * The number of threads to transform and write screenshots with. Defaults to 1, which is
+         * enough unless screenshots are transformed, since they are written to the same disk.
+         */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Must have at least 1 thread, was " + threads);
+            }
+
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * The most screenshots that may wait to be written before callers write their own.
+         * Defaults to 64.
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("Queue capacity must be at least 1, was "
+                        + queueCapacity);
+            }
+
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Applied to every screenshot before it is written. Defaults to
+         * {@link ScreenshotTransform#identity()}.
+         */
+        public Builder transform(ScreenshotTransform transform) {
+            this.transform = Objects.requireNonNull(transform, "transform");
+            return this;
+        }
+
+        /**
+         * Writes screenshots through the store, so that identical screenshots are only written
+         * once. Screenshots are deduplicated after they are transformed. By default, every
+         * screenshot is written to its own file.
+         */
+        public Builder store(ScreenshotStore store) {
+            this.store = Objects.requireNonNull(store, "store");
+            return this;
+        }
+
+        public ScreenshotWriter build() {
+            return new ScreenshotWriter(this);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import com.redhat.darcy.ui.DarcyException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The cookies of a browser session, which can be saved to disk and restored into another browser,
+ * so that a session logged in once can be shared by many browsers, or reused across runs.
+ *
+ * <pre><code>
+ *     // After logging in once:
+ *     browser.cookies().snapshot().writeTo(Paths.get("target/session"));
+ *
+ *     // In each worker, after opening a page on the same domain:
+ *     otherBrowser.cookies().restore(SessionSnapshot.readFrom(Paths.get("target/session")));
+ * </code></pre>
+ *
+ * <p>Snapshots are written in a small binary format: a header, then each cookie's fields in
+ * order. Cookie expiry is stored to the second, as {@link Cookie} keeps it.
+ */
+public final class SessionSnapshot {
+    private static final int MAGIC = 0x44534553; // "DSES"
+    private static final byte VERSION = 1;
+
+    private static final byte SECURE = 1;
+    private static final byte HTTP_ONLY = 1 << 1;
+
+    private final Set<Cookie> cookies;
+
+    private SessionSnapshot(Set<Cookie> cookies) {
+        this.cookies = cookies;
+    }
+
+    public static SessionSnapshot of(Collection<Cookie> cookies) {
+        return new SessionSnapshot(Collections.unmodifiableSet(
+                new LinkedHashSet<>(Objects.requireNonNull(cookies, "cookies"))));
+    }
+
+    public Set<Cookie> getCookies() {
+        return cookies;
+    }
+
+    public boolean isEmpty() {
+        return cookies.isEmpty();
+    }
+
+    /**
+     * @return The cookies which have no expiry, or which expire after the current time according
+     * to the clock. Expiry times are interpreted in the clock's zone.
+     */
+    public Set<Cookie> getUnexpiredCookies(Clock clock) {
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        return cookies.stream()
+                .filter(c -> c.getExpiry() == null || c.getExpiry().isAfter(now))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Writes the snapshot to the path, replacing any file already there. The file is written
+     * aside and moved into place, so that other processes reading it concurrently will see either
+     * the old snapshot or the new one, but never part of one.
+     */
+    public void writeTo(Path path) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    writeTo(out);
+                }
+
+                try {
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new DarcyException("Could not write session snapshot to " + path, e);
+        }
+    }
+
+    /**
+     * Writes the snapshot to the stream. The stream is flushed, but not closed.
+     */
+    public void writeTo(OutputStream outputStream) {
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(cookies.size());
+
+            for (Cookie cookie : cookies) {
+                out.writeUTF(cookie.getName());
+                out.writeUTF(cookie.getValue());
+                writeNullableUTF(out, cookie.getDomain());
+                out.writeUTF(cookie.getPath());
+
+                if (cookie.getExpiry() == null) {
+                    out.writeBoolean(false);
+                } else {
+                    out.writeBoolean(true);
+                    out.writeLong(cookie.getExpiry().toEpochSecond(ZoneOffset.UTC));
+                }
+
+                out.writeByte((cookie.isSecure() ? SECURE : 0)
+                        | (cookie.isHttpOnly() ? HTTP_ONLY : 0));
+            }
+
+            out.flush();
+        } catch (IOException e) {
+            throw new DarcyException("Could not write session snapshot", e);
+        }
+    }
+
+    public static SessionSnapshot readFrom(Path path) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            return readFrom(in);
+        } catch (IOException e) {
+            throw new DarcyException("Could not read session snapshot from " + path, e);
+        }
+    }
+
+    /**
+     * Reads a snapshot from the stream, which is not closed. Exactly the bytes of the snapshot are
+     * read, so anything following it in the stream is left to be read by the caller. Reading is
+     * unbuffered for the same reason; wrap the stream in a {@link BufferedInputStream} first if it
+     * is slow to read from a byte at a time.
+     *
+     * @throws DarcyException if the stream does not contain a snapshot in a known format.
+     */
+    public static SessionSnapshot readFrom(InputStream inputStream) {
+        try {
+            DataInputStream in = new DataInputStream(inputStream);
+
+            if (in.readInt() != MAGIC) {
+                throw new DarcyException("Not a session snapshot.");
+            }
+
+            byte version = in.readByte();
+
+            if (version != VERSION) {
+                throw new DarcyException("Unsupported session snapshot version: " + version);
+            }
+
+            int count = in.readInt();
+            List<Cookie> cookies = new ArrayList<>(Math.min(count, 1024));
+
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                String value = in.readUTF();
+                String domain = readNullableUTF(in);
+                String path = in.readUTF();
+                LocalDateTime expiry = in.readBoolean()
+                        ? LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC)
+                        : null;
+                byte flags = in.readByte();
+
+                cookies.add(new Cookie(name, value, domain, path, expiry,
+                        (flags & SECURE) != 0, (flags & HTTP_ONLY) != 0));
+            }
+
+            return of(cookies);
+        } catch (IOException e) {
+            throw new DarcyException("Could not read session snapshot", e);
+        }
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        return cookies.equals(((SessionSnapshot) o).cookies);
+    }
+
+    @Override
+    public int hashCode() {
+        return cookies.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "SessionSnapshot{" +
+                "cookies=" + cookies +
+                '}';
+    }
+}
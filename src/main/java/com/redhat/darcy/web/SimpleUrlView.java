@@ -21,12 +21,15 @@ package com.redhat.darcy.web;
 import com.redhat.darcy.ui.api.ElementContext;
 import com.redhat.darcy.ui.api.View;
 import com.redhat.darcy.ui.internal.Initializer;
-import com.redhat.darcy.util.ReflectionUtil;
 import com.redhat.darcy.web.api.Browser;
 import com.redhat.darcy.web.api.ViewUrl;
-import org.hamcrest.Matchers;
+import com.redhat.darcy.web.instrumentation.CallKind;
+import com.redhat.darcy.web.instrumentation.Instrumentation;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -38,8 +41,25 @@ import java.util.function.Predicate;
  */
 public class SimpleUrlView implements View, ViewUrl<SimpleUrlView> {
 
+    /**
+     * The declared fields of each view class and its superclasses, so that constructing a view
+     * does not walk its class hierarchy again. Fields are listed from the view's own class up.
+     */
+    private static final ClassValue<List<Field>> DECLARED_FIELDS = new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                fields.addAll(Arrays.asList(c.getDeclaredFields()));
+            }
+
+            return Collections.unmodifiableList(fields);
+        }
+    };
+
     private final String url;
-    private final Initializer initializer;
+    private Initializer initializer;
 
     private Predicate<String> matchCondition;
 
@@ -47,15 +67,18 @@ public class SimpleUrlView implements View, ViewUrl<SimpleUrlView> {
 
     public SimpleUrlView(String url) {
         this.url = url;
-        this.matchCondition = Matchers.equalTo(url)::matches;
-
-        List<Field> declaredFields = ReflectionUtil.getAllDeclaredFields(this);
-        initializer = new Initializer(this, declaredFields);
+        this.matchCondition = Predicate.isEqual(url);
     }
 
     @Override
     public void setContext(ElementContext context) {
         this.context = context;
+
+        // Created on first use, since many views are only constructed for their url().
+        if (initializer == null) {
+            initializer = new Initializer(this, declaredFields(getClass()));
+        }
+
         initializer.initializeFields(context);
 
         onSetContext();
@@ -77,7 +100,13 @@ public class SimpleUrlView implements View, ViewUrl<SimpleUrlView> {
      */
     @Override
     public boolean isLoaded() {
-        return matchCondition.test(getContext().getCurrentUrl());
+        long start = Instrumentation.start();
+
+        try {
+            return matchCondition.test(getContext().getCurrentUrl());
+        } finally {
+            Instrumentation.stop(CallKind.VIEW, getClass(), "isLoaded", start);
+        }
     }
 
     /**
@@ -102,6 +131,8 @@ public class SimpleUrlView implements View, ViewUrl<SimpleUrlView> {
      * Optional condition to verify the browser URL matches expected URL.
      *
      * This condition can be used if the actual URL is different from requested (eg. due to appended cookies or URL rewrites)
+     *
+     * A {@link UrlPattern} is a cheap condition to check on every poll.
      * @param matcher
      * @return
      */
@@ -109,4 +140,8 @@ public class SimpleUrlView implements View, ViewUrl<SimpleUrlView> {
         this.matchCondition = matcher;
         return this;
     }
+
+    static List<Field> declaredFields(Class<?> viewType) {
+        return DECLARED_FIELDS.get(viewType);
+    }
 }
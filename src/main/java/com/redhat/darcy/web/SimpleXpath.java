@@ -0,0 +1,204 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+/**
+ * Translates simple XPath expressions, like {@code ./tbody/tr[2]/td[3]}, to equivalent CSS
+ * selectors. Only element names (or {@code *}), the child and descendant axes, a position as the
+ * first predicate, and attribute presence or equality predicates are understood; anything else has
+ * no translation.
+ */
+final class SimpleXpath {
+    private final String xpath;
+    private int index;
+
+    private SimpleXpath(String xpath) {
+        this.xpath = xpath;
+    }
+
+    /**
+     * @param first Whether the expression is the first step of a chain, and so is evaluated from
+     * the document rather than from an element found by an earlier step.
+     * @return A selector which finds the same elements as the XPath, or null if there is none. A
+     * selector relative to the children of the context element starts with {@code >}.
+     */
+    static String toCss(String xpath, boolean first) {
+        return new SimpleXpath(xpath).translate(first);
+    }
+
+    private String translate(boolean first) {
+        StringBuilder css = new StringBuilder();
+
+        if (xpath.startsWith(".//")) {
+            index = 3;
+        } else if (xpath.startsWith("./")) {
+            // There is no selector for the children of the document itself.
+            if (first) {
+                return null;
+            }
+
+            css.append("> ");
+            index = 2;
+        } else if (xpath.startsWith("//") && first) {
+            index = 2;
+        } else {
+            return null;
+        }
+
+        if (!step(css)) {
+            return null;
+        }
+
+        while (index < xpath.length()) {
+            if (xpath.startsWith("//", index)) {
+                css.append(' ');
+                index += 2;
+            } else if (xpath.charAt(index) == '/') {
+                css.append(" > ");
+                index++;
+            } else {
+                return null;
+            }
+
+            if (!step(css)) {
+                return null;
+            }
+        }
+
+        return css.toString();
+    }
+
+    private boolean step(StringBuilder css) {
+        boolean any = index < xpath.length() && xpath.charAt(index) == '*';
+        String name = any ? "*" : name();
+
+        if (name == null) {
+            return false;
+        }
+
+        if (any) {
+            index++;
+        }
+
+        css.append(name);
+
+        boolean firstPredicate = true;
+
+        while (index < xpath.length() && xpath.charAt(index) == '[') {
+            int end = xpath.indexOf(']', index);
+
+            if (end == -1) {
+                return false;
+            }
+
+            String predicate = xpath.substring(index + 1, end);
+            index = end + 1;
+
+            if (firstPredicate && isPosition(predicate)) {
+                css.append(any ? ":nth-child(" : ":nth-of-type(").append(predicate).append(')');
+            } else if (!attribute(predicate, css)) {
+                return false;
+            }
+
+            firstPredicate = false;
+        }
+
+        return true;
+    }
+
+    private String name() {
+        int start = index;
+
+        while (index < xpath.length() && isNameChar(xpath.charAt(index), index == start)) {
+            index++;
+        }
+
+        return index == start ? null : xpath.substring(start, index);
+    }
+
+    private static boolean attribute(String predicate, StringBuilder css) {
+        if (!predicate.startsWith("@")) {
+            return false;
+        }
+
+        int equals = predicate.indexOf('=');
+        String name = equals == -1 ? predicate.substring(1) : predicate.substring(1, equals);
+
+        if (!isName(name)) {
+            return false;
+        }
+
+        if (equals == -1) {
+            css.append('[').append(name).append(']');
+            return true;
+        }
+
+        String quoted = predicate.substring(equals + 1);
+
+        if (quoted.length() < 2 || (quoted.charAt(0) != '\'' && quoted.charAt(0) != '"')
+                || quoted.charAt(quoted.length() - 1) != quoted.charAt(0)) {
+            return false;
+        }
+
+        String value = quoted.substring(1, quoted.length() - 1);
+
+        if (value.indexOf(quoted.charAt(0)) != -1) {
+            return false;
+        }
+
+        css.append('[').append(name).append("=\"")
+                .append(value.replace("\\", "\\\\").replace("\"", "\\\""))
+                .append("\"]");
+
+        return true;
+    }
+
+    private static boolean isPosition(String predicate) {
+        if (predicate.isEmpty() || predicate.charAt(0) == '0') {
+            return false;
+        }
+
+        for (int i = 0; i < predicate.length(); i++) {
+            if (!Character.isDigit(predicate.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            if (!isNameChar(name.charAt(i), i == 0)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isNameChar(char c, boolean first) {
+        return Character.isLetter(c) || c == '_' || (!first && (Character.isDigit(c) || c == '-'));
+    }
+}
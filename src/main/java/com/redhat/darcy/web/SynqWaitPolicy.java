@@ -0,0 +1,59 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static com.redhat.synq.Synq.after;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.redhat.darcy.web.api.WaitPolicy;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Waits using synq's default polling, up to a fixed timeout, after which a
+ * {@link com.redhat.synq.TimeoutException} is thrown.
+ */
+public class SynqWaitPolicy implements WaitPolicy {
+    private final Duration timeout;
+
+    public SynqWaitPolicy(Duration timeout) {
+        this.timeout = Objects.requireNonNull(timeout, "timeout");
+    }
+
+    @Override
+    public void await(Runnable action, BooleanSupplier condition, String description) {
+        after(action::run)
+                .expectCallTo(condition::getAsBoolean, equalTo(true))
+                .describedAs(description)
+                .waitUpTo(timeout);
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public String toString() {
+        return "SynqWaitPolicy{" +
+                "timeout=" + timeout +
+                '}';
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable, in-memory copy of an HTML table's headers, cell text, and (optionally) cell
+ * attributes, as read by {@link HtmlTable#snapshot(String...)}. A snapshot is read all at once, so
+ * querying it costs nothing further; however, it will not reflect any changes made to the table
+ * after it was read.
+ *
+ * <p>Cells are stored column by column, so scanning a column for some value is cheap. Like
+ * {@link HtmlTable#byRowColumn(int, int)}, row and column indexes start at 1. Rows with fewer cells
+ * than the widest row (or than there are headers) are padded with nulls.
+ */
+public final class TableSnapshot {
+    private final List<String> headers;
+    private final List<List<String>> columns;
+    private final Map<String, List<List<String>>> attributeColumns;
+    private final int rowCount;
+
+    private TableSnapshot(List<String> headers, List<List<String>> columns,
+            Map<String, List<List<String>>> attributeColumns, int rowCount) {
+        this.headers = headers;
+        this.columns = columns;
+        this.attributeColumns = attributeColumns;
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    /**
+     * @return The text of each header cell, from left to right. May be empty if the table has no
+     * header cells.
+     */
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @param colIndex Starting from the left, at 1.
+     * @return The text of the header cell for that column, or null if there is no such header.
+     */
+    public String getHeader(int colIndex) {
+        checkColumn(colIndex);
+
+        return colIndex <= headers.size() ? headers.get(colIndex - 1) : null;
+    }
+
+    /**
+     * @return The index of the first column whose header text is equal to {@code header}, starting
+     * from 1, or -1 if there is no such column.
+     */
+    public int indexOfHeader(String header) {
+        int index = headers.indexOf(header);
+
+        return index == -1 ? -1 : index + 1;
+    }
+
+    /**
+     * @param colIndex Starting from the left, at 1.
+     * @return The text of every cell in that column, from top to bottom.
+     */
+    public List<String> getColumn(int colIndex) {
+        checkColumn(colIndex);
+
+        return columns.get(colIndex - 1);
+    }
+
+    /**
+     * @return The text of every cell in the column with the given header, from top to bottom.
+     * @throws IllegalArgumentException if there is no column with that header.
+     */
+    public List<String> getColumn(String header) {
+        return getColumn(requireHeader(header));
+    }
+
+    /**
+     * @param rowIndex Starting from the top, at 1.
+     * @param colIndex Starting from the left, at 1.
+     * @return The text of the cell, or null if that row has no such cell.
+     */
+    public String getText(int rowIndex, int colIndex) {
+        checkRow(rowIndex);
+
+        return getColumn(colIndex).get(rowIndex - 1);
+    }
+
+    /**
+     * @param rowIndex Starting from the top, at 1.
+     * @param colIndex Starting from the left, at 1.
+     * @param attribute One of the attributes requested when this snapshot was read.
+     * @return The value of the attribute for that cell, or null if the cell does not have it.
+     * @throws IllegalArgumentException if the attribute was not read as part of this snapshot.
+     */
+    public String getAttribute(int rowIndex, int colIndex, String attribute) {
+        checkRow(rowIndex);
+        checkColumn(colIndex);
+
+        List<List<String>> attributeColumn = attributeColumns.get(attribute);
+
+        if (attributeColumn == null) {
+            throw new IllegalArgumentException("Attribute was not read as part of this snapshot: "
+                    + attribute + ". Read attributes were, " + attributeColumns.keySet());
+        }
+
+        return attributeColumn.get(colIndex - 1).get(rowIndex - 1);
+    }
+
+    /**
+     * @param rowIndex Starting from the top, at 1.
+     */
+    public Row getRow(int rowIndex) {
+        checkRow(rowIndex);
+
+        return new Row(rowIndex);
+    }
+
+    /**
+     * @return Every row in the table, from top to bottom.
+     */
+    public List<Row> getRows() {
+        return new AbstractList<Row>() {
+            @Override
+            public Row get(int index) {
+                return getRow(index + 1);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+
+    private int requireHeader(String header) {
+        int colIndex = indexOfHeader(header);
+
+        if (colIndex == -1) {
+            throw new IllegalArgumentException("No column found with header, " + header
+                    + ". Headers were, " + headers);
+        }
+
+        return colIndex;
+    }
+
+    private void checkRow(int rowIndex) {
+        if (rowIndex < 1 || rowIndex > rowCount) {
+            throw new IndexOutOfBoundsException("Row index must be between 1 and " + rowCount
+                    + "; was " + rowIndex + ".");
+        }
+    }
+
+    private void checkColumn(int colIndex) {
+        if (colIndex < 1 || colIndex > columns.size()) {
+            throw new IndexOutOfBoundsException("Column index must be between 1 and "
+                    + columns.size() + "; was " + colIndex + ".");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        TableSnapshot that = (TableSnapshot) o;
+
+        return rowCount == that.rowCount
+                && headers.equals(that.headers)
+                && columns.equals(that.columns)
+                && attributeColumns.equals(that.attributeColumns);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(headers, columns, attributeColumns, rowCount);
+    }
+
+    @Override
+    public String toString() {
+        return "TableSnapshot{" +
+                "headers=" + headers +
+                ", rowCount=" + rowCount +
+                ", columnCount=" + columns.size() +
+                ", attributes=" + attributeColumns.keySet() +
+                '}';
+    }
+
+    /**
+     * A view of one row of a {@link TableSnapshot}. Like the snapshot itself, reading from a row
+     * is purely local.
+     */
+    public final class Row {
+        private final int rowIndex;
+
+        private Row(int rowIndex) {
+            this.rowIndex = rowIndex;
+        }
+
+        /**
+         * @return The index of this row within its snapshot, starting from the top, at 1.
+         */
+        public int getIndex() {
+            return rowIndex;
+        }
+
+        /**
+         * @param colIndex Starting from the left, at 1.
+         */
+        public String getText(int colIndex) {
+            return TableSnapshot.this.getText(rowIndex, colIndex);
+        }
+
+        /**
+         * @throws IllegalArgumentException if there is no column with that header.
+         */
+        public String getText(String header) {
+            return getText(requireHeader(header));
+        }
+
+        /**
+         * @param colIndex Starting from the left, at 1.
+         */
+        public String getAttribute(int colIndex, String attribute) {
+            return TableSnapshot.this.getAttribute(rowIndex, colIndex, attribute);
+        }
+
+        /**
+         * @return The text of every cell in this row, from left to right.
+         */
+        public List<String> getCells() {
+            List<String> cells = new ArrayList<>(columns.size());
+
+            for (List<String> column : columns) {
+                cells.add(column.get(rowIndex - 1));
+            }
+
+            return Collections.unmodifiableList(cells);
+        }
+
+        @Override
+        public String toString() {
+            return "Row{" +
+                    "index=" + rowIndex +
+                    ", cells=" + getCells() +
+                    '}';
+        }
+    }
+
+    /**
+     * Collects a table row by row, and transposes it into columns when built. Used by
+     * implementations of {@link com.redhat.darcy.web.internal.ReadsTables} and by
+     * {@link HtmlTable} when the context cannot read tables in bulk.
+     */
+    public static class Builder {
+        private List<String> headers = Collections.emptyList();
+        private final List<List<String>> rows = new ArrayList<>();
+        private final List<Map<String, List<String>>> rowAttributes = new ArrayList<>();
+        private final List<String> attributes;
+
+        /**
+         * @param attributes The names of the attributes that will be read for each cell.
+         */
+        public Builder(List<String> attributes) {
+            this.attributes = new ArrayList<>(Objects.requireNonNull(attributes, "attributes"));
+        }
+
+        public Builder(String... attributes) {
+            this(Arrays.asList(attributes));
+        }
+
+        public Builder headers(List<String> headers) {
+            this.headers = new ArrayList<>(Objects.requireNonNull(headers, "headers"));
+            return this;
+        }
+
+        public Builder row(List<String> cells) {
+            return row(cells, Collections.emptyMap());
+        }
+
+        /**
+         * @param cells The text of each cell in the row, from left to right.
+         * @param attributes For each attribute name, the value of that attribute for each cell in
+         * the row, from left to right. Attributes that were not requested are ignored; requested
+         * attributes that are missing are treated as null for every cell.
+         */
+        public Builder row(List<String> cells, Map<String, List<String>> attributes) {
+            rows.add(new ArrayList<>(Objects.requireNonNull(cells, "cells")));
+            rowAttributes.add(new HashMap<>(Objects.requireNonNull(attributes, "attributes")));
+            return this;
+        }
+
+        public TableSnapshot build() {
+            int columnCount = headers.size();
+
+            for (List<String> row : rows) {
+                columnCount = Math.max(columnCount, row.size());
+            }
+
+            List<List<String>> columns = transpose(rows, columnCount);
+            Map<String, List<List<String>>> attributeColumns = new HashMap<>();
+
+            for (String attribute : attributes) {
+                List<List<String>> attributeRows = new ArrayList<>(rows.size());
+
+                for (Map<String, List<String>> row : rowAttributes) {
+                    attributeRows.add(row.getOrDefault(attribute, Collections.emptyList()));
+                }
+
+                attributeColumns.put(attribute, transpose(attributeRows, columnCount));
+            }
+
+            return new TableSnapshot(Collections.unmodifiableList(new ArrayList<>(headers)),
+                    columns, Collections.unmodifiableMap(attributeColumns), rows.size());
+        }
+
+        private static List<List<String>> transpose(List<List<String>> rows, int columnCount) {
+            List<List<String>> columns = new ArrayList<>(columnCount);
+
+            for (int col = 0; col < columnCount; col++) {
+                String[] column = new String[rows.size()];
+
+                for (int row = 0; row < rows.size(); row++) {
+                    List<String> cells = rows.get(row);
+                    column[row] = col < cells.size() ? cells.get(col) : null;
+                }
+
+                columns.add(Collections.unmodifiableList(Arrays.asList(column)));
+            }
+
+            return Collections.unmodifiableList(columns);
+        }
+    }
+}
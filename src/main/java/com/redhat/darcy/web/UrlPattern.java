@@ -0,0 +1,565 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A URL template, compiled once, which matches URLs by comparing them part by part rather than
+ * by evaluating a general purpose matcher. For example:
+ *
+ * <pre>
+ *     UrlPattern.compile("https://*.example.com/users/{id}/**?tab={tab}")
+ * </pre>
+ *
+ * <p>A template may have a scheme, host, port, path and query. Templates that start at the path,
+ * like {@code /users/{id}}, match URLs with any scheme, host and port. Within the host (split on
+ * '.') and the path (split on '/'), each segment may be:
+ *
+ * <ul>
+ *     <li>literal text, which must be equal to the URL's segment (ignoring case in the scheme and
+ *     host),</li>
+ *     <li>{@code *}, which matches any one segment,</li>
+ *     <li>{@code **}, which matches any number of segments, including none, or</li>
+ *     <li>{@code {name}}, which matches any one segment and captures it as a parameter.</li>
+ * </ul>
+ *
+ * <p>The port may be literal, {@code *}, or a parameter; if the template has no port, neither may
+ * the URL. Each query parameter in the template must be present in the URL, with a value that
+ * matches as a segment would; a parameter without a value need only be present. If the template
+ * has no query, the URL's query is ignored, as is any fragment. Parameters are captured as they
+ * appear in the URL; they are not decoded.
+ *
+ * <p>A UrlPattern is a {@link org.hamcrest.Matcher} and a {@link Predicate}, so it may be used
+ * with {@link By#url(org.hamcrest.Matcher)} or {@link SimpleUrlView#withMatcher(Predicate)}.
+ * Unlike most matchers, patterns with the same template are equal. The result of the last match
+ * is kept, so polling an unchanged URL does not split it again. Patterns are thread safe.
+ */
+public final class UrlPattern extends TypeSafeMatcher<String> implements Predicate<String> {
+    private static final Segment[] NO_SEGMENTS = new Segment[0];
+
+    private final String template;
+    private final Segment scheme;
+    private final Segment[] host;
+    private final Segment port;
+    private final Segment[] path;
+    private final String[] queryNames;
+    private final Segment[] queryValues;
+    private final boolean hasParameters;
+
+    private volatile LastMatch last;
+
+    private UrlPattern(String template, Segment scheme, Segment[] host, Segment port,
+            Segment[] path, String[] queryNames, Segment[] queryValues, boolean hasParameters) {
+        this.template = template;
+        this.scheme = scheme;
+        this.host = host;
+        this.port = port;
+        this.path = path;
+        this.queryNames = queryNames;
+        this.queryValues = queryValues;
+        this.hasParameters = hasParameters;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the template is malformed, like if a parameter is not
+     * closed, or the same parameter name is used twice.
+     */
+    public static UrlPattern compile(String template) {
+        Objects.requireNonNull(template, "template");
+
+        Parts parts = Parts.of(template);
+        Set<String> names = new HashSet<>();
+
+        if (!parts.hasPath(template)) {
+            throw new IllegalArgumentException("URL template must have a scheme and host, or "
+                    + "start with '/': " + template);
+        }
+
+        Segment scheme = null;
+        Segment[] host = NO_SEGMENTS;
+        Segment port = null;
+
+        if (parts.hasScheme()) {
+            scheme = Segment.of(template.substring(0, parts.schemeEnd), names, template);
+            host = Segment.all(template, parts.hostStart, segmentEnds(template, parts.hostStart,
+                    parts.hostEnd, '.'), names);
+
+            if (parts.portStart != -1) {
+                port = Segment.of(template.substring(parts.portStart, parts.pathStart), names,
+                        template);
+            }
+        }
+
+        Segment[] path = Segment.all(template, parts.pathSegmentsStart(),
+                parts.pathEnds(template), names);
+        String[] queryNames = null;
+        Segment[] queryValues = null;
+
+        if (parts.queryStart != -1) {
+            List<String> templateNames = new ArrayList<>();
+            List<Segment> templateValues = new ArrayList<>();
+            int param = parts.queryStart;
+
+            while (param < parts.end) {
+                int paramEnd = indexOf(template, '&', param, parts.end);
+                int equals = indexOf(template, '=', param, paramEnd);
+                String value = equals + 1 >= paramEnd
+                        ? "*"
+                        : template.substring(equals + 1, paramEnd);
+
+                templateNames.add(template.substring(param, equals));
+                templateValues.add(Segment.of(value, names, template));
+                param = paramEnd + 1;
+            }
+
+            queryNames = templateNames.toArray(new String[templateNames.size()]);
+            queryValues = templateValues.toArray(new Segment[templateValues.size()]);
+        }
+
+        return new UrlPattern(template, scheme, host, port, path, queryNames, queryValues,
+                !names.isEmpty());
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return The parameters captured from the URL, by name, if the URL matches this pattern.
+     * The map is empty if the template has no parameters.
+     */
+    public Optional<Map<String, String>> match(String url) {
+        return Optional.ofNullable(parameters(url));
+    }
+
+    @Override
+    public boolean test(String url) {
+        return parameters(url) != null;
+    }
+
+    @Override
+    protected boolean matchesSafely(String url) {
+        return test(url);
+    }
+
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("a URL matching ").appendValue(template);
+    }
+
+    private Map<String, String> parameters(String url) {
+        if (url == null) {
+            return null;
+        }
+
+        LastMatch last = this.last;
+
+        if (last != null && last.url.equals(url)) {
+            return last.parameters;
+        }
+
+        Map<String, String> parameters = matchParts(url);
+
+        this.last = new LastMatch(url, parameters);
+
+        return parameters;
+    }
+
+    /**
+     * Compares each part of the URL in place, without copying it, except to capture parameters.
+     *
+     * @return The captured parameters, or null if the URL does not match.
+     */
+    private Map<String, String> matchParts(String url) {
+        Parts parts = Parts.of(url);
+
+        if (!parts.hasPath(url)) {
+            return null;
+        }
+
+        Map<String, String> parameters = hasParameters ? new HashMap<>() : null;
+
+        if (scheme != null) {
+            if (!parts.hasScheme()
+                    || !scheme.matches(url, 0, parts.schemeEnd, true, parameters)
+                    || !matchAll(host, 0, url, parts.hostStart,
+                            segmentEnds(url, parts.hostStart, parts.hostEnd, '.'), 0, true,
+                            parameters)) {
+                return null;
+            }
+
+            if (port == null
+                    ? parts.portStart != -1
+                    : parts.portStart == -1
+                            || !port.matches(url, parts.portStart, parts.pathStart, false,
+                                    parameters)) {
+                return null;
+            }
+        }
+
+        if (!matchAll(path, 0, url, parts.pathSegmentsStart(), parts.pathEnds(url), 0, false,
+                parameters)) {
+            return null;
+        }
+
+        if (queryNames != null) {
+            if (parts.queryStart == -1) {
+                return null;
+            }
+
+            for (int i = 0; i < queryNames.length; i++) {
+                if (!matchParam(queryNames[i], queryValues[i], url, parts, parameters)) {
+                    return null;
+                }
+            }
+        }
+
+        return hasParameters
+                ? Collections.unmodifiableMap(parameters)
+                : Collections.<String, String>emptyMap();
+    }
+
+    /**
+     * Matches segments in order, backtracking only to try each length a {@code **} may span.
+     * Parameters captured along an abandoned path are left in place, but are overwritten by the
+     * path which finally matches, since each parameter name appears at most once.
+     *
+     * @param start The index of the first value segment in the URL.
+     * @param ends The index just past each value segment in the URL.
+     */
+    private static boolean matchAll(Segment[] segments, int from, String url, int start,
+            int[] ends, int valueFrom, boolean ignoreCase, Map<String, String> parameters) {
+        int v = valueFrom;
+
+        for (int i = from; i < segments.length; i++, v++) {
+            Segment segment = segments[i];
+
+            if (segment.kind == Kind.ANY_MANY) {
+                for (int skip = v; skip <= ends.length; skip++) {
+                    if (matchAll(segments, i + 1, url, start, ends, skip, ignoreCase,
+                            parameters)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+
+            if (v >= ends.length) {
+                return false;
+            }
+
+            int segmentStart = v == 0 ? start : ends[v - 1] + 1;
+
+            if (!segment.matches(url, segmentStart, ends[v], ignoreCase, parameters)) {
+                return false;
+            }
+        }
+
+        return v == ends.length;
+    }
+
+    /**
+     * Finds the first parameter in the URL's query with the given name, and matches its value.
+     */
+    private static boolean matchParam(String name, Segment value, String url, Parts parts,
+            Map<String, String> parameters) {
+        int param = parts.queryStart;
+
+        while (param < parts.end) {
+            int paramEnd = indexOf(url, '&', param, parts.end);
+            int nameEnd = param + name.length();
+
+            if (nameEnd <= paramEnd && url.startsWith(name, param)
+                    && (nameEnd == paramEnd || url.charAt(nameEnd) == '=')) {
+                int valueStart = nameEnd == paramEnd ? paramEnd : nameEnd + 1;
+
+                return value.matches(url, valueStart, paramEnd, false, parameters);
+            }
+
+            param = paramEnd + 1;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The index just past each segment between start and end, separated by the given
+     * character. There is always at least one segment, though it may be empty.
+     */
+    private static int[] segmentEnds(String string, int start, int end, char separator) {
+        int count = 1;
+
+        for (int i = start; i < end; i++) {
+            if (string.charAt(i) == separator) {
+                count++;
+            }
+        }
+
+        int[] ends = new int[count];
+        int segment = 0;
+
+        for (int i = start; i < end; i++) {
+            if (string.charAt(i) == separator) {
+                ends[segment++] = i;
+            }
+        }
+
+        ends[segment] = end;
+
+        return ends;
+    }
+
+    /**
+     * @return The index of the character between from and end, or end if there is none.
+     */
+    private static int indexOf(String string, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (string.charAt(i) == c) {
+                return i;
+            }
+        }
+
+        return end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        return template.equals(((UrlPattern) o).template);
+    }
+
+    @Override
+    public int hashCode() {
+        return template.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "UrlPattern{" +
+                "template='" + template + '\'' +
+                '}';
+    }
+
+    /**
+     * Where each part of a URL or template begins and ends, found by scanning it once. Parts
+     * which are missing have a start of -1.
+     */
+    private static final class Parts {
+        int schemeEnd = -1;
+        int hostStart = -1;
+        int hostEnd = -1;
+        int portStart = -1;
+        int pathStart;
+        int pathEnd;
+        int queryStart = -1;
+        int end;
+
+        static Parts of(String url) {
+            Parts parts = new Parts();
+            int fragment = url.indexOf('#');
+
+            parts.end = fragment == -1 ? url.length() : fragment;
+
+            int separator = url.indexOf("://");
+
+            if (separator > 0 && separator < parts.end && isScheme(url, separator)) {
+                int authorityStart = separator + 3;
+                int authorityEnd = authorityStart;
+
+                while (authorityEnd < parts.end && url.charAt(authorityEnd) != '/'
+                        && url.charAt(authorityEnd) != '?') {
+                    authorityEnd++;
+                }
+
+                int userInfo = lastIndexOf(url, '@', authorityStart, authorityEnd);
+
+                parts.schemeEnd = separator;
+                parts.hostStart = userInfo == -1 ? authorityStart : userInfo + 1;
+                parts.hostEnd = authorityEnd;
+
+                // Colons within an IPv6 address, like [::1], do not separate a port.
+                int colon = lastIndexOf(url, ':', parts.hostStart, authorityEnd);
+
+                if (colon > lastIndexOf(url, ']', parts.hostStart, authorityEnd)) {
+                    parts.hostEnd = colon;
+                    parts.portStart = colon + 1;
+                }
+
+                parts.pathStart = authorityEnd;
+            }
+
+            int query = indexOf(url, '?', parts.pathStart, parts.end);
+
+            parts.pathEnd = query;
+            parts.queryStart = query == parts.end ? -1 : query + 1;
+
+            return parts;
+        }
+
+        boolean hasScheme() {
+            return schemeEnd != -1;
+        }
+
+        /**
+         * A URL with a scheme may leave its path empty, which is the same as "/"; otherwise, the
+         * path must start with "/".
+         */
+        boolean hasPath(String url) {
+            return pathStart == pathEnd ? hasScheme() : url.charAt(pathStart) == '/';
+        }
+
+        /**
+         * @return The index of the first segment of the path, after its leading "/". An empty
+         * path has one empty segment, as "/" does.
+         */
+        int pathSegmentsStart() {
+            return pathStart == pathEnd ? pathEnd : pathStart + 1;
+        }
+
+        int[] pathEnds(String url) {
+            return segmentEnds(url, pathSegmentsStart(), pathEnd, '/');
+        }
+
+        private static int lastIndexOf(String string, char c, int start, int end) {
+            for (int i = end - 1; i >= start; i--) {
+                if (string.charAt(i) == c) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        private static boolean isScheme(String url, int end) {
+            for (int i = 0; i < end; i++) {
+                char c = url.charAt(i);
+
+                if (!Character.isLetterOrDigit(c) && c != '+' && c != '-' && c != '.') {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private enum Kind {
+        LITERAL, ANY, ANY_MANY, PARAMETER
+    }
+
+    private static final class Segment {
+        final Kind kind;
+        final String text;
+
+        private Segment(Kind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+
+        static Segment[] all(String template, int start, int[] ends, Set<String> names) {
+            Segment[] compiled = new Segment[ends.length];
+
+            for (int i = 0; i < compiled.length; i++) {
+                int segmentStart = i == 0 ? start : ends[i - 1] + 1;
+                compiled[i] = of(template.substring(segmentStart, ends[i]), names, template);
+            }
+
+            return compiled;
+        }
+
+        static Segment of(String segment, Set<String> names, String template) {
+            if (segment.equals("*")) {
+                return new Segment(Kind.ANY, segment);
+            }
+
+            if (segment.equals("**")) {
+                return new Segment(Kind.ANY_MANY, segment);
+            }
+
+            if (segment.startsWith("{")) {
+                if (!segment.endsWith("}") || segment.length() < 3) {
+                    throw new IllegalArgumentException("Malformed parameter, " + segment
+                            + ", in URL template: " + template);
+                }
+
+                String name = segment.substring(1, segment.length() - 1);
+
+                if (!names.add(name)) {
+                    throw new IllegalArgumentException("Parameter, " + name
+                            + ", is used more than once in URL template: " + template);
+                }
+
+                return new Segment(Kind.PARAMETER, name);
+            }
+
+            return new Segment(Kind.LITERAL, segment);
+        }
+
+        /**
+         * Matches the part of the URL between start and end. A {@code **} segment compared on its
+         * own matches like {@code *}; only matchAll lets it span segments.
+         *
+         * @param parameters Where to capture a parameter; null if the pattern has none.
+         */
+        boolean matches(String url, int start, int end, boolean ignoreCase,
+                Map<String, String> parameters) {
+            switch (kind) {
+                case LITERAL:
+                    return text.length() == end - start
+                            && url.regionMatches(ignoreCase, start, text, 0, text.length());
+                case PARAMETER:
+                    parameters.put(text, url.substring(start, end));
+                    return true;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    private static final class LastMatch {
+        final String url;
+        final Map<String, String> parameters;
+
+        LastMatch(String url, Map<String, String> parameters) {
+            this.url = url;
+            this.parameters = parameters;
+        }
+    }
+}
@@ -21,6 +21,9 @@ package com.redhat.darcy.web.api;
 
 import com.redhat.darcy.ui.DarcyException;
 import com.redhat.darcy.ui.api.View;
+import com.redhat.darcy.web.NavigationScheduler;
+import com.redhat.darcy.web.ScreenshotStore;
+import com.redhat.darcy.web.ScreenshotWriter;
 import com.redhat.synq.Event;
 
 import java.io.IOException;
@@ -29,6 +32,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Abstracts all of the interactions a user might make with a browser.
@@ -138,6 +142,117 @@ public interface Browser extends FindableWebContext {
      */
     <T extends View> Event<T> refresh(T destination);
 
+    /**
+     * Opens the URL without blocking, using the {@link NavigationScheduler#shared() shared}
+     * scheduler.
+     *
+     * @see #openAsync(ViewUrl, Duration, NavigationScheduler)
+     */
+    default <T extends View> CompletableFuture<T> openAsync(ViewUrl<T> viewUrl,
+            Duration timeout) {
+        return openAsync(viewUrl, timeout, NavigationScheduler.shared());
+    }
+
+    /**
+     * Opens the URL in the background, and waits for the associated
+     * {@link com.redhat.darcy.ui.api.View} to load without holding a thread in between checks.
+     * Useful to drive many browsers from one thread.
+     * <p>
+     * Unlike waiting on {@link #open(ViewUrl)}, only the destination's
+     * {@link com.redhat.darcy.ui.api.View#isLoaded()} is polled once the URL has been opened, so
+     * there is no way to add {@link Event#failIf(com.redhat.synq.Event)} clauses. The same goes
+     * for {@link #backAsync(View, Duration, NavigationScheduler)},
+     * {@link #forwardAsync(View, Duration, NavigationScheduler)}, and
+     * {@link #refreshAsync(View, Duration, NavigationScheduler)}.
+     *
+     * @return A future which completes with the view once it is loaded, or exceptionally if the
+     * URL could not be opened or the view did not load within the timeout.
+     * @see NavigationScheduler#navigate(Browser, Event, View, Duration)
+     */
+    default <T extends View> CompletableFuture<T> openAsync(ViewUrl<T> viewUrl, Duration timeout,
+            NavigationScheduler scheduler) {
+        return openAsync(viewUrl.url(), viewUrl.destination(), timeout, scheduler);
+    }
+
+    /**
+     * Opens the URL without blocking, using the {@link NavigationScheduler#shared() shared}
+     * scheduler.
+     *
+     * @see #openAsync(ViewUrl, Duration, NavigationScheduler)
+     */
+    default <T extends View> CompletableFuture<T> openAsync(String url, T destination,
+            Duration timeout) {
+        return openAsync(url, destination, timeout, NavigationScheduler.shared());
+    }
+
+    /**
+     * @see #openAsync(ViewUrl, Duration, NavigationScheduler)
+     */
+    default <T extends View> CompletableFuture<T> openAsync(String url, T destination,
+            Duration timeout, NavigationScheduler scheduler) {
+        return scheduler.navigate(this, open(url, destination), destination, timeout);
+    }
+
+    /**
+     * Navigates "back" in the Browser history without blocking, using the
+     * {@link NavigationScheduler#shared() shared} scheduler.
+     *
+     * @see #backAsync(View, Duration, NavigationScheduler)
+     */
+    default <T extends View> CompletableFuture<T> backAsync(T destination, Duration timeout) {
+        return backAsync(destination, timeout, NavigationScheduler.shared());
+    }
+
+    /**
+     * Navigates "back" in the Browser history in the background.
+     *
+     * @see #openAsync(ViewUrl, Duration, NavigationScheduler)
+     */
+    default <T extends View> CompletableFuture<T> backAsync(T destination, Duration timeout,
+            NavigationScheduler scheduler) {
+        return scheduler.navigate(this, back(destination), destination, timeout);
+    }
+
+    /**
+     * Navigates "forward" in the Browser history without blocking, using the
+     * {@link NavigationScheduler#shared() shared} scheduler.
+     *
+     * @see #forwardAsync(View, Duration, NavigationScheduler)
+     */
+    default <T extends View> CompletableFuture<T> forwardAsync(T destination, Duration timeout) {
+        return forwardAsync(destination, timeout, NavigationScheduler.shared());
+    }
+
+    /**
+     * Navigates "forward" in the Browser history in the background.
+     *
+     * @see #openAsync(ViewUrl, Duration, NavigationScheduler)
+     */
+    default <T extends View> CompletableFuture<T> forwardAsync(T destination, Duration timeout,
+            NavigationScheduler scheduler) {
+        return scheduler.navigate(this, forward(destination), destination, timeout);
+    }
+
+    /**
+     * Refreshes the browser without blocking, using the
+     * {@link NavigationScheduler#shared() shared} scheduler.
+     *
+     * @see #refreshAsync(View, Duration, NavigationScheduler)
+     */
+    default <T extends View> CompletableFuture<T> refreshAsync(T destination, Duration timeout) {
+        return refreshAsync(destination, timeout, NavigationScheduler.shared());
+    }
+
+    /**
+     * Refreshes the browser in the background.
+     *
+     * @see #openAsync(ViewUrl, Duration, NavigationScheduler)
+     */
+    default <T extends View> CompletableFuture<T> refreshAsync(T destination, Duration timeout,
+            NavigationScheduler scheduler) {
+        return scheduler.navigate(this, refresh(destination), destination, timeout);
+    }
+
     CookieManager cookies();
 
     void close();
@@ -160,7 +275,9 @@ public interface Browser extends FindableWebContext {
      * being used.
      * <p>
      * Any nonexistent directories included in the {@link Path} will be created.
-     * An exception will not be thrown if the directories already exist.
+     * An exception will not be thrown if the directories already exist. Any existing file at the
+     * path is deleted and replaced by a new one, rather than overwritten in place, so that a path
+     * linked to a screenshot in a {@link ScreenshotStore} does not change the stored copy.
      * @param path The {@link Path} of the desired file destination.
      */
     default void takeScreenshot(Path path) {
@@ -168,13 +285,42 @@ public interface Browser extends FindableWebContext {
             if (path.getParent() != null) {
                 Files.createDirectories(path.getParent());
             }
-            OutputStream fileOut = Files.newOutputStream(path);
-            takeScreenshot(fileOut);
+
+            if (Files.isRegularFile(path)) {
+                Files.delete(path);
+            }
+
+            try (OutputStream fileOut = Files.newOutputStream(path)) {
+                takeScreenshot(fileOut);
+            }
         } catch (IOException e) {
             throw new DarcyException("Could not take screenshot", e);
         }
     }
 
+    /**
+     * Takes a screenshot now, and hands it to the provided {@link ScreenshotWriter} to be written
+     * to the provided {@link Path} in the background, so the caller need not wait for the disk.
+     *
+     * @return A future which completes with the path once the screenshot has been written.
+     * @see ScreenshotWriter#write(Browser, Path)
+     */
+    default CompletableFuture<Path> takeScreenshot(Path path, ScreenshotWriter writer) {
+        return writer.write(this, path);
+    }
+
+    /**
+     * Takes a screenshot and stores it in the provided {@link ScreenshotStore}, which writes it
+     * only if an identical screenshot has not been stored before, and links the provided
+     * {@link Path} to the stored copy.
+     *
+     * @return The path the screenshot can be read from.
+     * @see ScreenshotStore#store(Browser, Path)
+     */
+    default Path takeScreenshot(Path path, ScreenshotStore store) {
+        return store.store(this, path);
+    }
+
     @Override
     WebSelection find();
 }
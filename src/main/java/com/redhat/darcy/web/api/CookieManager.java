@@ -20,20 +20,97 @@
 package com.redhat.darcy.web.api;
 
 import com.redhat.darcy.web.Cookie;
+import com.redhat.darcy.web.SessionSnapshot;
 
+import java.time.Clock;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public interface CookieManager{
     void add(Cookie cookie);
+
+    /**
+     * Adds every cookie in the collection. By default, this adds them one at a time;
+     * implementations should override this if the underlying browser can add many cookies in one
+     * operation.
+     */
+    default void addAll(Collection<Cookie> cookies) {
+        for (Cookie cookie : cookies) {
+            add(cookie);
+        }
+    }
+
     void delete(String name);
     default void delete(Cookie cookie) {
         delete(cookie.getName());
     }
+
+    /**
+     * Deletes the cookies with each of the given names, if they exist. By default, this deletes
+     * them one at a time; implementations should override this if the underlying browser can
+     * delete many cookies in one operation.
+     */
+    default void deleteAll(Collection<String> names) {
+        for (String name : names) {
+            delete(name);
+        }
+    }
+
     void deleteAll();
     Set<Cookie> getAll();
+
+    /**
+     * @return Every cookie which matches the predicate. By default, this reads all cookies at once
+     * and filters them locally, which is cheaper than calling {@link #get(String)} for each cookie
+     * of interest.
+     */
+    default Set<Cookie> getAll(Predicate<Cookie> predicate) {
+        return getAll().stream()
+                .filter(predicate)
+                .collect(Collectors.toSet());
+    }
+
     Optional<Cookie> get(String name);
     default Optional<Cookie> get(Cookie cookie) {
         return get(cookie.getName());
     }
+
+    /**
+     * @return A copy of every cookie, which can be saved and later restored with
+     * {@link #restore(SessionSnapshot)}, possibly into another browser.
+     */
+    default SessionSnapshot snapshot() {
+        return SessionSnapshot.of(getAll());
+    }
+
+    /**
+     * Adds every cookie in the snapshot which has not yet expired, according to the system clock.
+     *
+     * @see #restore(SessionSnapshot, Clock)
+     */
+    default void restore(SessionSnapshot snapshot) {
+        restore(snapshot, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Adds every cookie in the snapshot which has not yet expired, according to the given clock,
+     * with {@link #addAll(Collection)}. Cookies are validated before any are added, so either all
+     * unexpired cookies are restored or none are. As when adding any cookie, the browser must
+     * usually be on a page within each cookie's domain.
+     *
+     * @throws IllegalArgumentException if any unexpired cookie is invalid.
+     * @see Cookie#validate()
+     */
+    default void restore(SessionSnapshot snapshot, Clock clock) {
+        Set<Cookie> cookies = snapshot.getUnexpiredCookies(clock);
+
+        for (Cookie cookie : cookies) {
+            cookie.validate();
+        }
+
+        addAll(cookies);
+    }
 }
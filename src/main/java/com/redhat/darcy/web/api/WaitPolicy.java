@@ -0,0 +1,44 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.api;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Determines how long, and how often, to check for some expected condition after performing an
+ * action that should cause it, like a paginated table reaching the next page after its "next"
+ * button is clicked.
+ *
+ * @see com.redhat.darcy.web.SynqWaitPolicy
+ * @see com.redhat.darcy.web.PollingWaitPolicy
+ */
+@FunctionalInterface
+public interface WaitPolicy {
+    /**
+     * Performs the action, and then blocks until the condition is met.
+     *
+     * @param action The action expected to eventually cause the condition to be met.
+     * @param condition Checked repeatedly after the action is performed, until it returns true.
+     * @param description Describes the condition, for use in the exception thrown if it is never
+     * met.
+     * @throws RuntimeException if the condition is not met within the time allowed by this policy.
+     * The type of the exception depends on the implementation.
+     */
+    void await(Runnable action, BooleanSupplier condition, String description);
+}
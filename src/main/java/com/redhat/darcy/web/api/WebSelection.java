@@ -22,6 +22,7 @@ package com.redhat.darcy.web.api;
 import com.redhat.darcy.ui.api.ContextSelection;
 import com.redhat.darcy.ui.api.ElementSelection;
 import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.web.LocatorBatch;
 import com.redhat.darcy.web.api.elements.HtmlButton;
 import com.redhat.darcy.web.api.elements.HtmlCheckbox;
 import com.redhat.darcy.web.api.elements.HtmlDateInput;
@@ -60,6 +61,17 @@ public interface WebSelection extends ContextSelection, ElementSelection {
      */
     Alert alert();
 
+    /**
+     * Starts a batch of element lookups, which are resolved together. By default, lookups in the
+     * batch are simply resolved one at a time through this selection; implementations which can
+     * find elements for many locators in one operation should return a batch which does so.
+     *
+     * @see LocatorBatch
+     */
+    default LocatorBatch batch() {
+        return new LocatorBatch(this);
+    }
+
     default HtmlElement htmlElement(Locator locator) {
         return elementOfType(HtmlElement.class, locator);
     }
@@ -0,0 +1,49 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.instrumentation;
+
+/**
+ * What kind of call was measured, which determines what a call's name refers to.
+ */
+public enum CallKind {
+    /**
+     * A call to {@link com.redhat.darcy.ui.api.Locator#find} or
+     * {@link com.redhat.darcy.ui.api.Locator#findAll} on one of darcy-web's locators, named by
+     * locator type and method, like "ByCss.findAll".
+     */
+    LOCATOR,
+
+    /**
+     * A call to a {@link com.redhat.darcy.web.api.Browser} method, named by method, like
+     * "getCurrentUrl".
+     */
+    BROWSER,
+
+    /**
+     * A lookup through a {@link com.redhat.darcy.web.api.WebSelection}, named by the type of
+     * locator used, like "ByCss" or "ByXPath".
+     */
+    SELECTION,
+
+    /**
+     * Work done on behalf of a view, like checking whether it is loaded or navigating to it, named
+     * by the view's class and the work, like "com.example.StaffView#isLoaded".
+     */
+    VIEW
+}
@@ -0,0 +1,106 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.instrumentation;
+
+/**
+ * The switch for darcy-web's instrumentation. Instrumented code brackets each call with
+ * {@link #start()} and {@link #stop(CallKind, String, long)}:
+ *
+ * <pre><code>
+ *     long start = Instrumentation.start();
+ *
+ *     try {
+ *         return doTheCall();
+ *     } finally {
+ *         Instrumentation.stop(CallKind.LOCATOR, "ByCss.find", start);
+ *     }
+ * </code></pre>
+ *
+ * <p>When no {@link Recorder} is installed, that costs a volatile read and a comparison per call,
+ * and nothing is allocated.
+ */
+public final class Instrumentation {
+    private static final long DISABLED = Long.MIN_VALUE;
+
+    private static volatile Recorder recorder;
+
+    private Instrumentation() {}
+
+    /**
+     * Starts sending measurements to the given recorder, replacing any recorder already installed.
+     */
+    public static void install(Recorder recorder) {
+        if (recorder == null) {
+            throw new NullPointerException("recorder");
+        }
+
+        Instrumentation.recorder = recorder;
+    }
+
+    /**
+     * Stops measuring calls.
+     */
+    public static void uninstall() {
+        recorder = null;
+    }
+
+    public static boolean isEnabled() {
+        return recorder != null;
+    }
+
+    /**
+     * @return A start time to pass to {@link #stop(CallKind, String, long)}, or a sentinel meaning
+     * nothing should be recorded if instrumentation is disabled.
+     */
+    public static long start() {
+        return recorder == null ? DISABLED : System.nanoTime();
+    }
+
+    /**
+     * Records a call which began at {@code start}, as returned by {@link #start()}, unless
+     * instrumentation was disabled at the time, or has been since.
+     */
+    public static void stop(CallKind kind, String name, long start) {
+        if (start == DISABLED) {
+            return;
+        }
+
+        Recorder current = recorder;
+
+        if (current != null) {
+            current.record(kind, name, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Like {@link #stop(CallKind, String, long)}, for calls named by a type and an operation on it,
+     * like "com.example.StaffView#isLoaded". The name is only built if the call is recorded.
+     */
+    public static void stop(CallKind kind, Class<?> type, String operation, long start) {
+        if (start == DISABLED) {
+            return;
+        }
+
+        Recorder current = recorder;
+
+        if (current != null) {
+            current.record(kind, type.getName() + "#" + operation, System.nanoTime() - start);
+        }
+    }
+}
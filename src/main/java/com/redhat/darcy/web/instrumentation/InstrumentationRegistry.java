@@ -0,0 +1,100 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link Recorder} which keeps a count and latency histogram of every kind and name of call in
+ * memory, for reading back with {@link #getMetrics()} or exporting with {@link JsonExporter} or
+ * {@link JmxExporter}.
+ *
+ * <pre><code>
+ *     InstrumentationRegistry registry = new InstrumentationRegistry();
+ *     Instrumentation.install(registry);
+ *     // ... run tests ...
+ *     JsonExporter.write(registry, Files.newBufferedWriter(Paths.get("darcy-metrics.json")));
+ * </code></pre>
+ */
+public class InstrumentationRegistry implements Recorder {
+    private final Map<CallKind, ConcurrentHashMap<String, LatencyHistogram>> histograms =
+            new EnumMap<>(CallKind.class);
+
+    public InstrumentationRegistry() {
+        for (CallKind kind : CallKind.values()) {
+            histograms.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void record(CallKind kind, String name, long nanos) {
+        ConcurrentHashMap<String, LatencyHistogram> byName = histograms.get(kind);
+        LatencyHistogram histogram = byName.get(name);
+
+        if (histogram == null) {
+            histogram = byName.computeIfAbsent(name, n -> new LatencyHistogram());
+        }
+
+        histogram.record(nanos);
+    }
+
+    /**
+     * @return A snapshot of every call recorded so far, slowest in total first.
+     */
+    public List<MetricSnapshot> getMetrics() {
+        List<MetricSnapshot> metrics = new ArrayList<>();
+
+        for (Map.Entry<CallKind, ConcurrentHashMap<String, LatencyHistogram>> kind
+                : histograms.entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> name : kind.getValue().entrySet()) {
+                metrics.add(name.getValue().snapshot(kind.getKey(), name.getKey()));
+            }
+        }
+
+        metrics.sort(Comparator.comparingLong(MetricSnapshot::getTotalNanos).reversed());
+
+        return metrics;
+    }
+
+    /**
+     * @return Snapshots of the calls of one kind recorded so far, slowest in total first.
+     */
+    public List<MetricSnapshot> getMetrics(CallKind kind) {
+        List<MetricSnapshot> metrics = new ArrayList<>();
+
+        histograms.get(kind).forEach((name, histogram) ->
+                metrics.add(histogram.snapshot(kind, name)));
+
+        metrics.sort(Comparator.comparingLong(MetricSnapshot::getTotalNanos).reversed());
+
+        return metrics;
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        histograms.values().forEach(Map::clear);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.instrumentation;
+
+import com.redhat.darcy.ui.api.View;
+import com.redhat.darcy.web.ForwardingBrowser;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.ViewUrl;
+import com.redhat.darcy.web.api.WebSelection;
+import com.redhat.synq.Event;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Measures calls to another {@link Browser}, and to the {@link WebSelection}s it returns, while
+ * {@link Instrumentation} is enabled. Calls are recorded as {@link CallKind#BROWSER} by method
+ * name, except that opening a view and waiting for it is recorded as {@link CallKind#VIEW} by the
+ * view's class.
+ *
+ * <p>Methods which return an {@link Event}, like {@link #open(String, View)}, are counted when
+ * the event is created; the navigation itself happens when the event is waited on, so its latency
+ * is reflected in the view's "isLoaded" measurements and in the locators used to check it.
+ */
+public class InstrumentedBrowser extends ForwardingBrowser {
+    public InstrumentedBrowser(Browser delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public <T extends View> Event<T> open(String url, T destination) {
+        long start = Instrumentation.start();
+
+        try {
+            return super.open(url, destination);
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "open", start);
+        }
+    }
+
+    @Override
+    public <T extends View> T openAndWaitUpTo(ViewUrl<T> viewUrl, Duration duration) {
+        long start = Instrumentation.start();
+
+        try {
+            return super.openAndWaitUpTo(viewUrl, duration);
+        } finally {
+            Instrumentation.stop(CallKind.VIEW, viewUrl.destination().getClass(), "open", start);
+        }
+    }
+
+    @Override
+    public <T extends View> T openAndWaitUpTo(ViewUrl<T> viewUrl, Long amount, ChronoUnit unit) {
+        long start = Instrumentation.start();
+
+        try {
+            return super.openAndWaitUpTo(viewUrl, amount, unit);
+        } finally {
+            Instrumentation.stop(CallKind.VIEW, viewUrl.destination().getClass(), "open", start);
+        }
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        long start = Instrumentation.start();
+
+        try {
+            return super.getCurrentUrl();
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "getCurrentUrl", start);
+        }
+    }
+
+    @Override
+    public String getTitle() {
+        long start = Instrumentation.start();
+
+        try {
+            return super.getTitle();
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "getTitle", start);
+        }
+    }
+
+    @Override
+    public String getSource() {
+        long start = Instrumentation.start();
+
+        try {
+            return super.getSource();
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "getSource", start);
+        }
+    }
+
+    @Override
+    public <T extends View> Event<T> back(T destination) {
+        long start = Instrumentation.start();
+
+        try {
+            return super.back(destination);
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "back", start);
+        }
+    }
+
+    @Override
+    public <T extends View> Event<T> forward(T destination) {
+        long start = Instrumentation.start();
+
+        try {
+            return super.forward(destination);
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "forward", start);
+        }
+    }
+
+    @Override
+    public <T extends View> Event<T> refresh(T destination) {
+        long start = Instrumentation.start();
+
+        try {
+            return super.refresh(destination);
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "refresh", start);
+        }
+    }
+
+    @Override
+    public void close() {
+        long start = Instrumentation.start();
+
+        try {
+            super.close();
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "close", start);
+        }
+    }
+
+    @Override
+    public void closeAll() {
+        long start = Instrumentation.start();
+
+        try {
+            super.closeAll();
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "closeAll", start);
+        }
+    }
+
+    @Override
+    public void takeScreenshot(OutputStream outputStream) {
+        long start = Instrumentation.start();
+
+        try {
+            super.takeScreenshot(outputStream);
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "takeScreenshot", start);
+        }
+    }
+
+    @Override
+    public WebSelection find() {
+        return new InstrumentedWebSelection(super.find());
+    }
+
+    @Override
+    public boolean isPresent() {
+        long start = Instrumentation.start();
+
+        try {
+            return super.isPresent();
+        } finally {
+            Instrumentation.stop(CallKind.BROWSER, "isPresent", start);
+        }
+    }
+}
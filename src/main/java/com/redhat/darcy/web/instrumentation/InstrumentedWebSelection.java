@@ -0,0 +1,127 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.instrumentation;
+
+import com.redhat.darcy.ui.api.Context;
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.ui.api.elements.Element;
+import com.redhat.darcy.ui.api.elements.Findable;
+import com.redhat.darcy.web.LocatorBatch;
+import com.redhat.darcy.web.api.Alert;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.WebSelection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures lookups through another {@link WebSelection} as {@link CallKind#SELECTION}, named by the
+ * type of locator used, so that lookups by darcy-ui's locators are measured as well as darcy-web's.
+ * Browsers looked up through it are instrumented too.
+ */
+public class InstrumentedWebSelection implements WebSelection {
+    private static final ClassValue<String> LOCATOR_NAMES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+        }
+    };
+
+    private final WebSelection delegate;
+
+    public InstrumentedWebSelection(WebSelection delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public <T extends Element> T elementOfType(Class<T> type, Locator locator) {
+        long start = Instrumentation.start();
+
+        try {
+            return delegate.elementOfType(type, locator);
+        } finally {
+            Instrumentation.stop(CallKind.SELECTION, LOCATOR_NAMES.get(locator.getClass()), start);
+        }
+    }
+
+    @Override
+    public <T extends Element> List<T> elementsOfType(Class<T> type, Locator locator) {
+        long start = Instrumentation.start();
+
+        try {
+            return delegate.elementsOfType(type, locator);
+        } finally {
+            Instrumentation.stop(CallKind.SELECTION, LOCATOR_NAMES.get(locator.getClass()), start);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Context & Findable> T contextOfType(Class<T> type, Locator locator) {
+        long start = Instrumentation.start();
+
+        try {
+            T context = delegate.contextOfType(type, locator);
+
+            return type == Browser.class
+                    ? (T) new InstrumentedBrowser((Browser) context)
+                    : context;
+        } finally {
+            Instrumentation.stop(CallKind.SELECTION, LOCATOR_NAMES.get(locator.getClass()), start);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Context & Findable> List<T> contextsOfType(Class<T> type, Locator locator) {
+        long start = Instrumentation.start();
+
+        try {
+            List<T> contexts = delegate.contextsOfType(type, locator);
+
+            if (type != Browser.class) {
+                return contexts;
+            }
+
+            List<T> browsers = new ArrayList<>(contexts.size());
+
+            for (T context : contexts) {
+                browsers.add((T) new InstrumentedBrowser((Browser) context));
+            }
+
+            return browsers;
+        } finally {
+            Instrumentation.stop(CallKind.SELECTION, LOCATOR_NAMES.get(locator.getClass()), start);
+        }
+    }
+
+    /**
+     * Returns the delegate's own batch, so lookups can still be resolved together; the batch
+     * measures its resolution itself.
+     */
+    @Override
+    public LocatorBatch batch() {
+        return delegate.batch();
+    }
+
+    @Override
+    public Alert alert() {
+        return delegate.alert();
+    }
+}
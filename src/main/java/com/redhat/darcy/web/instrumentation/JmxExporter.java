@@ -0,0 +1,92 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.instrumentation;
+
+import com.redhat.darcy.ui.DarcyException;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes an {@link InstrumentationRegistry} as an MXBean, so its metrics can be watched live
+ * from JConsole, VisualVM, or any other JMX client while tests run.
+ */
+public final class JmxExporter {
+    public static final String DEFAULT_NAME = "com.redhat.darcy.web:type=Instrumentation";
+
+    private JmxExporter() {}
+
+    /**
+     * Registers the registry with the platform MBean server under {@link #DEFAULT_NAME}.
+     */
+    public static ObjectName register(InstrumentationRegistry registry) {
+        return register(registry, ManagementFactory.getPlatformMBeanServer(), DEFAULT_NAME);
+    }
+
+    public static ObjectName register(InstrumentationRegistry registry, MBeanServer server,
+            String name) {
+        try {
+            ObjectName objectName = new ObjectName(name);
+            server.registerMBean(new RegistryMXBean(registry), objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new DarcyException("Could not register instrumentation MXBean as " + name, e);
+        }
+    }
+
+    public static void unregister(MBeanServer server, ObjectName name) {
+        try {
+            server.unregisterMBean(name);
+        } catch (JMException e) {
+            throw new DarcyException("Could not unregister instrumentation MXBean " + name, e);
+        }
+    }
+
+    private static class RegistryMXBean implements InstrumentationMXBean {
+        private final InstrumentationRegistry registry;
+
+        RegistryMXBean(InstrumentationRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public List<MetricSnapshot> getMetrics() {
+            return registry.getMetrics();
+        }
+
+        @Override
+        public long getTotalCount() {
+            return registry.getMetrics().stream().mapToLong(MetricSnapshot::getCount).sum();
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return Instrumentation.isEnabled();
+        }
+
+        @Override
+        public void reset() {
+            registry.reset();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.instrumentation;
+
+import com.redhat.darcy.ui.DarcyException;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Dumps an {@link InstrumentationRegistry} as a JSON array with one object per kind and name of
+ * call, slowest in total first, like:
+ *
+ * <pre><code>
+ *     [{"kind":"LOCATOR","name":"ByCss.findAll","count":120,"totalNanos":...,"meanNanos":...,
+ *       "maxNanos":...,"p50Nanos":...,"p90Nanos":...,"p99Nanos":...}, ...]
+ * </code></pre>
+ */
+public final class JsonExporter {
+    private JsonExporter() {}
+
+    public static String toJson(InstrumentationRegistry registry) {
+        StringWriter writer = new StringWriter();
+        write(registry, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Writes the registry's metrics to the writer, and closes it.
+     */
+    public static void write(InstrumentationRegistry registry, Writer writer) {
+        List<MetricSnapshot> metrics = registry.getMetrics();
+
+        try (Writer out = writer) {
+            out.write('[');
+
+            for (int i = 0; i < metrics.size(); i++) {
+                MetricSnapshot metric = metrics.get(i);
+
+                if (i > 0) {
+                    out.write(',');
+                }
+
+                out.write("{\"kind\":");
+                writeString(out, metric.getKind().name());
+                out.write(",\"name\":");
+                writeString(out, metric.getName());
+                out.write(",\"count\":" + metric.getCount());
+                out.write(",\"totalNanos\":" + metric.getTotalNanos());
+                out.write(",\"meanNanos\":" + metric.getMeanNanos());
+                out.write(",\"maxNanos\":" + metric.getMaxNanos());
+                out.write(",\"p50Nanos\":" + metric.getP50Nanos());
+                out.write(",\"p90Nanos\":" + metric.getP90Nanos());
+                out.write(",\"p99Nanos\":" + metric.getP99Nanos());
+                out.write('}');
+            }
+
+            out.write(']');
+        } catch (IOException e) {
+            throw new DarcyException("Could not write instrumentation metrics.", e);
+        }
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+
+        out.write('"');
+    }
+}
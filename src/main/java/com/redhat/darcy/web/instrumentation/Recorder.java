@@ -0,0 +1,38 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.instrumentation;
+
+/**
+ * Receives measurements of calls from instrumented code. Install one with
+ * {@link Instrumentation#install(Recorder)}. {@link InstrumentationRegistry} keeps them in memory;
+ * implement this to send them anywhere else.
+ *
+ * <p>Recorders are called synchronously, on the thread which made the call, and possibly from
+ * many threads at once, so implementations must be thread safe and should be fast.
+ */
+@FunctionalInterface
+public interface Recorder {
+    /**
+     * @param kind What kind of call was measured.
+     * @param name Which call of that kind was measured. See {@link CallKind} for how each kind is
+     * named.
+     * @param nanos How long the call took, in nanoseconds.
+     */
+    void record(CallKind kind, String name, long nanos);
+}
@@ -23,6 +23,7 @@ import com.redhat.darcy.ui.api.Context;
 import com.redhat.darcy.ui.api.Locator;
 import com.redhat.darcy.ui.api.elements.Findable;
 import com.redhat.darcy.ui.internal.DefaultElementSelection;
+import com.redhat.darcy.web.LocatorBatch;
 import com.redhat.darcy.web.api.Alert;
 import com.redhat.darcy.web.api.WebContext;
 import com.redhat.darcy.web.api.WebSelection;
@@ -49,6 +50,15 @@ public abstract class AbstractWebSelection extends DefaultElementSelection imple
         return locator.findAll(contextType, webContext);
     }
 
+    /**
+     * @return A batch which resolves CSS, tag, and class name lookups together if the context
+     * implements {@link FindsInBatch}.
+     */
+    @Override
+    public LocatorBatch batch() {
+        return new LocatorBatch(this, webContext);
+    }
+
     @Override
     public abstract Alert alert();
 }
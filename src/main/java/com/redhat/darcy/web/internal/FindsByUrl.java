@@ -23,6 +23,10 @@ import org.hamcrest.Matcher;
 
 import java.util.List;
 
+/**
+ * Implemented by contexts that can find windows by their URL. Implementations with many windows
+ * open can use a {@link WindowUrlIndex} to avoid switching to every window to read its URL.
+ */
 public interface FindsByUrl {
     <T> List<T> findAllByUrl(Class<T> type, Matcher<? super String> url);
     <T> T findByUrl(Class<T> type, Matcher<? super String> url);
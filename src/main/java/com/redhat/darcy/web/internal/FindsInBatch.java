@@ -0,0 +1,83 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web.internal;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Implemented by contexts that can find the elements for several CSS selectors in a single
+ * operation, instead of one round trip per selector. Used by
+ * {@link com.redhat.darcy.web.LocatorBatch#resolve()} when available.
+ */
+public interface FindsInBatch {
+    /**
+     * Finds every element matching each query's selector, in one operation.
+     *
+     * @return For each query, in order, the elements found, of the query's type, as
+     * {@link FindsByCss#findAllByCss(Class, String)} would return them. Empty if none were found.
+     */
+    List<List<?>> findAllInBatch(List<CssQuery<?>> queries);
+
+    final class CssQuery<T> {
+        private final Class<T> type;
+        private final String css;
+
+        public CssQuery(Class<T> type, String css) {
+            this.type = Objects.requireNonNull(type, "type");
+            this.css = Objects.requireNonNull(css, "css");
+        }
+
+        public Class<T> getType() {
+            return type;
+        }
+
+        public String getCss() {
+            return css;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            CssQuery<?> that = (CssQuery<?>) o;
+
+            return type.equals(that.type) && css.equals(that.css);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, css);
+        }
+
+        @Override
+        public String toString() {
+            return "CssQuery{" +
+                    "type=" + type.getSimpleName() +
+                    ", css='" + css + '\'' +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web.internal;
+
+import com.redhat.darcy.web.TableSnapshot;
+import com.redhat.darcy.web.api.elements.HtmlElement;
+
+import java.util.List;
+
+/**
+ * Implemented by contexts that can read an entire HTML table in a single operation, instead of
+ * locating each row and cell individually. Used by
+ * {@link com.redhat.darcy.web.HtmlTable#snapshot(String...)} when available.
+ */
+public interface ReadsTables {
+    /**
+     * Reads the headers, the text of every cell, and the given attributes of every cell of a
+     * {@code <table>}, in one operation.
+     *
+     * <p>Headers are the {@code <th>} cells of the first row of the {@code <thead>} if present,
+     * otherwise of the first row of the table. Rows are the {@code <tr>} children of the
+     * {@code <tbody>} if present, otherwise of the table, and cells are the {@code <td>} children
+     * of each row. This matches the structure {@link com.redhat.darcy.web.HtmlTable} assumes when
+     * locating individual cells.
+     *
+     * @param table The {@code <table>} element to read.
+     * @param attributes Names of attributes to read from every cell; may be empty.
+     */
+    TableSnapshot readTable(HtmlElement table, List<String> attributes);
+}
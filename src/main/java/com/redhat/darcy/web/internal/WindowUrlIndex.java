@@ -0,0 +1,202 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web.internal;
+
+import org.hamcrest.Matcher;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The last known URL of each of a browser's open windows, for implementations of
+ * {@link FindsByUrl} which would otherwise have to switch to every window to read its URL. A
+ * window is only switched to if its last known URL matches, to confirm it, or if what is known
+ * about it may be out of date.
+ *
+ * <p>Windows are identified by whatever handle the implementation uses, like a WebDriver window
+ * handle. Implementations should {@link #record(Object, String) record} a window's URL whenever
+ * they learn it, such as after navigating that window, and {@link #forget(Object) forget}
+ * windows they close. Windows which are found to be closed during a lookup are forgotten
+ * automatically.
+ *
+ * <p>A page can navigate its own window at any time, so what is known about a window that does
+ * not match may be wrong. Both {@link #find(Collection, Matcher, Function)} and
+ * {@link #findAll(Collection, Matcher, Function)} therefore also read windows whose URL was
+ * recorded longer ago than the index's maximum age, but trust younger URLs which do not match,
+ * and so do not read those windows at all. The maximum age defaults to
+ * {@link #DEFAULT_MAX_AGE two seconds}, so a window which navigates itself is found at most that
+ * long after it does, as when the lookup is retried while waiting for the window. A maximum age of
+ * zero reads every window which does not already appear to match, on every lookup.
+ *
+ * @param <H> The type of window handle.
+ */
+public class WindowUrlIndex<H> {
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofSeconds(2);
+
+    private final Map<H, Entry> entries = new ConcurrentHashMap<>();
+    private final Duration maxAge;
+    private final Clock clock;
+
+    public WindowUrlIndex() {
+        this(DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * @param maxAge How long a recorded URL that does not match may be trusted, without reading
+     * the window's URL again.
+     */
+    public WindowUrlIndex(Duration maxAge) {
+        this(maxAge, Clock.systemUTC());
+    }
+
+    public WindowUrlIndex(Duration maxAge, Clock clock) {
+        this.maxAge = Objects.requireNonNull(maxAge, "maxAge");
+        this.clock = Objects.requireNonNull(clock, "clock");
+
+        if (maxAge.isNegative()) {
+            throw new IllegalArgumentException("maxAge must not be negative, but was " + maxAge);
+        }
+    }
+
+    /**
+     * Records the URL a window is known, or expected, to be at.
+     */
+    public void record(H handle, String url) {
+        entries.put(Objects.requireNonNull(handle, "handle"),
+                new Entry(Objects.requireNonNull(url, "url"), clock.instant()));
+    }
+
+    public void forget(H handle) {
+        entries.remove(handle);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Optional<String> getLastKnownUrl(H handle) {
+        Entry entry = entries.get(handle);
+
+        return entry == null ? Optional.empty() : Optional.of(entry.url);
+    }
+
+    /**
+     * Finds a window whose URL matches, trying windows whose last known URL matches first, and
+     * then those whose URL is unknown or older than the maximum age.
+     *
+     * @param open The handles of every open window, in the order they should be tried.
+     * @param url The URL to look for.
+     * @param currentUrl Switches to the window with the given handle, and reads its current URL.
+     * Each URL read is recorded.
+     */
+    public Optional<H> find(Collection<H> open, Matcher<? super String> url,
+            Function<H, String> currentUrl) {
+        retain(open);
+
+        Instant now = clock.instant();
+        Set<H> tried = new HashSet<>();
+
+        for (H handle : open) {
+            Entry entry = entries.get(handle);
+
+            if (entry != null && url.matches(entry.url)) {
+                tried.add(handle);
+
+                if (url.matches(read(handle, currentUrl))) {
+                    return Optional.of(handle);
+                }
+            }
+        }
+
+        for (H handle : open) {
+            if (!tried.contains(handle) && isUnknownOrStale(entries.get(handle), now)
+                    && url.matches(read(handle, currentUrl))) {
+                return Optional.of(handle);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Finds every window whose URL matches, reading only those windows whose last known URL
+     * matches, is unknown, or is older than the maximum age.
+     *
+     * @param open The handles of every open window. Matches are returned in the same order.
+     * @param url The URL to look for.
+     * @param currentUrl Switches to the window with the given handle, and reads its current URL.
+     * Each URL read is recorded.
+     */
+    public List<H> findAll(Collection<H> open, Matcher<? super String> url,
+            Function<H, String> currentUrl) {
+        retain(open);
+
+        Instant now = clock.instant();
+        List<H> found = new ArrayList<>();
+
+        for (H handle : open) {
+            Entry entry = entries.get(handle);
+            boolean mayMatch = isUnknownOrStale(entry, now) || url.matches(entry.url);
+
+            if (mayMatch && url.matches(read(handle, currentUrl))) {
+                found.add(handle);
+            }
+        }
+
+        return found;
+    }
+
+    private boolean isUnknownOrStale(Entry entry, Instant now) {
+        return entry == null || !entry.recordedAt.plus(maxAge).isAfter(now);
+    }
+
+    private String read(H handle, Function<H, String> currentUrl) {
+        String url = currentUrl.apply(handle);
+
+        record(handle, url);
+
+        return url;
+    }
+
+    private void retain(Collection<H> open) {
+        entries.keySet().retainAll(open instanceof Set ? open : new HashSet<>(open));
+    }
+
+    private static final class Entry {
+        final String url;
+        final Instant recordedAt;
+
+        Entry(String url, Instant recordedAt) {
+            this.url = url;
+            this.recordedAt = recordedAt;
+        }
+    }
+}
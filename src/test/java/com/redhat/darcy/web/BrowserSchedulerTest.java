@@ -0,0 +1,269 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.stubs.FakeBrowser;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@RunWith(JUnit4.class)
+public class BrowserSchedulerTest {
+    private final List<FakeBrowser> started = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BrowserScheduler scheduler;
+
+    @After
+    public void closeScheduler() {
+        release.countDown();
+
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    public void shouldReturnResultsInWorkflowOrder() {
+        scheduler = newScheduler().browsers(3).build();
+        List<Function<Browser, Integer>> workflows = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            int result = i;
+            workflows.add(browser -> result);
+        }
+
+        List<Integer> results = scheduler.invokeAll(workflows);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Integer.valueOf(i), results.get(i));
+        }
+    }
+
+    @Test
+    public void shouldRunWorkflowsConcurrentlyInSeparateBrowsers() throws Exception {
+        scheduler = newScheduler().browsers(3).build();
+        CountDownLatch allRunning = new CountDownLatch(3);
+        List<CompletableFuture<Browser>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            futures.add(scheduler.submit(browser -> {
+                allRunning.countDown();
+                await(allRunning);
+                return browser;
+            }));
+        }
+
+        assertTrue("Expected all workflows to run at once",
+                allRunning.await(5, TimeUnit.SECONDS));
+        assertEquals(3, futures.stream().map(CompletableFuture::join).distinct().count());
+    }
+
+    @Test
+    public void shouldRunWorkflowsWithSameAffinityKeyInSameBrowser() {
+        scheduler = newScheduler().browsers(4).build();
+        List<CompletableFuture<Browser>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            futures.add(scheduler.submit("session", browser -> browser));
+        }
+
+        Browser first = futures.get(0).join();
+
+        for (CompletableFuture<Browser> future : futures) {
+            assertSame(first, future.join());
+        }
+    }
+
+    @Test
+    public void shouldStealQueuedWorkFromBusyWorkers() throws Exception {
+        scheduler = newScheduler().browsers(2).build();
+        scheduler.submit(browser -> await(release));
+        List<CompletableFuture<Boolean>> quick = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            quick.add(scheduler.submit(browser -> true));
+        }
+
+        for (CompletableFuture<Boolean> future : quick) {
+            assertTrue(future.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void shouldThrowDarcyExceptionWhenAtCapacityPastSubmitTimeout() {
+        scheduler = newScheduler()
+                .browsers(1)
+                .maxPending(1)
+                .submitTimeout(Duration.ofMillis(10))
+                .build();
+
+        scheduler.submit(browser -> await(release));
+
+        try {
+            scheduler.submit(browser -> true);
+            fail("Expected DarcyException");
+        } catch (DarcyException expected) {
+            assertEquals(1, scheduler.getPendingCount());
+        }
+    }
+
+    @Test
+    public void shouldCompleteFutureExceptionallyWhenWorkflowThrows() throws Exception {
+        scheduler = newScheduler().browsers(1).build();
+        RuntimeException cause = new RuntimeException("Workflow failed");
+
+        CompletableFuture<Object> future = scheduler.submit(browser -> { throw cause; });
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertSame(cause, e.getCause());
+        }
+
+        assertTrue("Expected worker to keep running",
+                scheduler.submit(browser -> true).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldReplaceBrowserClosedByWorkflow() throws Exception {
+        scheduler = newScheduler().browsers(1).build();
+
+        scheduler.submit(browser -> {
+            browser.close();
+            return true;
+        }).get(5, TimeUnit.SECONDS);
+
+        Browser next = scheduler.submit(browser -> browser).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, started.size());
+        assertSame(started.get(1), next);
+        assertFalse(started.get(1).isClosed());
+    }
+
+    @Test
+    public void shouldReplaceBrowserLostByFailedWorkflowEvenWithAffinity() throws Exception {
+        scheduler = newScheduler().browsers(1).build();
+
+        CompletableFuture<Object> failed = scheduler.submit("session", browser -> {
+            browser.closeAll();
+            throw new IllegalStateException("Browser crashed");
+        });
+
+        Boolean present = scheduler.submit("session", Browser::isPresent)
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertTrue(present);
+        assertEquals(2, started.size());
+    }
+
+    @Test
+    public void shouldKeepBrowserWhichIsStillPresentAfterWorkflowThrows() throws Exception {
+        scheduler = newScheduler().browsers(1).build();
+
+        CompletableFuture<Object> failed = scheduler.submit(browser -> {
+            throw new IllegalStateException("Workflow failed");
+        });
+        Browser next = scheduler.submit(browser -> browser).get(5, TimeUnit.SECONDS);
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertSame(started.get(0), next);
+        assertEquals(1, started.size());
+    }
+
+    @Test
+    public void shouldNotBlockSubmittingFromInsideWorkflowAtCapacity() throws Exception {
+        scheduler = newScheduler()
+                .browsers(1)
+                .maxPending(1)
+                .submitTimeout(Duration.ofMinutes(5))
+                .build();
+
+        CompletableFuture<String> outer = scheduler.submit(browser -> {
+            try {
+                scheduler.submit(inner -> true);
+                return "submitted";
+            } catch (DarcyException e) {
+                return "rejected";
+            }
+        });
+
+        assertEquals("rejected", outer.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldFinishSubmittedWorkAndCloseBrowsersWhenClosed() {
+        scheduler = newScheduler().browsers(2).build();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            futures.add(scheduler.submit(browser -> true));
+        }
+
+        scheduler.close();
+
+        futures.forEach(f -> assertTrue(f.isDone()));
+        started.forEach(b -> assertTrue("Expected browser to be closed", b.isClosed()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAcceptWorkAfterBeingClosed() {
+        scheduler = newScheduler().browsers(1).build();
+        scheduler.close();
+
+        scheduler.submit(browser -> true);
+    }
+
+    private BrowserScheduler.Builder newScheduler() {
+        return new BrowserScheduler.Builder(() -> {
+            FakeBrowser browser = new FakeBrowser();
+            started.add(browser);
+            return browser;
+        });
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
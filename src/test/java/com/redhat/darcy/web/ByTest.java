@@ -0,0 +1,83 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ByTest {
+    @Test
+    public void shouldCanonicalizeCssWhitespaceAndCombinators() {
+        assertEquals("div > p, a", By.canonicalCss(" div>p ,a "));
+        assertEquals("ul li + li ~ li", By.canonicalCss("ul\n  li+li ~li"));
+        assertEquals("> li", By.canonicalCss(">li"));
+    }
+
+    @Test
+    public void shouldNotChangeCssWithinStringsBracketsOrParentheses() {
+        assertEquals("a[title=\"x  >  y\"]", By.canonicalCss("a[title=\"x  >  y\"]"));
+        assertEquals("li:nth-child(2n+1)", By.canonicalCss("li:nth-child(2n+1)"));
+        assertEquals("a[href~='x,y']", By.canonicalCss("a[href~='x,y']"));
+    }
+
+    @Test
+    public void shouldTreatEquivalentCssAsEqual() {
+        assertEquals(By.css("div.a > p"), By.css("  div.a>p "));
+        assertEquals(By.css("div.a > p"), new By.ByCss("div.a>p"));
+        assertEquals(By.css("div.a > p").hashCode(), new By.ByCss("div.a>p").hashCode());
+        assertNotEquals(By.css("div.a p"), By.css("div.a > p"));
+    }
+
+    @Test
+    public void shouldTreatTagsOfDifferentCaseAsEqual() {
+        assertEquals(By.htmlTag("table"), By.htmlTag(" TABLE"));
+        assertEquals(By.htmlTag("table"), new By.ByHtmlTag("Table"));
+        assertEquals("ByHtmlTag{tag='table'}", By.htmlTag("TABLE").toString());
+    }
+
+    @Test
+    public void shouldKeepCaseOfTagsWhichAreNotHtml() {
+        assertEquals("ByHtmlTag{tag='clipPath'}", By.htmlTag(" clipPath ").toString());
+        assertNotEquals(By.htmlTag("clipPath"), By.htmlTag("clippath"));
+        assertEquals("ByHtmlTag{tag='foreignObject'}",
+                new By.ByHtmlTag("foreignObject").toString());
+    }
+
+    @Test
+    public void shouldTrimClassNames() {
+        assertEquals(By.className("active"), By.className(" active "));
+    }
+
+    @Test
+    public void shouldShareInstancesOfEquivalentLocators() {
+        String css = new StringBuilder("#staff").append(" td").toString();
+
+        assertSame(By.css(css), By.css(new String(css)));
+        assertSame(By.css(css), By.css("#staff   td"));
+        assertSame(By.htmlTag("tr"), By.htmlTag("TR"));
+        assertSame(By.className("row"), By.className("row"));
+    }
+}
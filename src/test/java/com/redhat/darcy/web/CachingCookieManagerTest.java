@@ -0,0 +1,214 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.redhat.darcy.web.api.CookieManager;
+import com.redhat.darcy.web.stubs.FakeBrowser;
+import com.redhat.darcy.web.stubs.FakeCookieManager;
+import com.redhat.darcy.web.stubs.MutableClock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RunWith(JUnit4.class)
+public class CachingCookieManagerTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2015, 6, 1, 12, 0);
+
+    private final CookieManager browserCookies = spy(new FakeCookieManager());
+    private final MutableClock clock = new MutableClock(NOW.toInstant(ZoneOffset.UTC));
+    private final CachingCookieManager cookies =
+            new CachingCookieManager(browserCookies, null, clock);
+
+    @Test
+    public void shouldReadCookiesFromBrowserOnlyOnce() {
+        browserCookies.add(new Cookie("session", "1"));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(cookies.get("session").isPresent());
+            assertEquals(1, cookies.getAll().size());
+        }
+
+        verify(browserCookies, times(1)).getAll();
+        verify(browserCookies, never()).get(anyString());
+    }
+
+    @Test
+    public void shouldWriteChangesThroughToBrowserAndCache() {
+        cookies.getAll();
+
+        cookies.add(new Cookie("a", "1"));
+        cookies.addAll(Arrays.asList(new Cookie("b", "2"), new Cookie("a", "3")));
+        cookies.delete("b");
+
+        assertEquals("3", cookies.get("a").get().getValue());
+        assertFalse(cookies.get("b").isPresent());
+        assertEquals(browserCookies.getAll(), cookies.getAll());
+        verify(browserCookies, times(2)).getAll();
+    }
+
+    @Test
+    public void shouldReadCookiesAgainAfterInvalidation() {
+        cookies.getAll();
+        browserCookies.add(new Cookie("setByPage", "1"));
+
+        assertFalse(cookies.get("setByPage").isPresent());
+
+        cookies.invalidate();
+
+        assertTrue(cookies.get("setByPage").isPresent());
+    }
+
+    @Test
+    public void shouldReadCookiesAgainAfterMaxAge() {
+        CachingCookieManager cookies =
+                new CachingCookieManager(browserCookies, Duration.ofSeconds(1), clock);
+        cookies.getAll();
+        browserCookies.add(new Cookie("setByPage", "1"));
+
+        assertFalse(cookies.get("setByPage").isPresent());
+
+        clock.advance(Duration.ofSeconds(2));
+
+        assertTrue(cookies.get("setByPage").isPresent());
+    }
+
+    @Test
+    public void shouldNotReturnCookiesWhichExpiredSinceBeingCached() {
+        browserCookies.add(new Cookie("short", "1", "/", NOW.plusSeconds(5)));
+
+        assertTrue(cookies.get("short").isPresent());
+
+        clock.advance(Duration.ofSeconds(5));
+
+        assertFalse(cookies.get("short").isPresent());
+        assertTrue(cookies.getAll().isEmpty());
+    }
+
+    @Test
+    public void shouldFindCookiesApplicableToUrlByDomainAndPath() {
+        browserCookies.addAll(Arrays.asList(
+                new Cookie.Builder("root", "1").domain(".example.com").build(),
+                new Cookie.Builder("app", "2").domain(".www.example.com").path("/app").build(),
+                new Cookie.Builder("apple", "3").domain("www.example.com").path("/apple").build(),
+                new Cookie.Builder("other", "4").domain("other.com").build(),
+                new Cookie.Builder("sub", "5").domain("api.example.com").build(),
+                new Cookie.Builder("secure", "6").domain(".example.com").isSecure(true).build()));
+
+        assertEquals(Arrays.asList("app", "root"),
+                names(cookies.cookiesFor("http://www.example.com/app/list?page=1")));
+        List<String> secure = names(cookies.cookiesFor("https://WWW.example.com/app"));
+        assertEquals("Expected longest path first", "app", secure.get(0));
+        assertEquals(new HashSet<>(Arrays.asList("app", "root", "secure")), new HashSet<>(secure));
+        assertEquals(Arrays.asList("root"),
+                names(cookies.cookiesFor("http://example.com")));
+    }
+
+    @Test
+    public void shouldMatchHostOnlyCookiesOnlyOnExactHost() {
+        browserCookies.addAll(Arrays.asList(
+                new Cookie.Builder("hostOnly", "1").domain("example.com").build(),
+                new Cookie.Builder("domain", "2").domain(".example.com").build()));
+
+        assertEquals(new HashSet<>(Arrays.asList("hostOnly", "domain")),
+                new HashSet<>(names(cookies.cookiesFor("https://example.com/"))));
+        assertEquals(Arrays.asList("domain"),
+                names(cookies.cookiesFor("https://a.example.com/")));
+    }
+
+    @Test
+    public void shouldKeepCookiesWithSameNameOnDifferentDomainsAndPaths() {
+        Cookie tenantA = new Cookie.Builder("JSESSIONID", "a").domain("a.example.com").build();
+        Cookie tenantB = new Cookie.Builder("JSESSIONID", "b").domain("b.example.com").build();
+        Cookie tenantBAdmin = new Cookie.Builder("JSESSIONID", "b-admin")
+                .domain("b.example.com")
+                .path("/admin")
+                .build();
+        browserCookies.addAll(Arrays.asList(tenantA, tenantB));
+        cookies.getAll();
+        cookies.add(tenantBAdmin);
+
+        assertEquals(new HashSet<>(Arrays.asList(tenantA, tenantB, tenantBAdmin)),
+                cookies.getAll());
+        assertEquals(Arrays.asList(tenantA),
+                cookies.cookiesFor("http://a.example.com/"));
+        assertEquals(Arrays.asList(tenantBAdmin, tenantB),
+                cookies.cookiesFor("http://b.example.com/admin/users"));
+        assertTrue(cookies.get("JSESSIONID").isPresent());
+
+        cookies.delete("JSESSIONID");
+
+        assertTrue(cookies.getAll().isEmpty());
+    }
+
+    @Test
+    public void shouldKeepAndDeleteCookiesWithoutName() {
+        Cookie nameless = new Cookie(null, "1", null, null, null, false);
+        Cookie session = new Cookie("session", "2");
+        browserCookies.addAll(Arrays.asList(nameless, session));
+
+        assertEquals(new HashSet<>(Arrays.asList(nameless, session)), cookies.getAll());
+        assertEquals(nameless, cookies.get((String) null).get());
+
+        cookies.delete("session");
+        cookies.deleteAll(Arrays.asList("other"));
+
+        assertEquals(new HashSet<>(Arrays.asList(nameless)), cookies.getAll());
+
+        cookies.delete((String) null);
+
+        assertTrue(cookies.getAll().isEmpty());
+    }
+
+    @Test
+    public void shouldInvalidateCookiesWhenBrowserNavigates() {
+        FakeBrowser fakeBrowser = new FakeBrowser();
+        CookieCachingBrowser browser = new CookieCachingBrowser(fakeBrowser);
+        browser.cookies().getAll();
+        fakeBrowser.cookies().add(new Cookie("setByPage", "1"));
+
+        assertFalse(browser.cookies().get("setByPage").isPresent());
+
+        browser.open("http://example.com", new SimpleUrlView("http://example.com"))
+                .waitUpTo(Duration.ofSeconds(1));
+
+        assertTrue(browser.cookies().get("setByPage").isPresent());
+    }
+
+    private static List<String> names(List<Cookie> cookies) {
+        return cookies.stream().map(Cookie::getName).collect(Collectors.toList());
+    }
+}
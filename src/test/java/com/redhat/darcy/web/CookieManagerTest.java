@@ -0,0 +1,82 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.redhat.darcy.web.api.CookieManager;
+import com.redhat.darcy.web.stubs.FakeCookieManager;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class CookieManagerTest {
+    private final CookieManager cookies = spy(new FakeCookieManager());
+
+    @Test
+    public void shouldAddAllCookies() {
+        cookies.addAll(Arrays.asList(new Cookie("a", "1"), new Cookie("b", "2")));
+
+        assertEquals(2, cookies.getAll().size());
+        assertEquals("2", cookies.get("b").get().getValue());
+    }
+
+    @Test
+    public void shouldDeleteOnlyCookiesWithGivenNames() {
+        cookies.addAll(Arrays.asList(new Cookie("a", "1"), new Cookie("b", "2"),
+                new Cookie("c", "3")));
+
+        cookies.deleteAll(Arrays.asList("a", "c", "missing"));
+
+        assertFalse(cookies.get("a").isPresent());
+        assertTrue(cookies.get("b").isPresent());
+        assertFalse(cookies.get("c").isPresent());
+    }
+
+    @Test
+    public void shouldDoNothingWhenDeletingEmptyCollectionOfNames() {
+        cookies.add(new Cookie("a", "1"));
+
+        cookies.deleteAll(Collections.emptyList());
+
+        assertEquals(1, cookies.getAll().size());
+    }
+
+    @Test
+    public void shouldGetAllCookiesMatchingPredicateWithOneRead() {
+        cookies.addAll(Arrays.asList(new Cookie("session", "1"), new Cookie("sessionId", "2"),
+                new Cookie("tracking", "3")));
+
+        Set<Cookie> sessionCookies = cookies.getAll(c -> c.getName().startsWith("session"));
+
+        assertEquals(2, sessionCookies.size());
+        verify(cookies, times(1)).getAll();
+    }
+}
@@ -18,7 +18,10 @@ limitations under the License.
 
 package com.redhat.darcy.web;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -27,6 +30,9 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TimeZone;
 
 @RunWith(JUnit4.class)
 public class CookieTest {
@@ -87,4 +93,73 @@ public class CookieTest {
         Cookie cookie = new Cookie("name", "value", "", "/", LocalDateTime.now());
         assertTrue(cookie.getExpiry().getNano() == 0);
     }
+
+    @Test
+    public void shouldHaveEqualHashCodesForEqualCookies() {
+        LocalDateTime expiry = LocalDateTime.of(2020, 1, 1, 0, 0);
+        Cookie cookie = new Cookie("name", "value", "example.com", "/app", expiry, true, true);
+        Cookie same = new Cookie("name", "value", "example.com:8080", "/app", expiry, true, true);
+
+        assertEquals(cookie, same);
+        assertEquals(cookie.hashCode(), same.hashCode());
+    }
+
+    @Test
+    public void shouldSpreadHashCodesOfSameNamedCookiesAcrossDomains() {
+        Set<Integer> hashCodes = new HashSet<>();
+
+        for (int i = 0; i < 100; i++) {
+            hashCodes.add(new Cookie("session", "value", "tenant" + i + ".example.com", "/", null)
+                    .hashCode());
+        }
+
+        assertEquals(100, hashCodes.size());
+    }
+
+    @Test
+    public void shouldFormatExpiryInCurrentDefaultTimeZone() {
+        Cookie cookie = new Cookie("n", "v", "/", LocalDateTime.of(2015, 6, 1, 12, 0));
+        TimeZone original = TimeZone.getDefault();
+
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            String inUtc = cookie.toString();
+
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+            assertNotEquals(inUtc, cookie.toString());
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    @Test
+    public void shouldHashCookiesWithoutName() {
+        new Cookie(null, "value", null, null, null, false).hashCode();
+    }
+
+    @Test
+    public void shouldStripPortFromDomain() {
+        assertEquals("example.com", new Cookie("n", "v", "example.com:8080", "/", null)
+                .getDomain());
+        assertEquals("example.com", new Cookie("n", "v", "example.com", "/", null).getDomain());
+        assertEquals("", new Cookie("n", "v", ":8080", "/", null).getDomain());
+    }
+
+    @Test
+    public void shouldShareInternedStringsWhenBuiltWithInterning() {
+        Cookie first = new Cookie.Builder(new String("name"), "value")
+                .domain(new String("example.com"))
+                .path(new String("/app"))
+                .internStrings()
+                .build();
+        Cookie second = new Cookie.Builder(new String("name"), "value")
+                .domain(new String("example.com:8080"))
+                .path(new String("/app"))
+                .internStrings()
+                .build();
+
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getDomain(), second.getDomain());
+        assertSame(first.getPath(), second.getPath());
+    }
 }
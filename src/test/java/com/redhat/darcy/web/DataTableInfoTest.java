@@ -0,0 +1,82 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+
+import com.redhat.darcy.ui.DarcyException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DataTableInfoTest {
+    @Test
+    public void shouldParseStartEndAndTotalFromOneRead() {
+        DataTableInfo info = DataTableInfo.parse("Showing 11 to 20 of 57 entries");
+
+        assertEquals(11, info.getStart());
+        assertEquals(20, info.getEnd());
+        assertEquals(57, info.getTotal());
+        assertEquals(10, info.getShowingCount());
+    }
+
+    @Test
+    public void shouldParseNumbersWithThousandsSeparators() {
+        DataTableInfo info = DataTableInfo.parse("Showing 1,001 to 1,010 of 50,000 entries");
+
+        assertEquals(1001, info.getStart());
+        assertEquals(1010, info.getEnd());
+        assertEquals(50000, info.getTotal());
+    }
+
+    @Test
+    public void shouldUseUnfilteredTotalOfFilteredTable() {
+        DataTableInfo info = DataTableInfo.parse(
+                "Showing 1 to 5 of 5 entries (filtered from 57 total entries)");
+
+        assertEquals(5, info.getTotal());
+    }
+
+    @Test(expected = DarcyException.class)
+    public void shouldThrowDarcyExceptionIfIndexesCannotBeDetermined() {
+        DataTableInfo.parse("No entries");
+    }
+
+    @Test
+    public void shouldParseIndexesEvenIfTotalIsMissing() {
+        DataTableInfo info = DataTableInfo.parse("Rows 1 - 10");
+
+        assertEquals(1, info.getStart());
+        assertEquals(10, info.getEnd());
+    }
+
+    @Test(expected = DarcyException.class)
+    public void shouldThrowDarcyExceptionWhenGettingMissingTotal() {
+        DataTableInfo.parse("Rows 1 - 10").getTotal();
+    }
+
+    @Test
+    public void shouldBeEqualToInfoWithTheSameIndexesAndTotal() {
+        assertEquals(DataTableInfo.parse("Showing 1 to 10 of 57 entries"),
+                DataTableInfo.parse("Displaying 1 to 10 of 57"));
+    }
+}
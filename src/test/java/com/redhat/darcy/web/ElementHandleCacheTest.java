@@ -0,0 +1,201 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.ui.api.ElementContext;
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.ui.api.View;
+import com.redhat.darcy.ui.api.elements.Element;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.WebSelection;
+import com.redhat.darcy.web.api.elements.HtmlElement;
+import com.redhat.darcy.web.api.elements.HtmlLink;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@RunWith(JUnit4.class)
+public class ElementHandleCacheTest {
+    private final Object parent = new Object();
+    private final Locator next = By.css("#next");
+
+    @Test
+    public void shouldLookUpElementOnlyOnce() {
+        ElementHandleCache cache = new ElementHandleCache(10);
+        AtomicInteger lookups = new AtomicInteger();
+        HtmlLink link = mock(HtmlLink.class);
+        Supplier<HtmlLink> lookup = () -> {
+            lookups.incrementAndGet();
+            return link;
+        };
+
+        HtmlLink first = cache.get(parent, HtmlLink.class, next, lookup);
+        HtmlLink second = cache.get(parent, HtmlLink.class, next, lookup);
+
+        assertSame(first, second);
+        assertEquals(1, lookups.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        first.click();
+        verify(link).click();
+    }
+
+    @Test
+    public void shouldKeyByParentTypeAndLocator() {
+        ElementHandleCache cache = new ElementHandleCache(10);
+
+        HtmlLink link = cache.get(parent, HtmlLink.class, next, () -> mock(HtmlLink.class));
+
+        assertNotSame(link, cache.get(new Object(), HtmlLink.class, next,
+                () -> mock(HtmlLink.class)));
+        assertNotSame(link, cache.get(parent, HtmlElement.class, next,
+                () -> mock(HtmlElement.class)));
+        assertNotSame(link, cache.get(parent, HtmlLink.class, By.css("#previous"),
+                () -> mock(HtmlLink.class)));
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() {
+        ElementHandleCache cache = new ElementHandleCache(2);
+
+        HtmlLink first = cache.get(parent, HtmlLink.class, By.css("#a"),
+                () -> mock(HtmlLink.class));
+        cache.get(parent, HtmlLink.class, By.css("#b"), () -> mock(HtmlLink.class));
+        cache.get(parent, HtmlLink.class, By.css("#a"), () -> mock(HtmlLink.class));
+        cache.get(parent, HtmlLink.class, By.css("#c"), () -> mock(HtmlLink.class));
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get(parent, HtmlLink.class, By.css("#a"), () -> {
+            throw new AssertionError("#a should still be cached");
+        }));
+    }
+
+    @Test
+    public void shouldEvictHandleWhichThrows() {
+        ElementHandleCache cache = new ElementHandleCache(10);
+        HtmlLink stale = mock(HtmlLink.class);
+        doThrow(new DarcyException("stale")).when(stale).click();
+
+        HtmlLink link = cache.get(parent, HtmlLink.class, next, () -> stale);
+
+        try {
+            link.click();
+            fail("Expected click to throw");
+        } catch (DarcyException e) {
+            assertEquals("stale", e.getMessage());
+        }
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldEvictHandleWhichIsNotPresent() {
+        ElementHandleCache cache = new ElementHandleCache(10);
+        HtmlLink gone = mock(HtmlLink.class);
+        when(gone.isPresent()).thenReturn(false);
+
+        assertFalse(cache.get(parent, HtmlLink.class, next, () -> gone).isPresent());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldTreatHandleAsEqualToItself() {
+        HtmlLink link = new ElementHandleCache(10)
+                .get(parent, HtmlLink.class, next, () -> mock(HtmlLink.class));
+
+        assertEquals(link, link);
+    }
+
+    @Test
+    public void shouldNotTreatHandleAsEqualToElementItWraps() {
+        HtmlLink element = mock(HtmlLink.class);
+        HtmlLink link = new ElementHandleCache(10).get(parent, HtmlLink.class, next, () -> element);
+
+        assertNotEquals(link, element);
+        assertNotEquals(element, link);
+    }
+
+    @Test
+    public void shouldTreatHandlesOfSameElementAsEqual() {
+        HtmlLink element = mock(HtmlLink.class);
+
+        HtmlLink link = new ElementHandleCache(10).get(parent, HtmlLink.class, next, () -> element);
+        HtmlLink other = new ElementHandleCache(10)
+                .get(parent, HtmlLink.class, next, () -> element);
+
+        assertEquals(link, other);
+        assertEquals(other, link);
+    }
+
+    @Test
+    public void shouldImplementEveryInterfaceOfElement() {
+        HtmlElement element = mock(HtmlElement.class,
+                withSettings().extraInterfaces(HtmlLink.class, ElementContext.class));
+
+        Element handle = new ElementHandleCache(10)
+                .get(parent, Element.class, next, () -> element);
+
+        assertTrue(handle instanceof HtmlLink);
+        assertTrue(handle instanceof ElementContext);
+
+        ((HtmlLink) handle).click();
+        verify(element).click();
+    }
+
+    @Test
+    public void shouldClearCacheWhenBrowserNavigates() {
+        Browser delegate = mock(Browser.class);
+        WebSelection selection = mock(WebSelection.class);
+        when(delegate.find()).thenReturn(selection);
+        when(selection.elementOfType(HtmlLink.class, next))
+                .thenAnswer(invocation -> mock(HtmlLink.class));
+
+        ElementCachingBrowser browser = new ElementCachingBrowser(delegate);
+
+        HtmlLink link = browser.find().htmlLink(next);
+        assertSame(link, browser.find().htmlLink(next));
+
+        browser.open("http://example.com", mock(View.class));
+
+        assertNotSame(link, browser.find().htmlLink(next));
+        verify(selection, times(2)).elementOfType(HtmlLink.class, next);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.ui.api.elements.Element;
+import com.redhat.darcy.web.api.WebContext;
+import com.redhat.darcy.web.api.WebSelection;
+import com.redhat.darcy.web.api.elements.HtmlElement;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class HtmlTableTest {
+    private final HtmlElement parent = mock(HtmlElement.class);
+    private final HtmlElement innerTag = mock(HtmlElement.class);
+    private final WebSelection selection = mock(WebSelection.class);
+    private final WebContext context = mock(WebContext.class);
+
+    private final TestTable table = new TestTable(parent);
+
+    @Before
+    public void setUpContext() {
+        when(context.find()).thenReturn(selection);
+        when(selection.htmlElement(any(Locator.class))).thenReturn(innerTag);
+        table.setContext(context);
+    }
+
+    @Test
+    public void shouldDetectBodyTagOnlyOnce() {
+        when(innerTag.isPresent()).thenReturn(true);
+
+        table.byRowColumn(1, 1);
+        table.byRowColumn(2, 1);
+        table.byRowColumn(3, 2);
+
+        verify(innerTag, times(1)).isPresent();
+    }
+
+    @Test
+    public void shouldRememberAbsentBodyTagIfTableIsPresent() {
+        when(innerTag.isPresent()).thenReturn(false);
+        when(parent.isPresent()).thenReturn(true);
+
+        table.byRowColumn(1, 1);
+        table.byRowColumn(2, 1);
+
+        verify(innerTag, times(1)).isPresent();
+        verify(parent, times(1)).isPresent();
+    }
+
+    @Test
+    public void shouldDetectAgainWhileTableIsAbsent() {
+        when(innerTag.isPresent()).thenReturn(false);
+        when(parent.isPresent()).thenReturn(false);
+
+        table.byRowColumn(1, 1);
+        table.byRowColumn(2, 1);
+
+        verify(innerTag, times(2)).isPresent();
+    }
+
+    @Test
+    public void shouldDetectAgainOnceStructureIsInvalidated() {
+        when(innerTag.isPresent()).thenReturn(true);
+
+        table.byRowColumn(1, 1);
+        table.byHeader(1);
+        table.invalidateStructure();
+        table.byRowColumn(1, 1);
+        table.byHeader(1);
+
+        verify(innerTag, times(4)).isPresent();
+    }
+
+    @Test
+    public void shouldOnlyCountRowsInFirstOfSeveralMatchingTables() {
+        TestTable grid = new TestTable(By.className("grid"));
+        grid.setContext(context);
+        when(innerTag.isPresent()).thenReturn(true);
+
+        // A selector combined with the table's would count rows in both tables on the page.
+        when(selection.elements(any(Locator.class))).thenAnswer(invocation ->
+                invocation.getArguments()[0] instanceof By.ByCss ? rows(5) : rows(2));
+
+        assertEquals(2, grid.getRowCount());
+    }
+
+    @Test
+    public void shouldCombineIdSelectorWithRowXpath() {
+        TestTable staff = new TestTable(By.css("#staff"));
+        staff.setContext(context);
+        when(innerTag.isPresent()).thenReturn(true);
+        when(selection.elements(By.css("#staff > tbody > tr"))).thenReturn(rows(3));
+
+        assertEquals(3, staff.getRowCount());
+    }
+
+    @Test
+    public void shouldBuildEachInnerLocatorOnlyOnce() {
+        TestTable staff = new TestTable(By.css("#staff"));
+        staff.setContext(context);
+        when(innerTag.isPresent()).thenReturn(true);
+
+        assertSame(staff.byRowColumn(2, 3), staff.byRowColumn(2, 3));
+        assertSame(table.byRowColumn(2, 3), table.byRowColumn(2, 3));
+    }
+
+    private static List<Element> rows(int count) {
+        return Collections.nCopies(count, mock(Element.class));
+    }
+
+    static class TestTable extends HtmlTable<TestTable> {
+        TestTable(Locator parent) {
+            super(parent);
+        }
+
+        TestTable(HtmlElement parent) {
+            super(parent);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.redhat.darcy.web.api.elements.HtmlElement;
+import com.redhat.darcy.web.api.elements.HtmlLink;
+import com.redhat.darcy.web.api.elements.HtmlText;
+import com.redhat.darcy.web.api.elements.HtmlTextInput;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RunWith(JUnit4.class)
+public class JQueryDataTableTest {
+    @Test
+    public void shouldDeterminePagesOnFirstAndMiddlePages() {
+        FakeDataTable table = new FakeDataTable(57, 10);
+
+        assertEquals(1, table.getCurrentPage());
+        assertEquals(6, table.getMaxPages());
+        assertFalse(table.hasPreviousPage());
+        assertTrue(table.hasNextPage());
+
+        table.page = 3;
+
+        assertEquals(3, table.getCurrentPage());
+        assertEquals(6, table.getMaxPages());
+        assertTrue(table.hasPreviousPage());
+        assertTrue(table.hasNextPage());
+    }
+
+    @Test
+    public void shouldDeterminePagesOnShortLastPageWithoutLengthMenu() {
+        FakeDataTable table = new FakeDataTable(57, 10);
+        table.page = 6;
+
+        assertEquals(6, table.getCurrentPage());
+        assertEquals(6, table.getMaxPages());
+        assertTrue(table.hasPreviousPage());
+        assertFalse(table.hasNextPage());
+    }
+
+    @Test
+    public void shouldReadPageLengthFromLengthMenuOnLastPage() {
+        FakeDataTable table = new FakeDataTable(57, 25);
+        table.lengthMenuDisplayed = true;
+        table.page = 3;
+
+        assertEquals(3, table.getCurrentPage());
+        assertEquals(3, table.getMaxPages());
+    }
+
+    @Test
+    public void shouldRememberPageLengthSeenOnEarlierPage() {
+        FakeDataTable table = new FakeDataTable(57, 25);
+
+        assertEquals(1, table.getCurrentPage());
+
+        table.page = 3;
+
+        assertEquals(3, table.getCurrentPage());
+        assertEquals(3, table.getMaxPages());
+    }
+
+    @Test
+    public void shouldJumpToPageByNearestPageButtons() {
+        FakeDataTable table = new FakeDataTable(100, 10);
+
+        table.toPage(7);
+
+        assertEquals(7, table.getCurrentPage());
+        assertEquals(Arrays.asList("3", "5", "7"), table.actions);
+    }
+
+    @Test
+    public void shouldJumpToShortLastPageWithLastButton() {
+        FakeDataTable table = new FakeDataTable(57, 10);
+        table.firstAndLastDisplayed = true;
+
+        table.toPage(6);
+
+        assertEquals(6, table.getCurrentPage());
+        assertEquals(Collections.singletonList("last"), table.actions);
+    }
+
+    @Test
+    public void shouldStepOnePageAtATimeWithoutOtherControls() {
+        FakeDataTable table = new FakeDataTable(57, 10);
+        table.pageButtonsDisplayed = false;
+        table.page = 6;
+
+        table.toPage(4);
+
+        assertEquals(4, table.getCurrentPage());
+        assertEquals(Arrays.asList("previous", "previous"), table.actions);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldNotNavigatePastLastPage() {
+        new FakeDataTable(57, 10).toPage(7);
+    }
+
+    @Test
+    public void shouldStreamEveryRowOnceRequestingNextPageAfterEachRead() {
+        FakeDataTable table = new FakeDataTable(25, 10);
+        table.page = 2;
+
+        List<String> rows = table.rows().map(row -> row.getText(1)).collect(Collectors.toList());
+
+        List<String> expected = new ArrayList<>();
+
+        for (int i = 1; i <= 25; i++) {
+            expected.add("entry " + i);
+        }
+
+        assertEquals(expected, rows);
+        assertEquals(Arrays.asList("1", "snapshot 1", "next", "snapshot 2", "next", "snapshot 3"),
+                table.actions);
+    }
+
+    @Test
+    public void shouldNotReadFurtherPagesOnceShortCircuited() {
+        FakeDataTable table = new FakeDataTable(25, 10);
+
+        assertEquals("entry 1", table.rows().findFirst().get().getText(1));
+        assertEquals(Arrays.asList("snapshot 1", "next"), table.actions);
+    }
+
+    @Test
+    public void shouldStreamNoRowsFromEmptyTable() {
+        FakeDataTable table = new FakeDataTable(0, 10);
+
+        assertFalse(table.rows().iterator().hasNext());
+        assertEquals(Collections.emptyList(), table.actions);
+    }
+
+    /**
+     * A table whose information summary and pagination controls are simulated from a page
+     * number, so that no browser is needed. Page buttons are displayed for the two pages either
+     * side of the current page, like DataTables' "simple_numbers" pagination.
+     */
+    static class FakeDataTable extends JQueryDataTable<FakeDataTable> {
+        final int total;
+        final int pageLength;
+        final List<String> actions = new ArrayList<>();
+
+        int page = 1;
+        boolean lengthMenuDisplayed = false;
+        boolean firstAndLastDisplayed = false;
+        boolean pageButtonsDisplayed = true;
+
+        FakeDataTable(int total, int pageLength) {
+            super(mock(HtmlElement.class));
+            this.total = total;
+            this.pageLength = pageLength;
+
+            withWaitPolicy((action, condition, description) -> {
+                action.run();
+
+                if (!condition.getAsBoolean()) {
+                    throw new AssertionError("Expected " + description);
+                }
+            });
+        }
+
+        int maxPages() {
+            return (total + pageLength - 1) / pageLength;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return total == 0;
+        }
+
+        @Override
+        public boolean isLoaded() {
+            return true;
+        }
+
+        @Override
+        public DataTableInfo getInfo() {
+            int start = (page - 1) * pageLength + 1;
+            int end = Math.min(page * pageLength, total);
+
+            return DataTableInfo.parse("Showing " + start + " to " + end + " of " + total
+                    + " entries");
+        }
+
+        /**
+         * Each entry's only cell reads, "entry n".
+         */
+        @Override
+        public TableSnapshot snapshot(String... attributes) {
+            actions.add("snapshot " + page);
+
+            TableSnapshot.Builder snapshot = new TableSnapshot.Builder(attributes);
+            DataTableInfo info = getInfo();
+
+            for (int entry = info.getStart(); entry <= info.getEnd(); entry++) {
+                snapshot.row(Collections.singletonList("entry " + entry));
+            }
+
+            return snapshot.build();
+        }
+
+        @Override
+        protected HtmlLink navNext() {
+            return link("next", page < maxPages(), true, () -> page++);
+        }
+
+        @Override
+        protected HtmlLink navPrevious() {
+            return link("previous", page > 1, true, () -> page--);
+        }
+
+        @Override
+        protected HtmlLink navFirst() {
+            return link("first", page > 1, firstAndLastDisplayed, () -> page = 1);
+        }
+
+        @Override
+        protected HtmlLink navLast() {
+            return link("last", page < maxPages(), firstAndLastDisplayed, () -> page = maxPages());
+        }
+
+        @Override
+        protected HtmlTextInput pageInput() {
+            return mock(HtmlTextInput.class);
+        }
+
+        @Override
+        protected HtmlElement lengthMenu() {
+            HtmlElement menu = mock(HtmlElement.class);
+            when(menu.isDisplayed()).thenReturn(lengthMenuDisplayed);
+            when(menu.getAttribute("value")).thenReturn(Integer.toString(pageLength));
+            return menu;
+        }
+
+        @Override
+        protected List<HtmlText> pageButtons() {
+            List<HtmlText> buttons = new ArrayList<>();
+
+            if (!pageButtonsDisplayed) {
+                return buttons;
+            }
+
+            for (int i = Math.max(1, page - 2); i <= Math.min(maxPages(), page + 2); i++) {
+                int buttonPage = i;
+                HtmlText button = mock(HtmlText.class);
+                when(button.getText()).thenReturn(Integer.toString(buttonPage));
+                doAnswer(invocation -> {
+                    actions.add(Integer.toString(buttonPage));
+                    page = buttonPage;
+                    return null;
+                }).when(button).click();
+                buttons.add(button);
+            }
+
+            return buttons;
+        }
+
+        private HtmlLink link(String name, boolean enabled, boolean displayed, Runnable onClick) {
+            HtmlLink link = mock(HtmlLink.class);
+            when(link.isDisplayed()).thenReturn(displayed);
+            when(link.getClasses()).thenReturn(enabled
+                    ? Collections.singletonList("paginate_button")
+                    : Arrays.asList("paginate_button", "disabled"));
+            doAnswer(invocation -> {
+                actions.add(name);
+                onClick.run();
+                return null;
+            }).when(link).click();
+            return link;
+        }
+    }
+}
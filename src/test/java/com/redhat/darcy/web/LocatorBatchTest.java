@@ -0,0 +1,171 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.redhat.darcy.ui.api.Context;
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.web.api.WebSelection;
+import com.redhat.darcy.web.api.elements.HtmlButton;
+import com.redhat.darcy.web.api.elements.HtmlElement;
+import com.redhat.darcy.web.api.elements.HtmlTextInput;
+import com.redhat.darcy.web.internal.FindsInBatch;
+import com.redhat.darcy.web.internal.FindsInBatch.CssQuery;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+@RunWith(JUnit4.class)
+public class LocatorBatchTest {
+    private final WebSelection selection = mock(WebSelection.class);
+    private final TestContext context = mock(TestContext.class);
+
+    @Test
+    public void shouldResolveCssTagAndClassNameLocatorsInOneOperation() {
+        HtmlTextInput name = mock(HtmlTextInput.class);
+        HtmlButton first = mock(HtmlButton.class);
+        HtmlButton second = mock(HtmlButton.class);
+        HtmlElement option = mock(HtmlElement.class);
+
+        when(context.findAllInBatch(Arrays.asList(
+                new CssQuery<>(HtmlTextInput.class, "#name"),
+                new CssQuery<>(HtmlButton.class, "button"),
+                new CssQuery<>(HtmlElement.class, ".option"))))
+                .thenReturn(Arrays.asList(
+                        Collections.singletonList(name),
+                        Arrays.asList(first, second),
+                        Collections.singletonList(option)));
+
+        List<Object> found = new LocatorBatch(selection, context)
+                .add(HtmlTextInput.class, By.css("#name"))
+                .addAll(HtmlButton.class, By.htmlTag("button"))
+                .add(By.className("option"))
+                .resolve();
+
+        assertEquals(Arrays.asList(name, Arrays.asList(first, second), option), found);
+        verify(context).findAllInBatch(any());
+    }
+
+    @Test
+    public void shouldResolveOtherLocatorsThroughSelectionInOrder() {
+        Locator other = mock(Locator.class);
+        HtmlTextInput name = mock(HtmlTextInput.class);
+        HtmlElement otherElement = mock(HtmlElement.class);
+
+        when(context.findAllInBatch(Collections.singletonList(
+                new CssQuery<>(HtmlTextInput.class, "#name"))))
+                .thenReturn(Collections.singletonList(Collections.singletonList(name)));
+        when(selection.elementOfType(HtmlElement.class, other)).thenReturn(otherElement);
+
+        List<Object> found = new LocatorBatch(selection, context)
+                .add(other)
+                .add(HtmlTextInput.class, By.css("#name"))
+                .resolve();
+
+        assertEquals(Arrays.asList(otherElement, name), found);
+    }
+
+    @Test
+    public void shouldLookUpSingleElementNotFoundInBatchThroughSelection() {
+        Locator missing = By.css("#missing");
+        HtmlElement notPresent = mock(HtmlElement.class);
+
+        when(context.findAllInBatch(any())).thenReturn(
+                Collections.singletonList(Collections.emptyList()));
+        when(selection.elementOfType(HtmlElement.class, missing)).thenReturn(notPresent);
+
+        assertSame(notPresent, new LocatorBatch(selection, context).add(missing).resolve().get(0));
+    }
+
+    @Test
+    public void shouldResolveEachLookupThroughSelectionIfContextCannotFindInBatch() {
+        Locator css = By.css("#name");
+        HtmlElement element = mock(HtmlElement.class);
+        List<HtmlElement> elements = Collections.singletonList(element);
+
+        when(selection.elementOfType(HtmlElement.class, css)).thenReturn(element);
+        when(selection.elementsOfType(HtmlElement.class, css)).thenReturn(elements);
+
+        List<Object> found = new LocatorBatch(selection, mock(Context.class))
+                .add(css)
+                .addAll(HtmlElement.class, css)
+                .resolve();
+
+        assertEquals(Arrays.asList(element, elements), found);
+    }
+
+    @Test
+    public void shouldReturnTypedHandlesToResults() {
+        HtmlTextInput name = mock(HtmlTextInput.class);
+        HtmlButton button = mock(HtmlButton.class);
+
+        when(context.findAllInBatch(Arrays.asList(
+                new CssQuery<>(HtmlTextInput.class, "#name"),
+                new CssQuery<>(HtmlButton.class, "button"))))
+                .thenReturn(Arrays.asList(
+                        Collections.singletonList(name),
+                        Collections.singletonList(button)));
+
+        LocatorBatch batch = new LocatorBatch(selection, context);
+        Supplier<HtmlTextInput> nameHandle = batch.element(HtmlTextInput.class, By.css("#name"));
+        Supplier<List<HtmlButton>> buttons = batch.elements(HtmlButton.class, By.htmlTag("button"));
+        batch.resolve();
+
+        assertSame(name, nameHandle.get());
+        assertEquals(Collections.singletonList(button), buttons.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotReadHandleBeforeBatchIsResolved() {
+        new LocatorBatch(selection, context).element(HtmlTextInput.class, By.css("#name")).get();
+    }
+
+    @Test
+    public void shouldNotCallContextIfNothingCanBeBatched() {
+        new LocatorBatch(selection, context).add(mock(Locator.class)).resolve();
+
+        verify(context, never()).findAllInBatch(any());
+    }
+
+    @Test
+    public void shouldConvertLocatorsToEscapedCss() {
+        assertEquals("div.content", By.toCss(By.css("div.content")));
+        assertEquals("td", By.toCss(By.htmlTag("td")));
+        assertEquals(".\\31 st\\.place", By.toCss(By.className("1st.place")));
+        assertNull(By.toCss(By.className("two classes")));
+        assertNull(By.toCss(By.url("http://example.com")));
+    }
+
+    interface TestContext extends Context, FindsInBatch {}
+}
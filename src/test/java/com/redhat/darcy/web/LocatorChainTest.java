@@ -0,0 +1,126 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.redhat.darcy.ui.api.Context;
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.web.api.elements.HtmlElement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+@RunWith(JUnit4.class)
+public class LocatorChainTest {
+    @Test
+    public void shouldCompileCssAndSimpleXpathToOneSelector() {
+        LocatorChain chain = LocatorChain.of(By.css("#staff")).thenXpath("./tbody/tr[2]/td[3]");
+
+        assertTrue(chain.isSingleQuery());
+        assertEquals(By.css("#staff > tbody > tr:nth-of-type(2) > td:nth-of-type(3)"),
+                chain.compile());
+    }
+
+    @Test
+    public void shouldCompileTagAndClassNameSteps() {
+        assertEquals(By.css("form .field input[type=\"text\"]"),
+                By.chained(By.htmlTag("form"), By.className("field"),
+                        By.css("input[type=\"text\"]")));
+    }
+
+    @Test
+    public void shouldTranslateSimpleXpath() {
+        assertEquals("div > span", SimpleXpath.toCss("//div/span", true));
+        assertEquals("> tr:nth-of-type(1) > *:nth-child(2)",
+                SimpleXpath.toCss("./tr[1]/*[2]", false));
+        assertEquals("li[data-id=\"7\"][hidden]",
+                SimpleXpath.toCss(".//li[@data-id='7'][@hidden]", false));
+        assertEquals("a[title=\"say \\\"hi\\\"\"]",
+                SimpleXpath.toCss(".//a[@title='say \"hi\"']", false));
+    }
+
+    @Test
+    public void shouldNotTranslateOtherXpath() {
+        assertNull(SimpleXpath.toCss("./tr", true));
+        assertNull(SimpleXpath.toCss("//tr", false));
+        assertNull(SimpleXpath.toCss("./tr[last()]", false));
+        assertNull(SimpleXpath.toCss("./tr[@class='a'][2]", false));
+        assertNull(SimpleXpath.toCss("./following-sibling::tr", false));
+        assertNull(SimpleXpath.toCss(".//td[text()='x']", false));
+    }
+
+    @Test
+    public void shouldSplitChainAtStepsWhichCannotBeCombined() {
+        Locator id = By.id("staff");
+
+        Locator compiled = LocatorChain.of(By.css("#content"))
+                .then(id)
+                .thenXpath("./tbody")
+                .thenXpath("./tr[position() > 1]")
+                .then(By.htmlTag("td"))
+                .compile();
+
+        assertEquals(new LocatorChain.ByChain(Arrays.asList(By.css("#content"), id,
+                By.xpath("./tbody/tr[position() > 1]"), By.css("td"))), compiled);
+        assertFalse(LocatorChain.of(id).thenXpath("./tbody").isSingleQuery());
+    }
+
+    @Test
+    public void shouldNotCombineSelectorLists() {
+        assertFalse(LocatorChain.of(By.css("#a, #b")).then(By.htmlTag("td")).isSingleQuery());
+    }
+
+    @Test
+    public void shouldFlattenCompiledChains() {
+        Locator inner = By.chained(By.id("staff"), By.css("tbody"));
+
+        assertEquals(new LocatorChain.ByChain(Arrays.asList(By.id("staff"), By.css("tbody td"))),
+                LocatorChain.of(inner).then(By.htmlTag("td")).compile());
+    }
+
+    @Test
+    public void shouldReturnSingleLocatorUnchanged() {
+        Locator id = By.id("staff");
+
+        assertSame(id, LocatorChain.of(id).compile());
+    }
+
+    @Test
+    public void shouldFindFirstStepBeforeNestingTheNext() {
+        Locator first = mock(Locator.class);
+        Context context = mock(Context.class);
+        when(first.find(HtmlElement.class, context)).thenReturn(mock(HtmlElement.class));
+
+        By.chained(first, By.id("inner")).find(HtmlElement.class, context);
+
+        verify(first).find(HtmlElement.class, context);
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.ui.api.ElementContext;
+import com.redhat.darcy.ui.api.View;
+import com.redhat.darcy.web.stubs.FakeBrowser;
+import com.redhat.synq.Event;
+import com.redhat.synq.TimeoutException;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class NavigationSchedulerTest {
+    private final NavigationScheduler scheduler = new NavigationScheduler.Builder()
+            .threads(1)
+            .pollInterval(Duration.ofMillis(1))
+            .build();
+
+    @After
+    public void closeScheduler() {
+        scheduler.close();
+    }
+
+    @Test
+    public void shouldCompleteWithDestinationOnceNavigated() throws Exception {
+        FakeBrowser browser = new FakeBrowser();
+        SimpleUrlView view = new SimpleUrlView("http://example.com");
+
+        CompletableFuture<SimpleUrlView> future = browser.openAsync(view, Duration.ofSeconds(1),
+                scheduler);
+
+        assertSame(view, future.get(1, TimeUnit.SECONDS));
+        assertEquals("http://example.com", browser.getCurrentUrl());
+    }
+
+    @Test
+    public void shouldNavigateOnSharedSchedulerByDefault() throws Exception {
+        // Stays on the current page, since the fake browser keeps no history.
+        FakeBrowser browser = new FakeBrowser() {
+            @Override
+            public <T extends View> Event<T> back(T destination) {
+                return open(getCurrentUrl(), destination);
+            }
+
+            @Override
+            public <T extends View> Event<T> forward(T destination) {
+                return open(getCurrentUrl(), destination);
+            }
+
+            @Override
+            public <T extends View> Event<T> refresh(T destination) {
+                return open(getCurrentUrl(), destination);
+            }
+        };
+        SimpleUrlView view = new SimpleUrlView("http://example.com");
+        Duration timeout = Duration.ofSeconds(1);
+
+        assertSame(view, browser.openAsync("http://example.com", view, timeout)
+                .get(1, TimeUnit.SECONDS));
+        assertSame(view, browser.backAsync(view, timeout).get(1, TimeUnit.SECONDS));
+        assertSame(view, browser.forwardAsync(view, timeout).get(1, TimeUnit.SECONDS));
+        assertSame(view, browser.refreshAsync(view, timeout).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldPollDestinationIfNotLoadedOnceNavigated() throws Exception {
+        FakeBrowser browser = new FakeBrowser();
+        CountingView view = new CountingView(3);
+
+        CompletableFuture<CountingView> future = scheduler.navigate(browser, notYetLoaded(),
+                view, Duration.ofSeconds(1));
+
+        assertSame(view, future.get(1, TimeUnit.SECONDS));
+        assertEquals(3, view.checks.get());
+        assertSame(browser, view.getContext());
+    }
+
+    @Test
+    public void shouldFailWithDarcyExceptionIfDestinationDoesNotLoadInTime() throws Exception {
+        CountingView view = new CountingView(Integer.MAX_VALUE);
+        view.failure = new IllegalStateException("still loading");
+
+        CompletableFuture<CountingView> future = scheduler.navigate(new FakeBrowser(),
+                notYetLoaded(), view, Duration.ofMillis(20));
+
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("Expected navigation to time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DarcyException);
+            assertSame(view.failure, e.getCause().getSuppressed()[0]);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldFailWithWhateverNavigationThrew() throws Exception {
+        IllegalStateException failure = new IllegalStateException("no such page");
+        Event<CountingView> navigation = mock(Event.class);
+        when(navigation.waitUpTo(any(Duration.class))).thenThrow(failure);
+
+        CompletableFuture<CountingView> future = scheduler.navigate(new FakeBrowser(), navigation,
+                new CountingView(1), Duration.ofSeconds(1));
+
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("Expected navigation to fail");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void shouldDriveManyNavigationsWithOneThread() throws Exception {
+        List<CompletableFuture<CountingView>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            futures.add(scheduler.navigate(new FakeBrowser(), notYetLoaded(), new CountingView(5),
+                    Duration.ofSeconds(10)));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+                .get(10, TimeUnit.SECONDS);
+
+        for (CompletableFuture<CountingView> future : futures) {
+            assertEquals(5, future.get().checks.get());
+        }
+
+        assertEquals(0, scheduler.getInFlightCount());
+    }
+
+    @Test
+    public void shouldFailNavigationsInFlightWhenClosed() throws Exception {
+        CompletableFuture<CountingView> future = scheduler.navigate(new FakeBrowser(),
+                notYetLoaded(), new CountingView(Integer.MAX_VALUE), Duration.ofSeconds(10));
+
+        scheduler.close();
+
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("Expected navigation to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DarcyException);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAcceptNavigationsOnceClosed() {
+        scheduler.close();
+
+        new FakeBrowser().openAsync(new SimpleUrlView("http://example.com"),
+                Duration.ofSeconds(1), scheduler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends View> Event<T> notYetLoaded() {
+        Event<T> event = mock(Event.class);
+        when(event.waitUpTo(any(Duration.class))).thenThrow(new TimeoutException());
+        return event;
+    }
+
+    /**
+     * A view which is loaded on a given check, and fails every check before that if given a
+     * failure.
+     */
+    static class CountingView implements View {
+        final AtomicInteger checks = new AtomicInteger();
+        final int loadedOnCheck;
+        volatile RuntimeException failure;
+        volatile ElementContext context;
+
+        CountingView(int loadedOnCheck) {
+            this.loadedOnCheck = loadedOnCheck;
+        }
+
+        @Override
+        public void setContext(ElementContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public ElementContext getContext() {
+            return context;
+        }
+
+        @Override
+        public boolean isLoaded() {
+            if (checks.incrementAndGet() >= loadedOnCheck) {
+                return true;
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.redhat.darcy.ui.DarcyException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(JUnit4.class)
+public class PollingWaitPolicyTest {
+    @Test
+    public void shouldPerformActionThenWaitForCondition() {
+        AtomicBoolean performed = new AtomicBoolean();
+        AtomicInteger checks = new AtomicInteger();
+        PollingWaitPolicy policy = new PollingWaitPolicy.Builder()
+                .pollingEvery(Duration.ofMillis(1))
+                .build();
+
+        policy.await(() -> performed.set(true),
+                () -> performed.get() && checks.incrementAndGet() == 3,
+                "the third check");
+
+        assertEquals(3, checks.get());
+    }
+
+    @Test
+    public void shouldThrowDarcyExceptionIfConditionIsNotMetBeforeTimeout() {
+        PollingWaitPolicy policy = new PollingWaitPolicy.Builder()
+                .timeout(Duration.ofMillis(50))
+                .pollingEvery(Duration.ofMillis(5))
+                .build();
+
+        long start = System.nanoTime();
+
+        try {
+            policy.await(() -> {}, () -> false, "nothing");
+            fail("Expected DarcyException");
+        } catch (DarcyException e) {
+            assertTrue(e.getMessage().contains("nothing"));
+        }
+
+        assertTrue("Expected to give up shortly after the timeout",
+                Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+    }
+
+    @Test
+    public void shouldRememberObservedLatencyWhenAdaptive() {
+        PollingWaitPolicy policy = new PollingWaitPolicy.Builder()
+                .pollingEvery(Duration.ofMillis(1))
+                .adaptive()
+                .build();
+
+        assertEquals(Duration.ZERO, policy.getExpectedLatency());
+
+        AtomicLong performedAt = new AtomicLong();
+        policy.await(() -> performedAt.set(System.nanoTime()),
+                () -> System.nanoTime() - performedAt.get() > 20_000_000,
+                "20 milliseconds to pass");
+
+        assertTrue(policy.getExpectedLatency().compareTo(Duration.ofMillis(20)) >= 0);
+    }
+
+    @Test
+    public void shouldCheckConditionAsSoonAsSignalCompletes() {
+        CompletableFuture<Void> signal = new CompletableFuture<>();
+        PollingWaitPolicy policy = new PollingWaitPolicy.Builder()
+                .pollingEvery(Duration.ofSeconds(30))
+                .timeout(Duration.ofMinutes(1))
+                .wakeOn(() -> signal)
+                .build();
+
+        AtomicInteger checks = new AtomicInteger();
+        long start = System.nanoTime();
+
+        policy.await(() -> new Thread(() -> signal.complete(null)).start(),
+                () -> checks.incrementAndGet() > 1,
+                "the second check");
+
+        assertTrue("Expected to be woken by the signal rather than the polling interval",
+                Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(10)) < 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowMaxIntervalLessThanInitialInterval() {
+        new PollingWaitPolicy.Builder()
+                .backoff(Duration.ofSeconds(1), Duration.ofMillis(1), 2);
+    }
+}
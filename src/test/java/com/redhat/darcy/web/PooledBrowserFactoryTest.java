@@ -0,0 +1,222 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.stubs.FakeBrowser;
+import com.redhat.darcy.web.stubs.MutableClock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class PooledBrowserFactoryTest {
+    private final List<FakeBrowser> started = new ArrayList<>();
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    public void shouldReuseReturnedBrowsers() {
+        PooledBrowserFactory pool = newPool().build();
+
+        pool.newBrowser().close();
+        pool.newBrowser().close();
+
+        assertEquals(1, started.size());
+        assertEquals(1, pool.getMetrics().getCreated());
+        assertEquals(2, pool.getMetrics().getLeased());
+        assertEquals(1, pool.getMetrics().getIdle());
+    }
+
+    @Test
+    public void shouldResetCookiesAndUrlWhenBrowserIsReturned() {
+        PooledBrowserFactory pool = newPool().build();
+        Browser browser = pool.newBrowser();
+
+        browser.open("http://example.com", new SimpleUrlView("http://example.com"))
+                .waitUpTo(Duration.ofSeconds(1));
+        browser.cookies().add(new Cookie("session", "1234"));
+        browser.closeAll();
+
+        FakeBrowser pooled = started.get(0);
+        assertFalse("Expected browser to stay open", pooled.isClosed());
+        assertTrue("Expected cookies to be deleted", pooled.cookies().getAll().isEmpty());
+        assertEquals("about:blank", pooled.getCurrentUrl());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAllowUseOfBrowserAfterItIsReturned() {
+        PooledBrowserFactory pool = newPool().build();
+        Browser browser = pool.newBrowser();
+
+        browser.close();
+        browser.getCurrentUrl();
+    }
+
+    @Test
+    public void shouldStartPrewarmedBrowsersWhenBuilt() {
+        PooledBrowserFactory pool = newPool().maxSize(3).prewarm(2).build();
+
+        assertEquals(2, started.size());
+
+        pool.newBrowser();
+        pool.newBrowser();
+
+        assertEquals("Expected prewarmed browsers to be leased", 2, started.size());
+    }
+
+    @Test
+    public void shouldNotPrewarmBeyondMaxSize() {
+        PooledBrowserFactory pool = newPool().maxSize(2).build();
+
+        pool.newBrowser();
+        pool.prewarm(5);
+
+        assertEquals(2, started.size());
+        assertEquals(1, pool.getMetrics().getIdle());
+        assertEquals(1, pool.getMetrics().getActive());
+    }
+
+    @Test
+    public void shouldReplaceBrowsersWhichFailValidation() {
+        PooledBrowserFactory pool = newPool().build();
+
+        pool.newBrowser().close();
+        started.get(0).closeAll();
+        pool.newBrowser();
+
+        assertEquals(2, started.size());
+        assertEquals(1, pool.getMetrics().getFailedValidations());
+        assertEquals(1, pool.getMetrics().getActive());
+    }
+
+    @Test
+    public void shouldEvictBrowsersIdleLongerThanMaxIdleTime() {
+        PooledBrowserFactory pool = newPool().maxIdleTime(Duration.ofMinutes(1)).build();
+
+        pool.newBrowser().close();
+        clock.advance(Duration.ofMinutes(2));
+
+        assertEquals(1, pool.evictIdle());
+        assertTrue(started.get(0).isClosed());
+        assertEquals(0, pool.getMetrics().getIdle());
+        assertEquals(1, pool.getMetrics().getEvicted());
+    }
+
+    @Test
+    public void shouldThrowDarcyExceptionWhenNoBrowserIsReturnedToFullPoolInTime() {
+        PooledBrowserFactory pool = newPool().maxSize(1).maxWait(Duration.ofMillis(10)).build();
+
+        pool.newBrowser();
+
+        try {
+            pool.newBrowser();
+            fail("Expected DarcyException");
+        } catch (DarcyException e) {
+            assertThat(pool.getMetrics().getTimeouts(), equalTo(1L));
+        }
+    }
+
+    @Test
+    public void shouldCloseBrowsersWhichFailToReset() {
+        PooledBrowserFactory pool = newPool()
+                .maxSize(1)
+                .resetWith(b -> { throw new RuntimeException("Could not reset"); })
+                .build();
+
+        pool.newBrowser().close();
+
+        assertTrue(started.get(0).isClosed());
+        assertEquals(1, pool.getMetrics().getFailedResets());
+
+        pool.newBrowser();
+        assertEquals("Expected lease to be freed after failed reset", 2, started.size());
+    }
+
+    @Test
+    public void shouldCloseIdleBrowsersAndBrowsersReturnedAfterPoolIsClosed() {
+        PooledBrowserFactory pool = newPool().build();
+        Browser leased = pool.newBrowser();
+        pool.prewarm(2);
+
+        pool.close();
+        assertTrue(started.get(1).isClosed());
+
+        leased.close();
+        assertTrue(started.get(0).isClosed());
+    }
+
+    @Test
+    public void shouldNotStartAnotherBrowserWhileOneIsBeingPrewarmed() throws Exception {
+        CountDownLatch prewarming = new CountDownLatch(1);
+        CountDownLatch finishPrewarming = new CountDownLatch(1);
+        AtomicInteger creations = new AtomicInteger();
+        PooledBrowserFactory pool = new PooledBrowserFactory.Builder(() -> {
+            if (creations.incrementAndGet() == 1) {
+                prewarming.countDown();
+
+                try {
+                    finishPrewarming.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return new FakeBrowser();
+        }).maxSize(1).maxWait(Duration.ofSeconds(5)).clock(clock).build();
+
+        CompletableFuture<Integer> prewarmed = CompletableFuture.supplyAsync(() -> pool.prewarm(1));
+        assertTrue(prewarming.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Browser> leased = CompletableFuture.supplyAsync(pool::newBrowser);
+        Thread.sleep(50);
+        finishPrewarming.countDown();
+
+        assertEquals(Integer.valueOf(1), prewarmed.get(5, TimeUnit.SECONDS));
+        leased.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, creations.get());
+        assertEquals(1, pool.getMetrics().getActive());
+        assertEquals(0, pool.getMetrics().getIdle());
+    }
+
+    private PooledBrowserFactory.Builder newPool() {
+        return new PooledBrowserFactory.Builder(() -> {
+            FakeBrowser browser = new FakeBrowser();
+            started.add(browser);
+            return browser;
+        }).maxSize(2).clock(clock);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.darcy.web.stubs.FakeScreenshotTakingBrowser;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Feature;
+import com.google.common.jimfs.Jimfs;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RunWith(JUnit4.class)
+public class ScreenshotStoreTest {
+    private final FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix());
+    private final ScreenshotStore store = new ScreenshotStore(fileSystem.getPath("/store"));
+
+    @Test
+    public void shouldWriteIdenticalScreenshotsOnlyOnce() throws IOException {
+        byte[] data = new byte[] { 1, 2, 3 };
+
+        store.store(data, fileSystem.getPath("/results/first.png"));
+        store.store(data, fileSystem.getPath("/results/second.png"));
+
+        assertEquals(1, store.getStoredCount());
+        assertEquals(1, store.getDeduplicatedCount());
+        assertEquals(1, objects().size());
+    }
+
+    @Test
+    public void shouldLinkRequestedPathsToStoredScreenshot() throws IOException {
+        byte[] data = new byte[] { 1, 2, 3 };
+        Path first = fileSystem.getPath("/results/first.png");
+        Path second = fileSystem.getPath("/results/second.png");
+
+        assertEquals(first, store.store(data, first));
+        assertEquals(second, store.store(data, second));
+
+        assertThat(Files.readAllBytes(first), equalTo(data));
+        assertThat(Files.readAllBytes(second), equalTo(data));
+        assertTrue(Files.isSameFile(first, objects().get(0)));
+        assertTrue(Files.isSameFile(second, objects().get(0)));
+    }
+
+    @Test
+    public void shouldStoreDifferentScreenshotsSeparately() throws IOException {
+        store.store(new byte[] { 1 }, fileSystem.getPath("/results/one.png"));
+        store.store(new byte[] { 2 }, fileSystem.getPath("/results/two.png"));
+
+        assertEquals(2, store.getStoredCount());
+        assertEquals(2, objects().size());
+        assertThat(Files.readAllBytes(fileSystem.getPath("/results/two.png")),
+                equalTo(new byte[] { 2 }));
+    }
+
+    @Test
+    public void shouldNameStoredScreenshotsByHashOnly() throws IOException {
+        store.store("abc".getBytes(StandardCharsets.UTF_8), fileSystem.getPath("/shot.png"));
+
+        // SHA-256 of "abc"
+        assertEquals(fileSystem.getPath("/store/objects/ba/"
+                        + "7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"),
+                objects().get(0));
+    }
+
+    @Test
+    public void shouldStoreIdenticalScreenshotsOnceRegardlessOfExtension() throws IOException {
+        byte[] data = new byte[] { 1, 2, 3 };
+
+        store.store(data, fileSystem.getPath("/results/a.png"));
+        store.store(data, fileSystem.getPath("/results/b.PNG"));
+        store.store(data, fileSystem.getPath("/results/c"));
+
+        assertEquals(1, store.getStoredCount());
+        assertEquals(1, objects().size());
+    }
+
+    @Test
+    public void shouldNotChangeOtherLinksWhenStoredPathIsWrittenOver() throws Exception {
+        byte[] data = new byte[] { 1, 2, 3 };
+        Path first = fileSystem.getPath("/results/first.png");
+        Path second = fileSystem.getPath("/results/second.png");
+        Path third = fileSystem.getPath("/results/third.png");
+
+        store.store(data, first);
+        store.store(data, second);
+        store.store(data, third);
+
+        new FakeScreenshotTakingBrowser(new byte[] { 8 }).takeScreenshot(first);
+
+        try (ScreenshotWriter writer = new ScreenshotWriter.Builder().build()) {
+            writer.write(new byte[] { 9 }, second).get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(Files.readAllBytes(first), equalTo(new byte[] { 8 }));
+        assertThat(Files.readAllBytes(second), equalTo(new byte[] { 9 }));
+        assertThat(Files.readAllBytes(third), equalTo(data));
+        assertThat(Files.readAllBytes(objects().get(0)), equalTo(data));
+
+        Path fourth = fileSystem.getPath("/results/fourth.png");
+        store.store(data, fourth);
+
+        assertThat(Files.readAllBytes(fourth), equalTo(data));
+    }
+
+    @Test
+    public void shouldReplaceExistingFileAtRequestedPath() throws IOException {
+        Path path = fileSystem.getPath("/results/shot.png");
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[] { 9, 9 });
+
+        store.store(new byte[] { 1 }, path);
+
+        assertThat(Files.readAllBytes(path), equalTo(new byte[] { 1 }));
+    }
+
+    @Test
+    public void shouldHashScreenshotsTakenFromBrowser() throws IOException {
+        byte[] data = new byte[] { 4, 5, 6 };
+        Path path = fileSystem.getPath("/results/browser.png");
+
+        store.store(new FakeScreenshotTakingBrowser(data), path);
+        store.store(data, fileSystem.getPath("/results/bytes.png"));
+
+        assertEquals(1, store.getStoredCount());
+        assertThat(Files.readAllBytes(path), equalTo(data));
+    }
+
+    @Test
+    public void shouldRecordInManifestWhenLinksAreNotSupported() throws IOException {
+        FileSystem noLinks = Jimfs.newFileSystem(Configuration.unix().toBuilder()
+                .setSupportedFeatures(Feature.FILE_CHANNEL)
+                .build());
+        ScreenshotStore store = new ScreenshotStore(noLinks.getPath("/store"));
+        Path path = noLinks.getPath("/results/shot.png");
+
+        Path stored = store.store(new byte[] { 1, 2 }, path);
+
+        assertFalse(Files.exists(path));
+        assertThat(Files.readAllBytes(stored), equalTo(new byte[] { 1, 2 }));
+        assertEquals(1, store.getManifestedCount());
+
+        List<String> manifest = Files.readAllLines(noLinks.getPath("/store/manifest"));
+        assertEquals(1, manifest.size());
+        assertTrue(manifest.get(0).endsWith(" /results/shot.png"));
+        assertTrue(stored.toString().contains(manifest.get(0).substring(2, 64)));
+    }
+
+    @Test
+    public void shouldDeduplicateScreenshotsWrittenInBackground() throws Exception {
+        try (ScreenshotWriter writer = new ScreenshotWriter.Builder().store(store).build()) {
+            writer.write(new byte[] { 7 }, fileSystem.getPath("/a.png")).get(5, TimeUnit.SECONDS);
+            writer.write(new byte[] { 7 }, fileSystem.getPath("/b.png")).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, store.getStoredCount());
+        assertThat(Files.readAllBytes(fileSystem.getPath("/b.png")), equalTo(new byte[] { 7 }));
+    }
+
+    private List<Path> objects() throws IOException {
+        try (Stream<Path> files = Files.walk(fileSystem.getPath("/store/objects"))) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.web.stubs.FakeScreenshotTakingBrowser;
+
+import com.google.common.jimfs.Jimfs;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+@RunWith(JUnit4.class)
+public class ScreenshotWriterTest {
+    private final FileSystem fileSystem = Jimfs.newFileSystem();
+    private ScreenshotWriter writer;
+
+    @After
+    public void closeWriter() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void shouldWriteScreenshotToPathCreatingParentDirectories() throws Exception {
+        byte[] data = new byte[] { 1, 2, 3 };
+        writer = new ScreenshotWriter.Builder().build();
+        Path path = fileSystem.getPath("parent/folder/example.png");
+
+        Path written = writer.write(new FakeScreenshotTakingBrowser(data), path)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(path, written);
+        assertThat(Files.readAllBytes(path), equalTo(data));
+    }
+
+    @Test
+    public void shouldReplaceExistingFile() throws Exception {
+        writer = new ScreenshotWriter.Builder().build();
+        Path path = fileSystem.getPath("example.png");
+        Files.write(path, new byte[] { 9, 9, 9, 9, 9 });
+
+        writer.write(new byte[] { 1, 2 }, path).get(5, TimeUnit.SECONDS);
+
+        assertThat(Files.readAllBytes(path), equalTo(new byte[] { 1, 2 }));
+    }
+
+    @Test
+    public void shouldApplyTransformBeforeWriting() throws Exception {
+        writer = new ScreenshotWriter.Builder()
+                .transform(bytes -> new byte[] { (byte) bytes.length })
+                .build();
+        Path path = fileSystem.getPath("example.png");
+
+        writer.write(new byte[] { 1, 2, 3 }, path).get(5, TimeUnit.SECONDS);
+
+        assertThat(Files.readAllBytes(path), equalTo(new byte[] { 3 }));
+    }
+
+    @Test
+    public void shouldWriteEveryQueuedScreenshotWhenQueueOverflows() throws Exception {
+        writer = new ScreenshotWriter.Builder().queueCapacity(1).build();
+        List<CompletableFuture<Path>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            futures.add(writer.write(new byte[] { (byte) i }, fileSystem.getPath(i + ".png")));
+        }
+
+        writer.close();
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(futures.get(i).isDone());
+            assertThat(Files.readAllBytes(fileSystem.getPath(i + ".png")),
+                    equalTo(new byte[] { (byte) i }));
+        }
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWithDarcyExceptionWhenWriteFails() throws Exception {
+        writer = new ScreenshotWriter.Builder().build();
+        Path directory = fileSystem.getPath("directory");
+        Files.createDirectory(directory);
+
+        try {
+            writer.write(new byte[] { 1 }, directory).get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DarcyException);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAcceptScreenshotsAfterBeingClosed() {
+        writer = new ScreenshotWriter.Builder().build();
+        writer.close();
+
+        writer.write(new byte[] { 1 }, fileSystem.getPath("example.png"));
+    }
+
+    @Test
+    public void shouldDownscalePngs() throws IOException {
+        byte[] png = png(100, 50);
+
+        BufferedImage scaled = ImageIO.read(new ByteArrayInputStream(
+                ScreenshotTransform.downscale(0.5).apply(png)));
+
+        assertEquals(50, scaled.getWidth());
+        assertEquals(25, scaled.getHeight());
+    }
+
+    @Test
+    public void shouldReencodePngsAsJpegs() throws IOException {
+        byte[] jpeg = ScreenshotTransform.toJpeg(0.5f).apply(png(20, 20));
+
+        assertEquals((byte) 0xFF, jpeg[0]);
+        assertEquals((byte) 0xD8, jpeg[1]);
+        assertEquals(20, ImageIO.read(new ByteArrayInputStream(jpeg)).getWidth());
+    }
+
+    @Test(expected = DarcyException.class)
+    public void shouldThrowDarcyExceptionWhenTransformingSomethingOtherThanAnImage() {
+        ScreenshotTransform.downscale(0.5).apply(new byte[] { 1, 2, 3 });
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return bytes.toByteArray();
+    }
+}
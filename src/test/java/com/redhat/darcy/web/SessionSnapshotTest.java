@@ -0,0 +1,141 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.redhat.darcy.ui.DarcyException;
+import com.redhat.darcy.web.api.CookieManager;
+import com.redhat.darcy.web.stubs.FakeCookieManager;
+
+import com.google.common.jimfs.Jimfs;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+@RunWith(JUnit4.class)
+public class SessionSnapshotTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2015, 6, 1, 12, 0);
+    private static final Clock CLOCK = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+    private final FileSystem fileSystem = Jimfs.newFileSystem();
+
+    @Test
+    public void shouldRoundTripEveryCookieFieldThroughFile() {
+        SessionSnapshot snapshot = SessionSnapshot.of(Arrays.asList(
+                new Cookie.Builder("session", "abc123")
+                        .domain("example.com")
+                        .path("/app")
+                        .expiresOn(NOW.plusDays(1))
+                        .isSecure(true)
+                        .isHttpOnly(true)
+                        .build(),
+                new Cookie("plain", "")));
+        Path path = fileSystem.getPath("sessions/admin");
+
+        snapshot.writeTo(path);
+
+        assertEquals(snapshot, SessionSnapshot.readFrom(path));
+    }
+
+    @Test
+    public void shouldReplaceExistingSnapshotFile() {
+        Path path = fileSystem.getPath("admin");
+
+        SessionSnapshot.of(Arrays.asList(new Cookie("old", "1"))).writeTo(path);
+        SessionSnapshot.of(Arrays.asList(new Cookie("new", "2"))).writeTo(path);
+
+        assertEquals("new", SessionSnapshot.readFrom(path).getCookies().iterator().next()
+                .getName());
+    }
+
+    @Test
+    public void shouldSnapshotAndRestoreIntoAnotherCookieManager() {
+        CookieManager original = new FakeCookieManager();
+        original.addAll(Arrays.asList(new Cookie("a", "1"), new Cookie("b", "2")));
+        CookieManager restored = new FakeCookieManager();
+
+        restored.restore(original.snapshot(), CLOCK);
+
+        assertEquals(original.getAll(), restored.getAll());
+    }
+
+    @Test
+    public void shouldNotRestoreExpiredCookies() {
+        CookieManager cookies = new FakeCookieManager();
+        SessionSnapshot snapshot = SessionSnapshot.of(Arrays.asList(
+                new Cookie("expired", "1", "/", NOW.minusSeconds(1)),
+                new Cookie("expiresNow", "2", "/", NOW),
+                new Cookie("valid", "3", "/", NOW.plusSeconds(1)),
+                new Cookie("session", "4")));
+
+        cookies.restore(snapshot, CLOCK);
+
+        assertFalse(cookies.get("expired").isPresent());
+        assertFalse(cookies.get("expiresNow").isPresent());
+        assertTrue(cookies.get("valid").isPresent());
+        assertTrue(cookies.get("session").isPresent());
+    }
+
+    @Test
+    public void shouldNotRestoreAnyCookiesIfOneIsInvalid() {
+        CookieManager cookies = new FakeCookieManager();
+        SessionSnapshot snapshot = SessionSnapshot.of(Arrays.asList(
+                new Cookie("valid", "1"),
+                new Cookie("in;valid", "2")));
+
+        try {
+            cookies.restore(snapshot, CLOCK);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(cookies.getAll().isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldLeaveBytesFollowingSnapshotInStream() throws Exception {
+        SessionSnapshot snapshot = SessionSnapshot.of(Arrays.asList(new Cookie("session", "1")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeTo(out);
+        out.write(new byte[] { 7, 8, 9 });
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+
+        assertEquals(snapshot, SessionSnapshot.readFrom(in));
+        assertEquals(3, in.available());
+        assertEquals(7, in.read());
+    }
+
+    @Test(expected = DarcyException.class)
+    public void shouldThrowDarcyExceptionReadingSomethingOtherThanSnapshot() {
+        SessionSnapshot.readFrom(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6 }));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.darcy.web.stubs.FakeBrowser;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class SimpleUrlViewTest {
+    @Test
+    public void shouldListDeclaredFieldsOfViewAndItsSuperclasses() throws Exception {
+        List<Field> fields = SimpleUrlView.declaredFields(SubView.class);
+
+        assertTrue(fields.contains(SubView.class.getDeclaredField("title")));
+        assertTrue(fields.contains(BaseView.class.getDeclaredField("owner")));
+        assertTrue(fields.contains(SimpleUrlView.class.getDeclaredField("url")));
+    }
+
+    @Test
+    public void shouldReflectOverEachViewClassOnlyOnce() {
+        new SubView();
+        new SubView();
+
+        assertSame(SimpleUrlView.declaredFields(SubView.class),
+                SimpleUrlView.declaredFields(SubView.class));
+    }
+
+    @Test
+    public void shouldUseContextOnceSet() {
+        FakeBrowser browser = new FakeBrowser();
+        SimpleUrlView view = new SubView();
+
+        view.setContext(browser);
+
+        assertSame(browser, view.getContext());
+        assertFalse(view.isLoaded());
+
+        browser.open("http://example.com/sub", view).waitUpTo(Duration.ofSeconds(1));
+
+        assertTrue(view.isLoaded());
+    }
+
+    @Test
+    public void shouldBeItsOwnDestination() {
+        SimpleUrlView view = new SimpleUrlView("http://example.com");
+
+        assertSame(view, view.destination());
+        assertEquals("http://example.com", view.url());
+    }
+
+    static class SubView extends BaseView {
+        private final String title = "Sub";
+
+        SubView() {
+            super("http://example.com/sub");
+        }
+    }
+
+    static class BaseView extends SimpleUrlView {
+        private String owner;
+
+        BaseView(String url) {
+            super(url);
+        }
+    }
+}
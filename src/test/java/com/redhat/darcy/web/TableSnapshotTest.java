@@ -0,0 +1,113 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class TableSnapshotTest {
+    private final TableSnapshot snapshot = new TableSnapshot.Builder("class")
+            .headers(Arrays.asList("Name", "Email"))
+            .row(Arrays.asList("Alice", "alice@example.com"), classes("first", "email"))
+            .row(Arrays.asList("Bob", "bob@example.com"), classes("second", "email"))
+            .row(Collections.singletonList("Carol"))
+            .build();
+
+    @Test
+    public void shouldStoreCellsByColumn() {
+        assertEquals(Arrays.asList("Alice", "Bob", "Carol"), snapshot.getColumn(1));
+        assertEquals(Arrays.asList("alice@example.com", "bob@example.com", null),
+                snapshot.getColumn("Email"));
+    }
+
+    @Test
+    public void shouldUseOneBasedIndexes() {
+        assertEquals(3, snapshot.getRowCount());
+        assertEquals(2, snapshot.getColumnCount());
+        assertEquals("bob@example.com", snapshot.getText(2, 2));
+        assertEquals("Email", snapshot.getHeader(2));
+        assertEquals(2, snapshot.indexOfHeader("Email"));
+        assertEquals(-1, snapshot.indexOfHeader("Phone"));
+    }
+
+    @Test
+    public void shouldPadShortRowsWithNull() {
+        assertNull(snapshot.getText(3, 2));
+        assertNull(snapshot.getAttribute(3, 1, "class"));
+    }
+
+    @Test
+    public void shouldReadAttributesOfCells() {
+        assertEquals("second", snapshot.getAttribute(2, 1, "class"));
+        assertEquals("email", snapshot.getAttribute(1, 2, "class"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowIllegalArgumentExceptionForAttributesThatWereNotRead() {
+        snapshot.getAttribute(1, 1, "id");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldThrowIndexOutOfBoundsExceptionForRowsOutsideOfTable() {
+        snapshot.getText(4, 1);
+    }
+
+    @Test
+    public void shouldReadRowsLocally() {
+        TableSnapshot.Row row = snapshot.getRows().get(1);
+
+        assertEquals(2, row.getIndex());
+        assertEquals("Bob", row.getText("Name"));
+        assertEquals(Arrays.asList("Bob", "bob@example.com"), row.getCells());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowColumnsToBeModified() {
+        snapshot.getColumn(1).set(0, "Mallory");
+    }
+
+    @Test
+    public void shouldBeEmptyIfThereAreNoRows() {
+        TableSnapshot empty = new TableSnapshot.Builder()
+                .headers(Collections.singletonList("Name"))
+                .build();
+
+        assertTrue(empty.isEmpty());
+        assertTrue(empty.getColumn(1).isEmpty());
+    }
+
+    private static Map<String, List<String>> classes(String... classes) {
+        Map<String, List<String>> attributes = new HashMap<>();
+        attributes.put("class", Arrays.asList(classes));
+        return attributes;
+    }
+}
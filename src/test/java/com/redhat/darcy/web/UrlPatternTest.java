@@ -0,0 +1,140 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class UrlPatternTest {
+    @Test
+    public void shouldMatchLiteralTemplate() {
+        UrlPattern pattern = UrlPattern.compile("http://example.com/users");
+
+        assertTrue(pattern.test("http://example.com/users"));
+        assertTrue(pattern.test("HTTP://Example.COM/users"));
+        assertTrue(pattern.test("http://example.com/users?sort=name#top"));
+        assertFalse(pattern.test("http://example.com/Users"));
+        assertFalse(pattern.test("http://example.com/users/1"));
+        assertFalse(pattern.test("http://example.com:8080/users"));
+        assertFalse(pattern.test(null));
+    }
+
+    @Test
+    public void shouldTreatEmptyPathAsRoot() {
+        UrlPattern pattern = UrlPattern.compile("http://example.com");
+
+        assertTrue(pattern.test("http://example.com/"));
+        assertTrue(pattern.test("http://example.com"));
+    }
+
+    @Test
+    public void shouldCaptureParameters() {
+        UrlPattern pattern = UrlPattern.compile("https://{tenant}.example.com:{port}/users/{id}");
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("tenant", "acme");
+        expected.put("port", "8443");
+        expected.put("id", "42");
+
+        assertEquals(expected, pattern.match("https://acme.example.com:8443/users/42").get());
+        assertFalse(pattern.match("https://acme.example.com/users/42").isPresent());
+    }
+
+    @Test
+    public void shouldMatchWildcards() {
+        UrlPattern pattern = UrlPattern.compile("http://**.example.com/*/docs/**");
+
+        assertTrue(pattern.test("http://example.com/v1/docs"));
+        assertTrue(pattern.test("http://a.b.example.com/v2/docs/api/index.html"));
+        assertFalse(pattern.test("http://example.org/v1/docs"));
+        assertFalse(pattern.test("http://example.com/docs"));
+    }
+
+    @Test
+    public void shouldMatchPathOnlyTemplateWithAnyHost() {
+        UrlPattern pattern = UrlPattern.compile("/users/{id}");
+
+        assertEquals(Collections.singletonMap("id", "7"),
+                pattern.match("https://localhost:8080/users/7").get());
+        assertTrue(pattern.test("http://[::1]/users/7"));
+        assertFalse(pattern.test("about:blank"));
+    }
+
+    @Test
+    public void shouldRequireTemplateQueryParameters() {
+        UrlPattern pattern = UrlPattern.compile("http://example.com/search?q={query}&debug");
+
+        assertEquals(Collections.singletonMap("query", "darcy"),
+                pattern.match("http://example.com/search?page=2&debug=true&q=darcy").get());
+        assertFalse(pattern.test("http://example.com/search?q=darcy"));
+        assertFalse(pattern.test("http://example.com/search"));
+    }
+
+    @Test
+    public void shouldReturnSameResultForRepeatedUrl() {
+        UrlPattern pattern = UrlPattern.compile("/users/{id}");
+
+        assertTrue(pattern.test("http://example.com/users/1"));
+        assertTrue(pattern.test("http://example.com/users/1"));
+        assertFalse(pattern.test("http://example.com/teams/1"));
+        assertEquals("2", pattern.match("http://example.com/users/2").get().get("id"));
+    }
+
+    @Test
+    public void shouldWorkAsMatcher() {
+        assertTrue(UrlPattern.compile("/users/*").matches("http://example.com/users/1"));
+        assertFalse(UrlPattern.compile("/users/*").matches(new Object()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnclosedParameter() {
+        UrlPattern.compile("/users/{id");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRepeatedParameter() {
+        UrlPattern.compile("/users/{id}/friends/{id}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRelativeTemplate() {
+        UrlPattern.compile("users/{id}");
+    }
+
+    @Test
+    public void shouldBeEqualByTemplate() {
+        assertEquals(UrlPattern.compile("/users/{id}"), UrlPattern.compile("/users/{id}"));
+        assertNotEquals(UrlPattern.compile("/users/{id}"), UrlPattern.compile("/users/*"));
+        assertEquals(By.urlPattern("/users/{id}"), By.urlPattern("/users/{id}"));
+        assertEquals(By.urlPattern("/users/{id}").hashCode(),
+                By.urlPattern("/users/{id}").hashCode());
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.instrumentation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.redhat.darcy.ui.api.Context;
+import com.redhat.darcy.ui.api.elements.Element;
+import com.redhat.darcy.web.By;
+import com.redhat.darcy.web.SimpleUrlView;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.internal.FindsByCss;
+import com.redhat.darcy.web.stubs.FakeBrowser;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+@RunWith(JUnit4.class)
+public class InstrumentationTest {
+    private final InstrumentationRegistry registry = new InstrumentationRegistry();
+
+    @After
+    public void uninstall() {
+        Instrumentation.uninstall();
+    }
+
+    @Test
+    public void shouldNotRecordAnythingWhenDisabled() {
+        By.css("div").findAll(Element.class, mock(TestContext.class));
+
+        assertTrue(registry.getMetrics().isEmpty());
+    }
+
+    @Test
+    public void shouldRecordLocatorCallsByLocatorTypeAndMethod() {
+        Instrumentation.install(registry);
+        TestContext context = mock(TestContext.class);
+
+        By.css("div").findAll(Element.class, context);
+        By.css("span").findAll(Element.class, context);
+        By.css("div").find(Element.class, context);
+
+        List<MetricSnapshot> metrics = registry.getMetrics(CallKind.LOCATOR);
+
+        assertEquals(2, metrics.size());
+        assertEquals(2, count(metrics, "ByCss.findAll"));
+        assertEquals(1, count(metrics, "ByCss.find"));
+    }
+
+    @Test
+    public void shouldRecordCallsWhichThrow() {
+        Instrumentation.install(registry);
+
+        try {
+            By.url("http://example.com").find(Browser.class, mock(Context.class));
+        } catch (RuntimeException expected) {
+        }
+
+        assertEquals(1, count(registry.getMetrics(CallKind.LOCATOR), "ByUrl.find"));
+    }
+
+    @Test
+    public void shouldRecordBrowserCallsAndViewLoadChecks() {
+        Instrumentation.install(registry);
+        Browser browser = new InstrumentedBrowser(new FakeBrowser());
+        SimpleUrlView view = new SimpleUrlView("about:blank");
+        view.setContext(browser);
+
+        assertTrue(view.isLoaded());
+
+        assertEquals(1, count(registry.getMetrics(CallKind.BROWSER), "getCurrentUrl"));
+        assertEquals(1, count(registry.getMetrics(CallKind.VIEW),
+                SimpleUrlView.class.getName() + "#isLoaded"));
+    }
+
+    @Test
+    public void shouldInstrumentBrowsersFoundByEitherSelectionMethod() {
+        Browser browser = new InstrumentedBrowser(new FakeBrowser());
+
+        List<Browser> windows = browser.find()
+                .contextsOfType(Browser.class, By.url("about:blank"));
+
+        assertEquals(1, windows.size());
+        assertTrue(windows.get(0) instanceof InstrumentedBrowser);
+    }
+
+    @Test
+    public void shouldApproximatePercentilesWithinRecordedRange() {
+        for (int i = 0; i < 100; i++) {
+            registry.record(CallKind.BROWSER, "getTitle", 1000);
+        }
+
+        registry.record(CallKind.BROWSER, "getTitle", 1_000_000);
+
+        MetricSnapshot metric = registry.getMetrics().get(0);
+
+        assertEquals(101, metric.getCount());
+        assertEquals(1_000_000, metric.getMaxNanos());
+        assertEquals(1023, metric.getP50Nanos());
+        assertEquals(1023, metric.getP99Nanos());
+        assertEquals((100 * 1000 + 1_000_000) / 101, metric.getMeanNanos());
+    }
+
+    @Test
+    public void shouldExportMetricsAsJson() {
+        registry.record(CallKind.VIEW, "com.example.\"Quoted\"View#isLoaded", 5);
+
+        assertEquals("[{\"kind\":\"VIEW\",\"name\":\"com.example.\\\"Quoted\\\"View#isLoaded\","
+                + "\"count\":1,\"totalNanos\":5,\"meanNanos\":5,\"maxNanos\":5,\"p50Nanos\":5,"
+                + "\"p90Nanos\":5,\"p99Nanos\":5}]", JsonExporter.toJson(registry));
+    }
+
+    @Test
+    public void shouldExposeMetricsThroughJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName name = JmxExporter.register(registry, server, JmxExporter.DEFAULT_NAME);
+        registry.record(CallKind.BROWSER, "getTitle", 5);
+        registry.record(CallKind.BROWSER, "getSource", 5);
+
+        assertEquals(2L, server.getAttribute(name, "TotalCount"));
+
+        server.invoke(name, "reset", new Object[0], new String[0]);
+        assertEquals(0L, server.getAttribute(name, "TotalCount"));
+
+        JmxExporter.unregister(server, name);
+    }
+
+    private static long count(List<MetricSnapshot> metrics, String name) {
+        return metrics.stream()
+                .filter(m -> m.getName().equals(name))
+                .mapToLong(MetricSnapshot::getCount)
+                .sum();
+    }
+
+    interface TestContext extends Context, FindsByCss {}
+}
@@ -0,0 +1,162 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.darcy.web.internal;
+
+import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.redhat.darcy.web.stubs.MutableClock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RunWith(JUnit4.class)
+public class WindowUrlIndexTest {
+    private final Map<String, String> windows = new LinkedHashMap<>();
+    private final List<String> switchedTo = new ArrayList<>();
+
+    @Before
+    public void openWindows() {
+        for (int i = 1; i <= 10; i++) {
+            windows.put("window" + i, "http://example.com/page" + i);
+        }
+    }
+
+    @Test
+    public void shouldReadEveryWindowWhenNothingIsKnown() {
+        WindowUrlIndex<String> index = new WindowUrlIndex<>();
+
+        assertEquals(Optional.of("window10"),
+                index.find(handles(), equalTo("http://example.com/page10"), this::currentUrl));
+        assertEquals(10, switchedTo.size());
+        assertEquals(Optional.of("http://example.com/page3"), index.getLastKnownUrl("window3"));
+    }
+
+    @Test
+    public void shouldOnlySwitchToConfirmKnownMatch() {
+        WindowUrlIndex<String> index = new WindowUrlIndex<>();
+        windows.forEach(index::record);
+
+        assertEquals(Optional.of("window10"),
+                index.find(handles(), equalTo("http://example.com/page10"), this::currentUrl));
+        assertEquals(Collections.singletonList("window10"), switchedTo);
+    }
+
+    @Test
+    public void shouldNotReadWindowsWithRecentUrlsOnMiss() {
+        WindowUrlIndex<String> index = new WindowUrlIndex<>();
+        windows.forEach(index::record);
+
+        assertFalse(index.find(handles(), equalTo("http://example.com/login"), this::currentUrl)
+                .isPresent());
+        assertEquals(Collections.emptyList(), switchedTo);
+    }
+
+    @Test
+    public void shouldFindWindowWhichNavigatedWithoutBeingRecordedOnceUrlIsStale() {
+        MutableClock clock = new MutableClock();
+        WindowUrlIndex<String> index = new WindowUrlIndex<>(Duration.ofSeconds(5), clock);
+        windows.forEach(index::record);
+        windows.put("window4", "http://example.com/login");
+
+        assertFalse(index.find(handles(), equalTo("http://example.com/login"), this::currentUrl)
+                .isPresent());
+
+        clock.advance(Duration.ofSeconds(5));
+
+        assertEquals(Optional.of("window4"),
+                index.find(handles(), equalTo("http://example.com/login"), this::currentUrl));
+        assertEquals(Optional.of("http://example.com/login"), index.getLastKnownUrl("window4"));
+    }
+
+    @Test
+    public void shouldNotReturnKnownMatchWhichNoLongerMatches() {
+        WindowUrlIndex<String> index = new WindowUrlIndex<>();
+        windows.forEach(index::record);
+        index.record("window2", "http://example.com/login");
+
+        assertFalse(index.find(handles(), equalTo("http://example.com/login"), this::currentUrl)
+                .isPresent());
+        assertEquals(Optional.of("http://example.com/page2"), index.getLastKnownUrl("window2"));
+    }
+
+    @Test
+    public void shouldForgetClosedWindows() {
+        WindowUrlIndex<String> index = new WindowUrlIndex<>();
+        windows.forEach(index::record);
+        windows.remove("window5");
+
+        index.find(handles(), equalTo("http://example.com/page1"), this::currentUrl);
+
+        assertEquals(Optional.empty(), index.getLastKnownUrl("window5"));
+    }
+
+    @Test
+    public void shouldReadEveryWindowForFindAllWithZeroMaxAge() {
+        WindowUrlIndex<String> index = new WindowUrlIndex<>(Duration.ZERO);
+        windows.forEach(index::record);
+        windows.put("window7", "http://example.com/page1");
+
+        assertEquals(Arrays.asList("window1", "window7"),
+                index.findAll(handles(), equalTo("http://example.com/page1"), this::currentUrl));
+        assertEquals(10, switchedTo.size());
+    }
+
+    @Test
+    public void shouldTrustRecentUrlsForFindAllUntilMaxAge() {
+        MutableClock clock = new MutableClock();
+        WindowUrlIndex<String> index = new WindowUrlIndex<>(Duration.ofSeconds(5), clock);
+        windows.forEach(index::record);
+
+        assertEquals(Arrays.asList("window2", "window3"), index.findAll(handles(),
+                anyOf(equalTo("http://example.com/page2"), equalTo("http://example.com/page3")),
+                this::currentUrl));
+        assertEquals(Arrays.asList("window2", "window3"), switchedTo);
+
+        clock.advance(Duration.ofSeconds(5));
+        switchedTo.clear();
+
+        index.findAll(handles(), equalTo("http://example.com/page1"), this::currentUrl);
+
+        assertEquals(10, switchedTo.size());
+    }
+
+    private List<String> handles() {
+        return new ArrayList<>(windows.keySet());
+    }
+
+    private String currentUrl(String handle) {
+        switchedTo.add(handle);
+        return windows.get(handle);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.stubs;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.redhat.darcy.ui.api.Locator;
+import com.redhat.darcy.ui.api.View;
+import com.redhat.darcy.web.api.Browser;
+import com.redhat.darcy.web.api.CookieManager;
+import com.redhat.darcy.web.api.WebSelection;
+import com.redhat.synq.Event;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An in-memory {@link Browser} with a single window. Navigation happens when the returned
+ * {@link Event} is waited on. Any use after it has been closed throws an
+ * {@link IllegalStateException}, as a real browser whose driver has quit would throw some
+ * exception.
+ */
+public class FakeBrowser implements Browser {
+    private final List<String> history = new ArrayList<>();
+    private final FakeCookieManager cookies = new FakeCookieManager();
+    private String currentUrl = "about:blank";
+    private boolean closed = false;
+
+    public List<String> getHistory() {
+        return history;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public <T extends View> Event<T> open(String url, T destination) {
+        checkOpen();
+        return navigation(() -> currentUrl = url, destination);
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        checkOpen();
+        return currentUrl;
+    }
+
+    @Override
+    public String getTitle() {
+        checkOpen();
+        return currentUrl;
+    }
+
+    @Override
+    public String getSource() {
+        checkOpen();
+        return "<html></html>";
+    }
+
+    @Override
+    public <T extends View> Event<T> back(T destination) {
+        throw new UnsupportedOperationException("back");
+    }
+
+    @Override
+    public <T extends View> Event<T> forward(T destination) {
+        throw new UnsupportedOperationException("forward");
+    }
+
+    @Override
+    public <T extends View> Event<T> refresh(T destination) {
+        checkOpen();
+        return navigation(() -> {}, destination);
+    }
+
+    @Override
+    public CookieManager cookies() {
+        checkOpen();
+        return cookies;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public void closeAll() {
+        closed = true;
+    }
+
+    @Override
+    public void takeScreenshot(OutputStream outputStream) {
+        throw new UnsupportedOperationException("takeScreenshot");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public WebSelection find() {
+        checkOpen();
+
+        WebSelection selection = mock(WebSelection.class);
+        List<Browser> windows = new ArrayList<>();
+        windows.add(this);
+        when(selection.contextsOfType(eq(Browser.class), any(Locator.class))).thenReturn(windows);
+
+        return selection;
+    }
+
+    @Override
+    public boolean isPresent() {
+        return !closed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends View> Event<T> navigation(Runnable navigate, T destination) {
+        Event<T> event = mock(Event.class);
+
+        when(event.waitUpTo(any(Duration.class))).thenAnswer(invocation -> {
+            navigate.run();
+            history.add(currentUrl);
+            return destination;
+        });
+
+        return event;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Browser is closed.");
+        }
+    }
+}
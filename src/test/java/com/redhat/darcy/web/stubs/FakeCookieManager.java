@@ -0,0 +1,66 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of darcy-web.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.darcy.web.stubs;
+
+import com.redhat.darcy.web.Cookie;
+import com.redhat.darcy.web.api.CookieManager;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An in-memory {@link CookieManager}, which like a browser, keeps cookies with the same name but
+ * different domains or paths separately, and deletes all of them by name.
+ */
+public class FakeCookieManager implements CookieManager {
+    private final Map<List<String>, Cookie> cookies = new LinkedHashMap<>();
+
+    @Override
+    public void add(Cookie cookie) {
+        cookies.put(Arrays.asList(cookie.getName(), cookie.getDomain(), cookie.getPath()), cookie);
+    }
+
+    @Override
+    public void delete(String name) {
+        cookies.values().removeIf(cookie -> Objects.equals(cookie.getName(), name));
+    }
+
+    @Override
+    public void deleteAll() {
+        cookies.clear();
+    }
+
+    @Override
+    public Set<Cookie> getAll() {
+        return new HashSet<>(cookies.values());
+    }
+
+    @Override
+    public Optional<Cookie> get(String name) {
+        return cookies.values().stream()
+                .filter(cookie -> Objects.equals(cookie.getName(), name))
+                .findFirst();
+    }
+}